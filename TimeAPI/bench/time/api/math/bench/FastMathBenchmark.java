@@ -0,0 +1,164 @@
+package time.api.math.bench;
+
+import java.util.Random;
+
+import time.api.math.FastMath;
+import time.api.math.Matrix3x2f;
+
+/**
+ * 
+ * Compares the functions of {@link FastMath} against the ones in {@link Math} they stand in for, without opening a window.
+ * <p>
+ * Each case runs for a while to warm up, and is then measured for a fixed amount of time. The inputs are random, so the JIT
+ * cannot fold them away, and are the same for both sides of a comparison. The report lists the time per operation.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -warmup 2   the seconds to warm up each case for
+ * -measure 3   the seconds to measure each case for
+ * </pre>
+ * 
+ */
+public class FastMathBenchmark {
+	
+	//Operations run between two reads of the clock, one per input
+	private static final int BATCH = 4096;
+	
+	private float warmup = 2;
+	private float measure = 3;
+	
+	//Read after every case so the JIT cannot discard the results
+	private float sink;
+	
+	private final float[] angles = new float[BATCH], values = new float[BATCH];
+	private final Matrix3x2f matrix = new Matrix3x2f();
+	
+	public static void main(String[] args) {
+		FastMathBenchmark benchmark = new FastMathBenchmark();
+		benchmark.parse(args);
+		benchmark.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every case and prints the results.
+	 * 
+	 */
+	public void run() {
+		Random r = new Random(1);
+		for(int i = 0; i < BATCH; i++) {
+			angles[i] = r.nextFloat() * 720 - 360;
+			values[i] = r.nextFloat() * 1000 + 0.001f;
+		}
+		
+		System.out.println(String.format("%-24s %10s", "case", "ns/op"));
+		
+		measure("Math.sin", new Runnable() {
+			@Override
+			public void run() {
+				for(float a : angles)
+					sink += (float)Math.sin((float)Math.toRadians(a));
+			}
+		});
+		
+		measure("FastMath.sin", new Runnable() {
+			@Override
+			public void run() {
+				for(float a : angles)
+					sink += FastMath.sin(a);
+			}
+		});
+		
+		measure("1 / Math.sqrt", new Runnable() {
+			@Override
+			public void run() {
+				for(float v : values)
+					sink += 1 / (float)Math.sqrt(v);
+			}
+		});
+		
+		measure("FastMath.invSqrt", new Runnable() {
+			@Override
+			public void run() {
+				for(float v : values)
+					sink += FastMath.invSqrt(v);
+			}
+		});
+		
+		measure("Math.max(Math.min)", new Runnable() {
+			@Override
+			public void run() {
+				for(float a : angles)
+					sink += Math.max(-100, Math.min(a, 100));
+			}
+		});
+		
+		measure("FastMath.clamp", new Runnable() {
+			@Override
+			public void run() {
+				for(float a : angles)
+					sink += FastMath.clamp(a, -100, 100);
+			}
+		});
+		
+		for(boolean enabled : new boolean[]{false, true}) {
+			FastMath.setEnabled(enabled);
+			measure(enabled ? "setTRS (fast)" : "setTRS (exact)", new Runnable() {
+				@Override
+				public void run() {
+					for(float a : angles) {
+						matrix.setTRS(a, -a, a, 2, 3);
+						sink += matrix.m00;
+					}
+				}
+			});
+		}
+		FastMath.setEnabled(false);
+		
+		//Printing the sink keeps the results in use
+		System.out.println("sink " + sink);
+	}
+	
+	private void measure(String name, Runnable batch) {
+		run(batch, (long)(warmup * 1e9));
+		
+		long start = System.nanoTime();
+		long ops = run(batch, (long)(measure * 1e9));
+		long time = System.nanoTime() - start;
+		
+		System.out.println(String.format("%-24s %10.2f", name, (double)time / ops));
+	}
+	
+	//Runs batches until the time is up, returning the amount of operations
+	private static long run(Runnable batch, long nanos) {
+		long end = System.nanoTime() + nanos;
+		long ops = 0;
+		do {
+			batch.run();
+			ops += BATCH;
+		} while(System.nanoTime() < end);
+		return ops;
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-warmup":
+				warmup = Float.parseFloat(value(args, ++i));
+				break;
+			case "-measure":
+				measure = Float.parseFloat(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
@@ -0,0 +1,156 @@
+package time.api.math.bench;
+
+import java.util.Random;
+
+import time.api.math.FastMath;
+
+/**
+ * 
+ * Checks that the approximations of {@link FastMath} stay within their stated error bounds, without opening a window.
+ * <p>
+ * The sine and cosine are swept in small steps over several turns on both sides of zero, and tested at random angles up to the
+ * largest ones they accept, against {@link Math#sin(double)} and {@link Math#cos(double)} of the same angle in double precision.
+ * The inverse square root is tested on evenly spaced floats from the smallest to the largest normal value, and on random ones,
+ * against 1 / {@link Math#sqrt(double)}. A bound that is exceeded stops the check with an {@link IllegalStateException} naming
+ * the function and the input it was worst at, otherwise it ends by printing the largest errors found.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -turns 4   the turns to sweep the sine and cosine over on each side of zero
+ * -samples 1000000   the amount of random inputs to test each function at
+ * -seed 1   the seed the random inputs are generated from
+ * </pre>
+ * 
+ */
+public class FastMathCheck {
+	
+	//Sweep steps per degree, not a power of two so the angles fall between the entries of the table
+	private static final int STEPS_PER_DEGREE = 100;
+	
+	//The largest angle the sine and cosine accept, in degrees
+	private static final float MAX_ANGLE = 1e9f;
+	
+	//Floats skipped between two inputs of the inverse square root sweep
+	private static final int SQRT_STRIDE = 997;
+	
+	private int turns = 4;
+	private int samples = 1000000;
+	private long seed = 1;
+	
+	//The largest error found so far for the current function, and the input it was found at
+	private double worst;
+	private float worstInput;
+	
+	public static void main(String[] args) {
+		FastMathCheck check = new FastMathCheck();
+		check.parse(args);
+		check.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every check, throwing if a function exceeded its bound.
+	 * 
+	 */
+	public void run() {
+		StringBuilder failures = new StringBuilder();
+		
+		System.out.println(String.format("%-10s %12s %12s %14s", "function", "bound", "error", "at"));
+		
+		checkTrig(false);
+		report("sin", FastMath.TRIG_ERROR, failures);
+		
+		checkTrig(true);
+		report("cos", FastMath.TRIG_ERROR, failures);
+		
+		checkInvSqrt();
+		report("invSqrt", FastMath.INV_SQRT_ERROR, failures);
+		
+		if(failures.length() > 0)
+			throw new IllegalStateException("FastMath exceeded its error bounds:" + failures);
+		
+		System.out.println("Every function is within its bound");
+	}
+	
+	private void checkTrig(boolean cos) {
+		worst = 0;
+		
+		int steps = turns * 360 * STEPS_PER_DEGREE;
+		for(int i = -steps; i <= steps; i++)
+			trig((float)i / STEPS_PER_DEGREE, cos);
+		
+		//Large angles, where a float can only land on a few points of a turn
+		Random r = new Random(seed);
+		for(int i = 0; i < samples; i++)
+			trig((r.nextFloat() * 2 - 1) * MAX_ANGLE, cos);
+		
+		trig(MAX_ANGLE, cos);
+		trig(-MAX_ANGLE, cos);
+	}
+	
+	private void trig(float degrees, boolean cos) {
+		double radians = Math.toRadians(degrees);
+		double exact = cos ? Math.cos(radians) : Math.sin(radians);
+		float fast = cos ? FastMath.cos(degrees) : FastMath.sin(degrees);
+		track(Math.abs(fast - exact), degrees);
+	}
+	
+	private void checkInvSqrt() {
+		worst = 0;
+		
+		int first = Float.floatToRawIntBits(Float.MIN_NORMAL);
+		int last = Float.floatToRawIntBits(Float.MAX_VALUE);
+		for(int bits = first; bits <= last - SQRT_STRIDE; bits += SQRT_STRIDE)
+			invSqrt(Float.intBitsToFloat(bits));
+		invSqrt(Float.MIN_NORMAL);
+		invSqrt(Float.MAX_VALUE);
+		
+		Random r = new Random(seed);
+		for(int i = 0; i < samples; i++)
+			invSqrt(Float.intBitsToFloat(first + r.nextInt(last - first + 1)));
+	}
+	
+	private void invSqrt(float x) {
+		double exact = 1 / Math.sqrt(x);
+		track(Math.abs(FastMath.invSqrt(x) - exact) / exact, x);
+	}
+	
+	private void track(double error, float input) {
+		//NaN counts as the worst possible error
+		if(!(error <= worst)) {
+			worst = error;
+			worstInput = input;
+		}
+	}
+	
+	private void report(String name, float bound, StringBuilder failures) {
+		System.out.println(String.format("%-10s %12.3e %12.3e %14.7g", name, bound, worst, worstInput));
+		if(!(worst <= bound))
+			failures.append("\n").append(name).append(" is off by ").append(worst).append(" at ").append(worstInput);
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-turns":
+				turns = Integer.parseInt(value(args, ++i));
+				break;
+			case "-samples":
+				samples = Integer.parseInt(value(args, ++i));
+				break;
+			case "-seed":
+				seed = Long.parseLong(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
@@ -0,0 +1,199 @@
+package time.api.math.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import time.api.math.Matrix3x2f;
+import time.api.math.Matrix4f;
+
+/**
+ * 
+ * Compares the allocation-free matrix operations against the ones they replaced, without opening a window.
+ * <p>
+ * Each case runs for a while to warm up, and is then measured for a fixed amount of time. The report lists the time and
+ * bytes allocated per operation. The replaced code is kept here, as it was, so the two can be compared on the same machine.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -warmup 2   the seconds to warm up each case for
+ * -measure 3   the seconds to measure each case for
+ * </pre>
+ * 
+ */
+public class MatrixBenchmark {
+	
+	//Operations run between two reads of the clock
+	private static final int BATCH = 10000;
+	
+	private float warmup = 2;
+	private float measure = 3;
+	
+	//Read after every case so the JIT cannot discard the results
+	private float sink;
+	
+	private final Matrix4f a = new Matrix4f(), b = new Matrix4f(), dest = new Matrix4f(), scratch = new Matrix4f();
+	private final Matrix3x2f affine = new Matrix3x2f();
+	
+	public static void main(String[] args) {
+		MatrixBenchmark benchmark = new MatrixBenchmark();
+		benchmark.parse(args);
+		benchmark.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every case and prints the results.
+	 * 
+	 */
+	public void run() {
+		for(int i = 0; i < 16; i++) {
+			a.matrix[i] = i * 0.25f - 1;
+			b.matrix[i] = 1 - i * 0.125f;
+		}
+		
+		System.out.println(String.format("%-24s %10s %10s", "case", "ns/op", "bytes/op"));
+		
+		measure("multiply (old)", new Runnable() {
+			@Override
+			public void run() {
+				for(int i = 0; i < BATCH; i++) {
+					Matrix4f m = legacyMultiply(scratch.set(a), b);
+					sink += m.matrix[i & 15];
+				}
+			}
+		});
+		
+		measure("mul(a, b, dest)", new Runnable() {
+			@Override
+			public void run() {
+				for(int i = 0; i < BATCH; i++) {
+					Matrix4f.mul(a, b, dest);
+					sink += dest.matrix[i & 15];
+				}
+			}
+		});
+		
+		measure("transform matrix (old)", new Runnable() {
+			@Override
+			public void run() {
+				for(int i = 0; i < BATCH; i++) {
+					Matrix4f m = legacyTransform(i, -i, i * 0.5f, 2, 3);
+					sink += m.matrix[12];
+				}
+			}
+		});
+		
+		measure("Matrix4f.setTRS", new Runnable() {
+			@Override
+			public void run() {
+				for(int i = 0; i < BATCH; i++) {
+					dest.setTRS(i, -i, i * 0.5f, 2, 3);
+					sink += dest.matrix[12];
+				}
+			}
+		});
+		
+		measure("Matrix3x2f.setTRS", new Runnable() {
+			@Override
+			public void run() {
+				for(int i = 0; i < BATCH; i++) {
+					affine.setTRS(i, -i, i * 0.5f, 2, 3);
+					sink += affine.m20;
+				}
+			}
+		});
+		
+		//Printing the sink keeps the results in use
+		System.out.println("sink " + sink);
+	}
+	
+	private void measure(String name, Runnable batch) {
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean alloc = null;
+		if(mx instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)mx).isThreadAllocatedMemorySupported())
+			alloc = (com.sun.management.ThreadMXBean)mx;
+		
+		run(batch, (long)(warmup * 1e9));
+		
+		long thread = Thread.currentThread().getId();
+		long bytes = alloc != null ? alloc.getThreadAllocatedBytes(thread) : 0;
+		long start = System.nanoTime();
+		
+		long ops = run(batch, (long)(measure * 1e9));
+		
+		long time = System.nanoTime() - start;
+		bytes = alloc != null ? alloc.getThreadAllocatedBytes(thread) - bytes : -1;
+		
+		System.out.println(String.format("%-24s %10.2f %10s", name, (double)time / ops,
+				bytes < 0 ? "n/a" : String.valueOf(bytes / ops)));
+	}
+	
+	//Runs batches until the time is up, returning the amount of operations
+	private static long run(Runnable batch, long nanos) {
+		long end = System.nanoTime() + nanos;
+		long ops = 0;
+		do {
+			batch.run();
+			ops += BATCH;
+		} while(System.nanoTime() < end);
+		return ops;
+	}
+	
+	//Matrix4f.multiply as it was, allocating a result and copying the right matrix for every term
+	private static Matrix4f legacyMultiply(Matrix4f left, Matrix4f right) {
+		float[] result = new float[16];
+		
+		for(int i = 0; i < 4; i++) {
+			for(int j = 0; j < 4; j++) {
+				for(int k = 0; k < 4; k++) {
+					result[i*4+j] += left.matrix[k+i*4] * right.toFloatArray()[j+k*4];
+				}
+			}
+		}
+		
+		return left.init(result);
+	}
+	
+	//Transform.getMatrix as it was, building two matrices and writing the rotation over the identity
+	private static Matrix4f legacyTransform(float x, float y, float rotation, float scaleX, float scaleY) {
+		Matrix4f matrix = new Matrix4f();
+		matrix = Matrix4f.IDENTITY();
+		
+		matrix.matrix[12] += x;
+		matrix.matrix[13] += y;
+		
+		float r = (float)Math.toRadians(rotation);
+		float sin = (float)Math.sin(r);
+		float cos = (float)Math.cos(r);
+		matrix.matrix[0] = cos;
+		matrix.matrix[4] = -sin;
+		matrix.matrix[1] = sin;
+		matrix.matrix[5] = cos;
+		
+		matrix.matrix[0] *= scaleX;
+		matrix.matrix[5] *= scaleY;
+		return matrix;
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-warmup":
+				warmup = Float.parseFloat(value(args, ++i));
+				break;
+			case "-measure":
+				measure = Float.parseFloat(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
@@ -0,0 +1,167 @@
+package time.api.math.bench;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import time.api.math.FastMath;
+import time.api.math.Transform;
+import time.api.math.TransformBatch;
+import time.api.util.Util;
+
+/**
+ * 
+ * Measures how fast the world matrices of many sprites are written into one buffer, without opening a window.
+ * <p>
+ * Every amount of sprites is run three ways: one {@link Transform} per sprite with its matrix copied into the buffer, and a
+ * {@link TransformBatch} with each of its kernels. Every sprite changes each pass, so no cached matrix is reused. In the moving
+ * cases the sprites only move, in the turning cases they also rotate, so their sines and cosines are recomputed too. The report
+ * lists the time per pass and per sprite.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -counts 10000,100000   the amounts of sprites
+ * -stride 6   the floats per sprite, 6 or 16
+ * -warmup 2   the seconds to warm up each case for
+ * -measure 3   the seconds to measure each case for
+ * -fast   enables the approximations of FastMath
+ * </pre>
+ * 
+ */
+public class TransformBatchBenchmark {
+	
+	private int[] counts = {10000, 100000};
+	private int stride = TransformBatch.AFFINE;
+	private float warmup = 2;
+	private float measure = 3;
+	
+	//Read after every case so the JIT cannot discard the results
+	private float sink;
+	
+	public static void main(String[] args) {
+		TransformBatchBenchmark benchmark = new TransformBatchBenchmark();
+		benchmark.parse(args);
+		benchmark.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every case and prints the results.
+	 * 
+	 */
+	public void run() {
+		System.out.println(String.format("%-10s %-8s %8s %10s %10s", "case", "motion", "sprites", "ms/pass", "ns/sprite"));
+		
+		for(final int count : counts) {
+			Random r = new Random(1);
+			final Transform[] transforms = new Transform[count];
+			final TransformBatch batch = new TransformBatch(count, stride);
+			for(int i = 0; i < count; i++) {
+				transforms[i] = new Transform(r.nextFloat() * 1000, r.nextFloat() * 1000);
+				transforms[i].setRotation(r.nextFloat() * 360).setScale(1 + r.nextFloat(), 1 + r.nextFloat());
+				batch.add(transforms[i]);
+			}
+			
+			final FloatBuffer buffer = Util.createFloatBuffer(count * stride);
+			
+			for(final boolean turning : new boolean[]{false, true}) {
+				measure("transform", turning, count, new Runnable() {
+					@Override
+					public void run() {
+						buffer.clear();
+						for(Transform t : transforms) {
+							if(turning)
+								t.rotate(1);
+							t.translateX(1);
+							float[] m = t.getMatrix().matrix;
+							if(stride == TransformBatch.MATRIX) {
+								buffer.put(m);
+							} else {
+								buffer.put(m[0]).put(m[1]).put(m[4]).put(m[5]).put(m[12]).put(m[13]);
+							}
+						}
+						buffer.flip();
+						sink += buffer.get(0);
+					}
+				});
+				
+				for(final boolean blocked : new boolean[]{false, true}) {
+					batch.setBlocked(blocked);
+					measure(blocked ? "blocked" : "scalar", turning, count, new Runnable() {
+						@Override
+						public void run() {
+							for(int i = 0; i < count; i++) {
+								Transform t = transforms[i];
+								if(turning)
+									t.rotation++;
+								t.pos.x++;
+								batch.setPosition(i, t.pos.x, t.pos.y).setRotation(i, t.rotation);
+							}
+							sink += batch.update().get(0);
+						}
+					});
+				}
+			}
+		}
+		
+		//Printing the sink keeps the results in use
+		System.out.println("sink " + sink);
+	}
+	
+	private void measure(String name, boolean turning, int count, Runnable pass) {
+		run(pass, (long)(warmup * 1e9));
+		
+		long start = System.nanoTime();
+		long passes = run(pass, (long)(measure * 1e9));
+		long time = System.nanoTime() - start;
+		
+		double ms = time / 1e6 / passes;
+		System.out.println(String.format("%-10s %-8s %8d %10.3f %10.2f", name, turning ? "turning" : "moving", count, ms,
+				ms * 1e6 / count));
+	}
+	
+	//Runs passes until the time is up, returning the amount of passes
+	private static long run(Runnable pass, long nanos) {
+		long end = System.nanoTime() + nanos;
+		long passes = 0;
+		do {
+			pass.run();
+			passes++;
+		} while(System.nanoTime() < end);
+		return passes;
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-counts": {
+				String[] s = value(args, ++i).split(",");
+				counts = new int[s.length];
+				for(int j = 0; j < s.length; j++)
+					counts[j] = Integer.parseInt(s[j].trim());
+				break;
+			}
+			case "-stride":
+				stride = Integer.parseInt(value(args, ++i));
+				break;
+			case "-warmup":
+				warmup = Float.parseFloat(value(args, ++i));
+				break;
+			case "-measure":
+				measure = Float.parseFloat(value(args, ++i));
+				break;
+			case "-fast":
+				FastMath.setEnabled(true);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
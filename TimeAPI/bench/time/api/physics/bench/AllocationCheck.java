@@ -0,0 +1,133 @@
+package time.api.physics.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import time.api.physics.PhysicsEngine;
+
+/**
+ * 
+ * Checks that {@link PhysicsEngine#update(float)} allocates nothing once a scene has warmed up, without opening a window.
+ * <p>
+ * Every combination of layout and broadphase gets a fresh engine which is updated for a while, so the buffers of the engine
+ * have grown to fit the scene and the JIT compiler has settled, and then updated for a fixed amount of steps while the bytes
+ * allocated by this thread are counted. The JVM itself now and then allocates on the thread, when recompiled code first resolves
+ * a class, so a scene that allocated is measured again, up to a few times. An engine that allocates as it runs does so in every
+ * attempt. A scene that allocated in every attempt stops the check with an {@link IllegalStateException} naming it,
+ * otherwise the check ends by printing the amount of steps checked. The check needs a JVM that counts allocations per thread.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -bodies 1000   the amount of bodies to generate
+ * -layouts sparse,dense,static   the scene layouts to generate, see {@link SceneLayout}
+ * -broadphases hash,sap,tree   the broadphases to check
+ * -warmup 10000   the amount of updates to warm up each scene for
+ * -steps 5000   the amount of updates to check each scene for
+ * -attempts 3   the times to measure a scene before it counts as allocating
+ * </pre>
+ * 
+ */
+public class AllocationCheck {
+	
+	private static final float STEP = 1 / 60f;
+	
+	private int bodies = 1000;
+	private SceneLayout[] layouts = SceneLayout.values();
+	private String[] broadphases = {"hash", "sap", "tree"};
+	private int warmup = 10000;
+	private int steps = 5000;
+	private int attempts = 3;
+	
+	//Generates the scenes the same way the benchmark does
+	private final PhysicsBenchmark scenes = new PhysicsBenchmark();
+	
+	public static void main(String[] args) {
+		AllocationCheck check = new AllocationCheck();
+		check.parse(args);
+		check.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every combination of the configured scenes, throwing if any of them allocated.
+	 * 
+	 */
+	public void run() {
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		if(!(mx instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean)mx).isThreadAllocatedMemorySupported())
+			throw new IllegalStateException("This JVM does not count allocations per thread");
+		com.sun.management.ThreadMXBean alloc = (com.sun.management.ThreadMXBean)mx;
+		alloc.setThreadAllocatedMemoryEnabled(true);
+		
+		long thread = Thread.currentThread().getId();
+		StringBuilder failures = new StringBuilder();
+		
+		System.out.println(String.format("%-8s %8s %-6s %10s", "layout", "bodies", "bp", "bytes"));
+		
+		for(SceneLayout layout : layouts) {
+			for(String name : broadphases) {
+				PhysicsEngine pe = scenes.createEngine(layout, bodies, name);
+				for(int i = 0; i < warmup; i++)
+					pe.update(STEP);
+				
+				long bytes = 0;
+				for(int a = 0; a < attempts; a++) {
+					bytes = alloc.getThreadAllocatedBytes(thread);
+					for(int i = 0; i < steps; i++)
+						pe.update(STEP);
+					bytes = alloc.getThreadAllocatedBytes(thread) - bytes;
+					if(bytes == 0)
+						break;
+				}
+				
+				String scene = String.format("%-8s %8d %-6s", layout.name().toLowerCase(), bodies, name);
+				System.out.println(String.format("%s %10d", scene, bytes));
+				if(bytes != 0)
+					failures.append("\n").append(scene.trim().replaceAll(" +", " ")).append(" allocated ").append(bytes).append(" bytes");
+			}
+		}
+		
+		if(failures.length() > 0)
+			throw new IllegalStateException("The physics engine allocated after warming up:" + failures);
+		
+		System.out.println("No allocations in " + steps + " updates of every scene");
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-bodies":
+				bodies = Integer.parseInt(value(args, ++i));
+				break;
+			case "-layouts": {
+				String[] s = value(args, ++i).split(",");
+				layouts = new SceneLayout[s.length];
+				for(int j = 0; j < s.length; j++)
+					layouts[j] = SceneLayout.parse(s[j]);
+				break;
+			}
+			case "-broadphases":
+				broadphases = value(args, ++i).split(",");
+				break;
+			case "-warmup":
+				warmup = Integer.parseInt(value(args, ++i));
+				break;
+			case "-steps":
+				steps = Integer.parseInt(value(args, ++i));
+				break;
+			case "-attempts":
+				attempts = Integer.parseInt(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
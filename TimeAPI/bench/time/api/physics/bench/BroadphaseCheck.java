@@ -0,0 +1,361 @@
+package time.api.physics.bench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import time.api.math.Vector2f;
+import time.api.physics.AABBTree;
+import time.api.physics.Body;
+import time.api.physics.Broadphase;
+import time.api.physics.PairBuffer;
+import time.api.physics.RaycastHit;
+import time.api.physics.SpatialHash;
+import time.api.physics.SweepAndPrune;
+
+/**
+ * 
+ * Checks that every broadphase finds the same pairs, query results and raycast hits as testing every body against every other
+ * one, without opening a window.
+ * <p>
+ * Each broadphase gets its own copy of a random scene of moving, absolute and huge bodies. Every step, bodies move, jump, change
+ * size, switch between absolute and dynamic, and are removed and added again, each change made to every copy alike. The pairs,
+ * a set of region queries and a set of raycasts are then compared against the brute force answer. Pairs of two absolute bodies
+ * are left out, since the tree never reports them and the engine never collides them.
+ * <p>
+ * The first difference stops the check with an {@link IllegalStateException} describing it, otherwise it ends by printing
+ * the amount of comparisons made.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -bodies 400   the amount of bodies in the scene
+ * -steps 300   the amount of steps to run
+ * -seed 1   the seed the scene and its changes are generated from
+ * </pre>
+ * 
+ */
+public class BroadphaseCheck {
+	
+	private static final String[] NAMES = {"hash", "sap", "tree"};
+	
+	//How far from the origin bodies are placed
+	private static final float WORLD = 2000;
+	
+	private int bodies = 400;
+	private int steps = 300;
+	private long seed = 1;
+	
+	private Random random;
+	
+	//One copy of the scene per broadphase, the same index being the same body in every copy
+	private Broadphase[] broadphases;
+	private Body[][] scenes;
+	private List<IdentityHashMap<Body, Integer>> indices;
+	
+	//Whether each body is currently in the broadphases
+	private boolean[] present;
+	
+	private final PairBuffer pairs = new PairBuffer();
+	private final RaycastHit hit = new RaycastHit();
+	private Body[] results;
+	
+	private long comparisons;
+	
+	public static void main(String[] args) {
+		BroadphaseCheck check = new BroadphaseCheck();
+		check.parse(args);
+		check.run();
+	}
+	
+	/**
+	 * 
+	 * Runs the check, throwing at the first difference found.
+	 * 
+	 */
+	public void run() {
+		random = new Random(seed);
+		broadphases = new Broadphase[]{new SpatialHash(32), new SweepAndPrune(), new AABBTree()};
+		scenes = new Body[broadphases.length][bodies];
+		indices = new ArrayList<>();
+		present = new boolean[bodies];
+		results = new Body[bodies];
+		
+		for(int k = 0; k < broadphases.length; k++)
+			indices.add(new IdentityHashMap<Body, Integer>());
+		
+		for(int i = 0; i < bodies; i++) {
+			float x = (random.nextFloat() * 2 - 1) * WORLD, y = (random.nextFloat() * 2 - 1) * WORLD;
+			float w = 1 + random.nextFloat() * 60, h = 1 + random.nextFloat() * 60;
+			
+			//A few bodies span far more cells than the spatial hash buckets
+			if(i < 3) {
+				w = 1e6f;
+				h = 4 + i * 40;
+			}
+			
+			boolean absolute = random.nextInt(5) == 0;
+			String tag = random.nextBoolean() ? "a" : "b";
+			
+			for(int k = 0; k < broadphases.length; k++) {
+				Body b = new Body(x, y, w, h).setAbsolute(absolute);
+				b.addTag(tag);
+				scenes[k][i] = b;
+				indices.get(k).put(b, i);
+				broadphases[k].add(b);
+			}
+			present[i] = true;
+		}
+		
+		for(int step = 0; step < steps; step++) {
+			change();
+			for(int k = 0; k < broadphases.length; k++) {
+				for(int i = 0; i < bodies; i++) {
+					if(present[i])
+						broadphases[k].update(scenes[k][i]);
+				}
+			}
+			
+			checkPairs(step);
+			for(int q = 0; q < 20; q++)
+				checkQuery(step);
+			for(int r = 0; r < 20; r++)
+				checkRaycast(step);
+		}
+		
+		System.out.println("Broadphases agree, " + comparisons + " comparisons over " + steps + " steps");
+	}
+	
+	//Changes the scene the same way in every copy
+	private void change() {
+		for(int i = 3; i < bodies; i++) {
+			int action = random.nextInt(100);
+			float a = random.nextFloat(), b = random.nextFloat();
+			
+			for(int k = 0; k < broadphases.length; k++) {
+				Body body = scenes[k][i];
+				Vector2f pos = body.getPos();
+				
+				if(action < 60) {
+					if(!body.isAbsolute())
+						pos.set(pos.x + (a - 0.5f) * 8, pos.y + (b - 0.5f) * 8);
+				} else if(action < 63) {
+					pos.set((a * 2 - 1) * WORLD, (b * 2 - 1) * WORLD);
+				} else if(action < 65) {
+					body.setDim(new Vector2f(1 + a * 120, 1 + b * 120));
+				} else if(action < 66) {
+					body.setAbsolute(!body.isAbsolute());
+				} else if(action < 68) {
+					if(present[i])
+						broadphases[k].remove(body);
+					else
+						broadphases[k].add(body);
+				}
+			}
+			
+			if(action >= 66 && action < 68)
+				present[i] = !present[i];
+		}
+	}
+	
+	private void checkPairs(int step) {
+		Set<Long> expected = new HashSet<>();
+		for(int i = 0; i < bodies; i++) {
+			for(int j = i + 1; j < bodies; j++) {
+				if(present[i] && present[j] && !bothAbsolute(i, j) && overlaps(scenes[0][i], scenes[0][j]))
+					expected.add(key(i, j));
+			}
+		}
+		
+		for(int k = 0; k < broadphases.length; k++) {
+			pairs.clear();
+			broadphases[k].findPairs(pairs);
+			
+			Set<Long> found = new HashSet<>();
+			for(int p = 0; p < pairs.size(); p++) {
+				int i = indices.get(k).get(pairs.getFirst(p)), j = indices.get(k).get(pairs.getSecond(p));
+				if(bothAbsolute(i, j))
+					continue;
+				if(!found.add(key(Math.min(i, j), Math.max(i, j))))
+					fail(k, step, "reported the pair " + i + ", " + j + " twice");
+			}
+			
+			compare(k, step, "pairs", expected, found);
+		}
+	}
+	
+	private void checkQuery(int step) {
+		float minX, minY, maxX, maxY;
+		if(random.nextInt(10) == 0) {
+			minX = minY = -Float.MAX_VALUE;
+			maxX = maxY = Float.MAX_VALUE;
+		} else {
+			minX = (random.nextFloat() * 2 - 1) * WORLD;
+			minY = (random.nextFloat() * 2 - 1) * WORLD;
+			maxX = minX + random.nextFloat() * 600;
+			maxY = minY + random.nextFloat() * 600;
+		}
+		
+		Set<Long> expected = new HashSet<>();
+		for(int i = 0; i < bodies; i++) {
+			Body b = scenes[0][i];
+			if(present[i] && !(b.getMaxX() < minX || maxX < b.getMinX() || b.getMaxY() < minY || maxY < b.getMinY()))
+				expected.add((long)i);
+		}
+		
+		for(int k = 0; k < broadphases.length; k++) {
+			int n = broadphases[k].query(minX, minY, maxX, maxY, results);
+			
+			Set<Long> found = new HashSet<>();
+			for(int r = 0; r < n; r++) {
+				if(!found.add((long)indices.get(k).get(results[r])))
+					fail(k, step, "found a body twice in the region " + minX + ", " + minY + ", " + maxX + ", " + maxY);
+			}
+			
+			compare(k, step, "query", expected, found);
+		}
+	}
+	
+	private void checkRaycast(int step) {
+		float ox = (random.nextFloat() * 2 - 1) * WORLD, oy = (random.nextFloat() * 2 - 1) * WORLD;
+		float angle = random.nextFloat() * (float)Math.PI * 2;
+		float dx = (float)Math.cos(angle), dy = (float)Math.sin(angle);
+		
+		//Some rays are axis aligned, the rest reach anywhere from a short way to across the whole scene
+		if(random.nextInt(8) == 0) {
+			dx = random.nextBoolean() ? 0 : 1;
+			dy = dx == 0 ? -1 : 0;
+		}
+		float maxFraction = random.nextInt(4) == 0 ? WORLD * 4 : random.nextFloat() * 500;
+		long mask = random.nextBoolean() ? -1 : scenes[0][3 + random.nextInt(bodies - 3)].getLayers();
+		
+		float closest = Float.POSITIVE_INFINITY;
+		for(int i = 0; i < bodies; i++) {
+			Body b = scenes[0][i];
+			if(!present[i] || (b.getLayers() & mask) == 0)
+				continue;
+			float f = castBox(ox, oy, dx, dy, maxFraction, b);
+			if(f >= 0 && f < closest)
+				closest = f;
+		}
+		
+		for(int k = 0; k < broadphases.length; k++) {
+			comparisons++;
+			boolean found = broadphases[k].raycast(ox, oy, dx, dy, maxFraction, mask, hit);
+			String ray = "the ray from " + ox + ", " + oy + " along " + dx + ", " + dy + " up to " + maxFraction;
+			
+			if(found != (closest != Float.POSITIVE_INFINITY))
+				fail(k, step, (found ? "hit something along " : "missed everything along ") + ray);
+			if(!found)
+				continue;
+			
+			if(!near(hit.getFraction(), closest))
+				fail(k, step, "hit at " + hit.getFraction() + " instead of " + closest + " along " + ray);
+			
+			//Ties may be broken either way, but the body hit has to be one of them
+			int i = indices.get(k).get(hit.getBody());
+			float f = castBox(ox, oy, dx, dy, maxFraction, scenes[0][i]);
+			if(!present[i] || (hit.getBody().getLayers() & mask) == 0 || !near(f, closest))
+				fail(k, step, "hit body " + i + " which is not the closest along " + ray);
+		}
+	}
+	
+	private void compare(int k, int step, String what, Set<Long> expected, Set<Long> found) {
+		comparisons++;
+		if(expected.equals(found))
+			return;
+		
+		Set<Long> missing = new HashSet<>(expected);
+		missing.removeAll(found);
+		Set<Long> extra = new HashSet<>(found);
+		extra.removeAll(expected);
+		fail(k, step, what + " differ, missing " + missing.size() + " " + sample(missing) + ", extra " + extra.size() + " " + sample(extra));
+	}
+	
+	private void fail(int k, int step, String message) {
+		throw new IllegalStateException(NAMES[k] + " at step " + step + ": " + message);
+	}
+	
+	//Lists a few of the bodies or pairs in a set
+	private static String sample(Set<Long> set) {
+		List<String> list = new ArrayList<>();
+		for(long k : set) {
+			if(list.size() == 5)
+				break;
+			list.add(k >>> 32 == 0 ? String.valueOf(k) : ((k >>> 32) - 1) + "-" + (int)k);
+		}
+		return list.toString();
+	}
+	
+	private boolean bothAbsolute(int i, int j) {
+		return scenes[0][i].isAbsolute() && scenes[0][j].isAbsolute();
+	}
+	
+	private static boolean overlaps(Body a, Body b) {
+		return !(a.getMaxX() < b.getMinX() || b.getMaxX() < a.getMinX() || a.getMaxY() < b.getMinY() || b.getMaxY() < a.getMinY());
+	}
+	
+	//Pairs are keyed by both indices, the lower one first and offset by one so it is never zero
+	private static long key(int i, int j) {
+		return (long)(i + 1) << 32 | j;
+	}
+	
+	private static boolean near(float a, float b) {
+		return Math.abs(a - b) <= 1e-4f * Math.max(1, Math.abs(b));
+	}
+	
+	//The slab test, in double precision so it does not share the rounding of the broadphases
+	private static float castBox(float ox, float oy, float dx, float dy, float maxFraction, Body b) {
+		double tMin = 0, tMax = maxFraction;
+		
+		if(dx == 0) {
+			if(ox < b.getMinX() || ox > b.getMaxX())
+				return -1;
+		} else {
+			double t1 = (b.getMinX() - (double)ox) / dx, t2 = (b.getMaxX() - (double)ox) / dx;
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		}
+		
+		if(dy == 0) {
+			if(oy < b.getMinY() || oy > b.getMaxY())
+				return -1;
+		} else {
+			double t1 = (b.getMinY() - (double)oy) / dy, t2 = (b.getMaxY() - (double)oy) / dy;
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		}
+		
+		return tMin > tMax ? -1 : (float)tMin;
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-bodies":
+				bodies = Integer.parseInt(value(args, ++i));
+				break;
+			case "-steps":
+				steps = Integer.parseInt(value(args, ++i));
+				break;
+			case "-seed":
+				seed = Long.parseLong(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		
+		if(bodies < 4)
+			throw new IllegalArgumentException("At least 4 bodies are needed: " + bodies);
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
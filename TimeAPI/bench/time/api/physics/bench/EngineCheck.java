@@ -0,0 +1,134 @@
+package time.api.physics.bench;
+
+import time.api.math.Vector2f;
+import time.api.physics.Body;
+import time.api.physics.Collision;
+import time.api.physics.PhysicsEngine;
+import time.api.physics.PhysicsThread;
+import time.api.physics.TileMap;
+
+/**
+ * 
+ * Checks behaviour of the physics engine that is easy to break without noticing, one small scene per check, without opening a
+ * window.
+ * <p>
+ * The first check that fails stops the run with an {@link IllegalStateException} describing it, otherwise it ends by
+ * printing the amount of checks that passed. It takes no options.
+ * 
+ */
+public class EngineCheck {
+	
+	//How long to wait for the physics thread to publish a frame, in milliseconds
+	private static final long TIMEOUT = 5000;
+	
+	private int passed;
+	
+	public static void main(String[] args) {
+		if(args.length > 0)
+			throw new IllegalArgumentException("Unknown option: " + args[0]);
+		
+		new EngineCheck().run();
+	}
+	
+	/**
+	 * 
+	 * Runs every check, throwing at the first one that fails.
+	 * 
+	 */
+	public void run() {
+		threadKeepsEdits();
+		sleepersStayTouching();
+		tileMapFitsIndex();
+		handMadeCollisionsSolved();
+		
+		System.out.println("All " + passed + " checks passed");
+	}
+	
+	//Changes made through the vectors of a body after the last update have to survive the physics thread taking over
+	private void threadKeepsEdits() {
+		PhysicsEngine engine = new PhysicsEngine();
+		Body body = new Body(0, 0, 10, 10);
+		engine.addBody(body);
+		engine.update(PhysicsEngine.getSimulationStep());
+		
+		body.getPos().set(70, 50);
+		body.getVel().set(100, 0);
+		
+		PhysicsThread thread = new PhysicsThread(engine).start();
+		try {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while(!thread.sync()) {
+				if(System.currentTimeMillis() > end)
+					fail("threadKeepsEdits", "the physics thread published nothing");
+				Thread.yield();
+			}
+		} finally {
+			thread.stop();
+		}
+		
+		Vector2f pos = body.getPos(), vel = body.getVel();
+		if(pos.x <= 70 || pos.y != 50 || vel.x != 100 || vel.y != 0)
+			fail("threadKeepsEdits", "the body ended up at " + pos.x + ", " + pos.y + " moving " + vel.x + ", " + vel.y
+					+ " instead of right of 70, 50 moving 100, 0");
+		passed++;
+	}
+	
+	//An absolute body has to keep seeing the layers of a body that fell asleep on it
+	private void sleepersStayTouching() {
+		PhysicsEngine engine = new PhysicsEngine().setGravity(0, -500);
+		Body floor = new Body(0, 0, 400, 20).setAbsolute(true);
+		floor.addTag("floor");
+		Body box = new Body(0, 30, 20, 20);
+		box.addTag("project");
+		engine.addBody(floor).addBody(box);
+		
+		float delta = PhysicsEngine.getSimulationStep();
+		for(int i = 0; i < 600 && !box.isSleeping(); i++)
+			engine.update(delta);
+		if(!box.isSleeping())
+			fail("sleepersStayTouching", "the box never fell asleep");
+		
+		for(int i = 0; i < 10; i++) {
+			engine.update(delta);
+			if(!floor.isCollidingWith("project") || !box.isCollidingWith("floor"))
+				fail("sleepersStayTouching", "the floor and the sleeping box stopped touching " + (i + 1) + " updates after it fell asleep");
+		}
+		passed++;
+	}
+	
+	//A tile map with more cells than an int can index has to be turned down instead of wrapping its cell indices
+	private void tileMapFitsIndex() {
+		try {
+			new TileMap(65536, 32768, 1, 0, 0);
+			fail("tileMapFitsIndex", "a 65536x32768 tile map was accepted");
+		} catch(IllegalArgumentException e) {
+			//Expected
+		}
+		passed++;
+	}
+	
+	//A collision added by hand has to be solved in the next step like one the engine found, and only in that step
+	@SuppressWarnings("deprecation")
+	private void handMadeCollisionsSolved() {
+		PhysicsEngine engine = new PhysicsEngine();
+		Body body = new Body(0, 0, 10, 10);
+		Body wall = new Body(50, 0, 10, 10).setAbsolute(true);
+		engine.addBody(body).addBody(wall);
+		body.getVel().set(100, 0);
+		
+		new Collision(engine, new Vector2f(-1, 0), 0, body, wall);
+		engine.step();
+		if(body.getVel().x > 0.001f)
+			fail("handMadeCollisionsSolved", "the body kept moving " + body.getVel().x + " into the wall");
+		
+		body.getVel().set(100, 0);
+		engine.step();
+		if(body.getVel().x != 100)
+			fail("handMadeCollisionsSolved", "the collision was solved again in the following step");
+		passed++;
+	}
+	
+	private static void fail(String check, String message) {
+		throw new IllegalStateException(check + ": " + message);
+	}
+}
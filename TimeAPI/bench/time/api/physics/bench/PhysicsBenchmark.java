@@ -0,0 +1,203 @@
+package time.api.physics.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import time.api.physics.AABBTree;
+import time.api.physics.Broadphase;
+import time.api.physics.PhysicsEngine;
+import time.api.physics.SpatialHash;
+import time.api.physics.SweepAndPrune;
+
+/**
+ * 
+ * Measures how fast {@link PhysicsEngine#update(float)} runs on generated scenes, without opening a window.
+ * <p>
+ * Every combination of body count, layout and broadphase gets a fresh engine which is first warmed up for a while, so the
+ * JIT compiler and the sleeping bodies have settled, and then measured for a fixed amount of time. The report lists the time
+ * per update, the updates per second and the bytes allocated per update. Allocations are read from the JVM, so they are only
+ * reported on JVMs that count them per thread.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -bodies 1000,10000,100000   the amounts of bodies to generate
+ * -layouts sparse,dense,static   the scene layouts to generate, see {@link SceneLayout}
+ * -broadphases hash,sap,tree   the broadphases to compare
+ * -warmup 2   the seconds to warm up each scene for
+ * -measure 5   the seconds to measure each scene for
+ * -seed 1   the seed the scenes are generated from
+ * -parallel   test the pairs on several threads
+ * -nosleep   keep every body awake
+ * </pre>
+ * 
+ */
+public class PhysicsBenchmark {
+	
+	private static final float STEP = 1 / 60f;
+	
+	//Measuring stops early after this many updates, even if time remains
+	private static final int MAX_UPDATES = 100000;
+	
+	private int[] bodies = {1000, 10000, 100000};
+	private SceneLayout[] layouts = SceneLayout.values();
+	private String[] broadphases = {"hash", "sap", "tree"};
+	private float warmup = 2;
+	private float measure = 5;
+	private long seed = 1;
+	private boolean parallel;
+	private boolean sleeping = true;
+	
+	//Read after every run so the JIT cannot discard the simulation
+	private long sink;
+	
+	public static void main(String[] args) {
+		PhysicsBenchmark benchmark = new PhysicsBenchmark();
+		benchmark.parse(args);
+		benchmark.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every combination of the configured scenes and prints the results.
+	 * 
+	 */
+	public void run() {
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean alloc = null;
+		if(mx instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)mx).isThreadAllocatedMemorySupported()) {
+			alloc = (com.sun.management.ThreadMXBean)mx;
+			alloc.setThreadAllocatedMemoryEnabled(true);
+		}
+		
+		System.out.println(String.format("%-8s %8s %-6s %10s %10s %12s %8s %8s",
+				"layout", "bodies", "bp", "ms/update", "updates/s", "bytes/update", "awake", "contacts"));
+		
+		for(int count : bodies) {
+			for(SceneLayout layout : layouts) {
+				for(String name : broadphases) {
+					PhysicsEngine pe = createEngine(layout, count, name);
+					
+					run(pe, (long)(warmup * 1e9), MAX_UPDATES);
+					
+					long thread = Thread.currentThread().getId();
+					long bytes = alloc != null ? alloc.getThreadAllocatedBytes(thread) : 0;
+					long start = System.nanoTime();
+					
+					int updates = run(pe, (long)(measure * 1e9), MAX_UPDATES);
+					
+					long time = System.nanoTime() - start;
+					bytes = alloc != null ? alloc.getThreadAllocatedBytes(thread) - bytes : -1;
+					
+					double ms = time / 1e6 / updates;
+					System.out.println(String.format("%-8s %8d %-6s %10.3f %10.1f %12s %8d %8d",
+							layout.name().toLowerCase(), count, name, ms, 1000 / ms,
+							bytes < 0 ? "n/a" : String.valueOf(bytes / updates),
+							pe.getAwakeBodyCount(), pe.getContactManager().size()));
+					
+					sink ^= pe.getStateHash();
+				}
+			}
+		}
+		
+		//Printing the sink keeps the simulation results in use
+		System.out.println("hash " + Long.toHexString(sink));
+	}
+	
+	/**
+	 * 
+	 * Generates a scene in a new physics engine, ready to be updated.
+	 * 
+	 * @param layout - the layout of the scene
+	 * @param count - the amount of bodies
+	 * @param broadphase - the name of the broadphase to use
+	 * @return the new physics engine
+	 */
+	public PhysicsEngine createEngine(SceneLayout layout, int count, String broadphase) {
+		PhysicsEngine pe = new PhysicsEngine();
+		pe.useStep(false);
+		pe.setBroadphase(createBroadphase(broadphase));
+		pe.setParallel(parallel);
+		pe.setAllowSleeping(sleeping);
+		layout.populate(pe, count, seed);
+		
+		//The state hash is only kept in deterministic mode, and the benchmark reads it as its result
+		pe.setDeterministic(true);
+		return pe;
+	}
+	
+	//Updates the engine until the time is up or the amount of updates is reached
+	private int run(PhysicsEngine pe, long nanos, int max) {
+		long end = System.nanoTime() + nanos;
+		int updates = 0;
+		do {
+			pe.update(STEP);
+			updates++;
+		} while(updates < max && System.nanoTime() < end);
+		return updates;
+	}
+	
+	private static Broadphase createBroadphase(String name) {
+		switch(name) {
+		case "hash":
+			return new SpatialHash(PhysicsEngine.DEFAULT_CELL_SIZE);
+		case "sap":
+			return new SweepAndPrune();
+		case "tree":
+			return new AABBTree();
+		default:
+			throw new IllegalArgumentException("Unknown broadphase: " + name);
+		}
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-bodies": {
+				String[] s = value(args, ++i).split(",");
+				bodies = new int[s.length];
+				for(int j = 0; j < s.length; j++)
+					bodies[j] = Integer.parseInt(s[j].trim());
+				break;
+			}
+			case "-layouts": {
+				List<SceneLayout> l = new ArrayList<SceneLayout>();
+				for(String s : value(args, ++i).split(","))
+					l.add(SceneLayout.parse(s));
+				layouts = l.toArray(new SceneLayout[l.size()]);
+				break;
+			}
+			case "-broadphases":
+				broadphases = value(args, ++i).split(",");
+				for(String s : broadphases)
+					createBroadphase(s);
+				break;
+			case "-warmup":
+				warmup = Float.parseFloat(value(args, ++i));
+				break;
+			case "-measure":
+				measure = Float.parseFloat(value(args, ++i));
+				break;
+			case "-seed":
+				seed = Long.parseLong(value(args, ++i));
+				break;
+			case "-parallel":
+				parallel = true;
+				break;
+			case "-nosleep":
+				sleeping = false;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
@@ -0,0 +1,107 @@
+package time.api.physics.bench;
+
+import java.util.Random;
+
+import time.api.physics.Body;
+import time.api.physics.PhysicsEngine;
+
+/**
+ * 
+ * The kinds of scenes the physics benchmark generates. Every layout places its bodies from a seeded random generator,
+ * so the same layout, body count and seed always give the same scene.
+ * <p>
+ * SPARSE - Bodies drift without gravity through a large walled area, rarely touching each other
+ * </p>
+ * <p>
+ * DENSE - Bodies are packed into a block that falls onto the ground and settles into piles
+ * </p>
+ * <p>
+ * STATIC - Most bodies are absolute tiles, with a few bodies falling between them
+ * </p>
+ * 
+ */
+public enum SceneLayout {
+	SPARSE,
+	DENSE,
+	STATIC;
+	
+	/**
+	 * 
+	 * Adds the bodies of this layout to a physics engine.
+	 * 
+	 * @param pe - the physics engine to fill
+	 * @param count - the amount of bodies to add, not counting walls and ground
+	 * @param seed - the seed of the random generator
+	 */
+	public void populate(PhysicsEngine pe, int count, long seed) {
+		Random r = new Random(seed);
+		int columns = (int)Math.ceil(Math.sqrt(count));
+		
+		switch(this) {
+		case SPARSE: {
+			//Around 64 units between bodies of 4 to 16 units
+			float size = columns * 64;
+			pe.setGravity(0, 0);
+			addWalls(pe, size, size);
+			
+			//Placed column by column, so the bodies start out nearly sorted along the x-axis
+			for(int i = 0; i < count; i++) {
+				float x = (i / columns + r.nextFloat()) * 64;
+				float y = (i % columns + r.nextFloat()) * 64;
+				Body b = new Body(x, y, 4 + r.nextFloat() * 12, 4 + r.nextFloat() * 12);
+				b.getVel().setX((r.nextFloat() - 0.5f) * 200);
+				b.getVel().setY((r.nextFloat() - 0.5f) * 200);
+				pe.addBody(b);
+			}
+			break;
+		}
+		case DENSE: {
+			//Boxes of 8 units with a single unit between them
+			float size = columns * 9;
+			pe.setGravity(0, -300);
+			addWalls(pe, size, size * 2);
+			
+			for(int i = 0; i < count; i++) {
+				float x = (i / columns) * 9 + 4.5f;
+				float y = (i % columns) * 9 + 4.5f + r.nextFloat() * 0.5f;
+				pe.addBody(new Body(x, y, 8, 8));
+			}
+			break;
+		}
+		case STATIC: {
+			//Nine in ten bodies are tiles on a grid, the rest fall through the gaps
+			float size = columns * 32;
+			pe.setGravity(0, -300);
+			addWalls(pe, size, size);
+			
+			for(int i = 0; i < count; i++) {
+				float x = (i / columns) * 32 + 16;
+				float y = (i % columns) * 32 + 16;
+				if(i % 10 == 0)
+					pe.addBody(new Body(x + r.nextFloat() * 8, y + 12, 6, 6));
+				else
+					pe.addBody(new Body(x, y, 16, 16).setAbsolute(true));
+			}
+			break;
+		}
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns the layout with the specified name, ignoring case.
+	 * 
+	 * @param name - the name of the layout
+	 * @return the layout with the name
+	 */
+	public static SceneLayout parse(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+	
+	private static void addWalls(PhysicsEngine pe, float w, float h) {
+		pe.addBody(new Body(w / 2, -8, w + 32, 16).setAbsolute(true));
+		pe.addBody(new Body(w / 2, h + 8, w + 32, 16).setAbsolute(true));
+		pe.addBody(new Body(-8, h / 2, 16, h).setAbsolute(true));
+		pe.addBody(new Body(w + 8, h / 2, 16, h).setAbsolute(true));
+	}
+}
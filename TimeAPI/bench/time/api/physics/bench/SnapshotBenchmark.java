@@ -0,0 +1,130 @@
+package time.api.physics.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import time.api.physics.PhysicsEngine;
+
+/**
+ * 
+ * Measures how fast {@link PhysicsEngine#snapshot(ByteBuffer)} and {@link PhysicsEngine#restore(ByteBuffer)} run on generated
+ * scenes, without opening a window.
+ * <p>
+ * Every scene is built the same way as by {@link PhysicsBenchmark}, with the spatial hash, and warmed up before anything is
+ * measured, after which the rounds themselves are warmed up for as long again. A measured round takes a snapshot into a direct
+ * buffer in native byte order, steps the engine once and restores the snapshot again, the way a rollback does, so the restore
+ * has every moved body to bring back. The report lists the time per snapshot and per restore, and the size of the snapshot.
+ * <p>
+ * Options, all of which may be left out:
+ * 
+ * <pre>
+ * -bodies 1000,10000   the amounts of bodies to generate
+ * -layouts sparse,dense,static   the scene layouts to generate, see {@link SceneLayout}
+ * -warmup 2   the seconds to warm up each scene, and then its rounds, for
+ * -rounds 2000   the amount of rounds to measure each scene for
+ * </pre>
+ * 
+ */
+public class SnapshotBenchmark {
+	
+	private int[] bodies = {1000, 10000};
+	private SceneLayout[] layouts = SceneLayout.values();
+	private float warmup = 2;
+	private int rounds = 2000;
+	
+	public static void main(String[] args) {
+		SnapshotBenchmark benchmark = new SnapshotBenchmark();
+		benchmark.parse(args);
+		benchmark.run();
+	}
+	
+	/**
+	 * 
+	 * Runs every combination of the configured scenes and prints the results.
+	 * 
+	 */
+	public void run() {
+		PhysicsBenchmark scenes = new PhysicsBenchmark();
+		
+		System.out.println(String.format("%-8s %8s %8s %12s %11s %10s",
+				"layout", "bodies", "contacts", "ms/snapshot", "ms/restore", "bytes"));
+		
+		for(int count : bodies) {
+			for(SceneLayout layout : layouts) {
+				PhysicsEngine pe = scenes.createEngine(layout, count, "hash");
+				
+				//Let the scene settle into its contacts before sizing the buffer
+				long end = System.nanoTime() + (long)(warmup * 1e9);
+				while(System.nanoTime() < end)
+					pe.step();
+				
+				//The rounds are warmed up for as long again, so they are compiled before they are measured
+				ByteBuffer buffer = ByteBuffer.allocateDirect(pe.getSnapshotSize() * 2).order(ByteOrder.nativeOrder());
+				end = System.nanoTime() + (long)(warmup * 1e9);
+				while(System.nanoTime() < end)
+					round(pe, buffer, 10);
+				
+				long[] times = round(pe, buffer, rounds);
+				System.out.println(String.format("%-8s %8d %8d %12.3f %11.3f %10d",
+						layout.name().toLowerCase(), count, pe.getContactManager().size(),
+						times[0] / 1e6 / rounds, times[1] / 1e6 / rounds, pe.getSnapshotSize()));
+			}
+		}
+	}
+	
+	//Runs rounds of snapshot, step and restore, returning the total time spent taking and restoring the snapshots
+	private long[] round(PhysicsEngine pe, ByteBuffer buffer, int count) {
+		long[] times = new long[2];
+		for(int i = 0; i < count; i++) {
+			buffer.clear();
+			long start = System.nanoTime();
+			pe.snapshot(buffer);
+			times[0] += System.nanoTime() - start;
+			
+			pe.step();
+			
+			buffer.flip();
+			start = System.nanoTime();
+			pe.restore(buffer);
+			times[1] += System.nanoTime() - start;
+		}
+		return times;
+	}
+	
+	private void parse(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "-bodies": {
+				String[] s = value(args, ++i).split(",");
+				bodies = new int[s.length];
+				for(int j = 0; j < s.length; j++)
+					bodies[j] = Integer.parseInt(s[j].trim());
+				break;
+			}
+			case "-layouts": {
+				List<SceneLayout> l = new ArrayList<SceneLayout>();
+				for(String s : value(args, ++i).split(","))
+					l.add(SceneLayout.parse(s));
+				layouts = l.toArray(new SceneLayout[l.size()]);
+				break;
+			}
+			case "-warmup":
+				warmup = Float.parseFloat(value(args, ++i));
+				break;
+			case "-rounds":
+				rounds = Integer.parseInt(value(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+	
+	private static String value(String[] args, int i) {
+		if(i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
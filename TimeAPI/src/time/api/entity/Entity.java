@@ -74,6 +74,18 @@ public class Entity {
 			renderer.draw();
 	}
 	
+	/**
+	 * 
+	 * Causes this entity to draw in between its previous and current position. If there is no renderer specified nothing
+	 * will happen.
+	 * 
+	 * @param alpha - how far along the physics step to draw, between 0 and 1
+	 */
+	public void draw(float alpha) {
+		if(renderer != null)
+			renderer.draw(alpha);
+	}
+	
 	/**
 	 * 
 	 * Sets the renderer of this entity.
@@ -65,6 +65,22 @@ public class EntityManager {
 		}
 	}
 	
+	/**
+	 * 
+	 * Draws all entities in this entity manager in between their previous and current positions.
+	 * 
+	 * @param alpha - how far along the physics step to draw, between 0 and 1
+	 */
+	public void draw(float alpha) {
+		for(Entity e : entities.values()) {
+			e.draw(alpha);
+		}
+		
+		for(Group g : groups.values()) {
+			g.draw(alpha);
+		}
+	}
+	
 	/**
 	 * 
 	 * Adds an entity to this entity manager.
@@ -211,6 +227,19 @@ public class EntityManager {
 			}
 		}
 		
+		/**
+		 * 
+		 * Draws all entities contained in this group in between their previous and current positions.
+		 * 
+		 * @param alpha - how far along the physics step to draw, between 0 and 1
+		 */
+		void draw(float alpha) {
+			if(visible) {
+				for(Entity e : entities)
+					e.draw(alpha);
+			}
+		}
+		
 		/**
 		 * 
 		 * Currently not used.
@@ -82,6 +82,19 @@ public class Renderer {
 		mesh.draw();
 	}
 	
+	/**
+	 * 
+	 * Draws with the specified mesh and texture, with the transform placed between its previous and current position.
+	 * 
+	 * @param alpha - how far along the physics step to draw, between 0 and 1
+	 */
+	public void draw(float alpha) {
+		program.bind();
+		program.sendMatrix("m_transform", transform.getMatrix(alpha));
+		texture.bind();
+		mesh.draw();
+	}
+	
 	/**
 	 * 
 	 * Sets the mesh of this renderer.
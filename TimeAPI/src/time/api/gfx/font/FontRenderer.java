@@ -148,6 +148,12 @@ public class FontRenderer extends Renderer {
 		super.draw();
 	}
 	
+	@Override
+	public void draw(float alpha) {
+		prepareShader();
+		super.draw(alpha);
+	}
+	
 	/**
 	 * 
 	 * Sets the size of this font.
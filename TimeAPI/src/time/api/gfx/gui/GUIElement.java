@@ -193,6 +193,17 @@ public abstract class GUIElement extends Entity {
 			drawEvent.fire();
 	}
 	
+	/**
+	 * 
+	 * Draws this entity. GUI elements are not moved by physics, so this is the same as {@link #draw()}.
+	 * 
+	 * @param alpha - ignored
+	 */
+	@Override
+	public final void draw(float alpha) {
+		draw();
+	}
+	
 	/**
 	 * 
 	 * Called when this GUI element is drawn.
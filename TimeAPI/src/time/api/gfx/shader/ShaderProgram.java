@@ -14,6 +14,7 @@ import org.lwjgl.opengl.GL31;
 
 import time.api.gfx.Vertex;
 import time.api.gfx.shader.StructDefiner.GLSLType;
+import time.api.math.Matrix3x2f;
 import time.api.math.Matrix4f;
 import time.api.math.Vector2f;
 import time.api.math.Vector3f;
@@ -27,6 +28,9 @@ public abstract class ShaderProgram {
 	
 	protected static int currentProgram;
 	
+	//Matrices are copied here before being sent, uniforms are only ever sent from the thread owning the context
+	private static final FloatBuffer matrixBuffer = Util.createFloatBuffer(16);
+	
 	private int id;
 	
 	protected HashMap<String, Integer> ul;
@@ -235,7 +239,21 @@ public abstract class ShaderProgram {
 	 */
 	public ShaderProgram sendMatrix(String target, Matrix4f matrix) {
 		bind();
-		glUniformMatrix4fv(ul.get(target), false, Util.toFloatBuffer(matrix));
+		glUniformMatrix4fv(ul.get(target), false, matrix.get(matrixBuffer));
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sends the specified 2D affine matrix to a mat4 uniform in the shader program, expanding it on the way.
+	 * 
+	 * @param target - the name of the uniform (must be registered)
+	 * @param matrix - the matrix to send
+	 * @return this shader program instance
+	 */
+	public ShaderProgram sendMatrix(String target, Matrix3x2f matrix) {
+		bind();
+		glUniformMatrix4fv(ul.get(target), false, matrix.get4x4(matrixBuffer));
 		return this;
 	}
 	
@@ -12,6 +12,7 @@ import java.util.Scanner;
 import time.api.debug.Debug;
 import time.api.entity.EntityManager;
 import time.api.physics.PhysicsEngine;
+import time.api.physics.PhysicsThread;
 import time.api.util.Loader;
 
 public class Level {
@@ -24,6 +25,9 @@ public class Level {
 	
 	protected PhysicsEngine pe;
 	
+	//Runs the physics engine off the main thread, if enabled
+	protected PhysicsThread physicsThread;
+	
 	public Level(String path) {
 		loadLevel(path);
 	}
@@ -126,12 +130,41 @@ public class Level {
 	}
 	
 	public void update(float delta) {
-		pe.update(delta);
+		if(physicsThread != null)
+			physicsThread.sync();
+		else
+			pe.update(delta);
 		assetManager.update(delta);
 	}
 	
 	public void draw() {
-		assetManager.draw();
+		assetManager.draw(physicsThread != null ? physicsThread.getAlpha() : pe.getAlpha());
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not the physics engine of this level runs on its own thread. While it does, bodies must be added, removed
+	 * and pushed through {@link #getPhysicsThread()}.
+	 * 
+	 * @param threaded - true to run the physics engine on its own thread
+	 */
+	public void setPhysicsThreaded(boolean threaded) {
+		if(threaded && physicsThread == null) {
+			physicsThread = new PhysicsThread(pe).start();
+		} else if(!threaded && physicsThread != null) {
+			physicsThread.stop();
+			physicsThread = null;
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns the thread running the physics engine of this level.
+	 * 
+	 * @return the physics thread, or null if the engine runs on the main thread
+	 */
+	public PhysicsThread getPhysicsThread() {
+		return physicsThread;
 	}
 	
 	protected ScriptEnvironment getScriptEnvironment() {
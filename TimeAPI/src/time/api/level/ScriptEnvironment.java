@@ -4,6 +4,7 @@ import time.api.debug.Debug;
 import time.api.gfx.QuadRenderer;
 import time.api.gfx.texture.Texture;
 import time.api.physics.Body;
+import time.api.physics.TileMap;
 
 public class ScriptEnvironment {
 	
@@ -89,6 +90,25 @@ public class ScriptEnvironment {
 				System.err.println("Cannot define gravity for an asset");
 			break;
 		
+		//Define tile map, as width|height|tile size|x|y
+		case "tilemap":
+			if(TYPE == TYPE_LEVEL)
+				level.pe.setTileMap(new TileMap(Integer.parseInt(p[0]), Integer.parseInt(p[1]), Float.parseFloat(p[2]),
+						Float.parseFloat(p[3]), Float.parseFloat(p[4])));
+			else if(TYPE == TYPE_ASSET)
+				System.err.println("Cannot define tilemap for an asset");
+			break;
+		
+		//Define a row of tiles, as row|cells where # is solid
+		case "tiles":
+			if(TYPE == TYPE_ASSET)
+				System.err.println("Cannot define tiles for an asset");
+			else if(level.pe.getTileMap() == null)
+				System.err.println("Cannot define tiles before the tilemap");
+			else
+				level.pe.getTileMap().setRow(Integer.parseInt(p[0]), p[1]);
+			break;
+		
 		/*
 		 * 
 		 * Definers for assets only
@@ -0,0 +1,204 @@
+package time.api.math;
+
+/**
+ * 
+ * Faster versions of the math the engine does for every sprite and body, each with a stated error bound.
+ * <p>
+ * The table functions can always be called directly. The engine itself only uses the approximations once they are enabled with
+ * {@link #setEnabled(boolean)}, otherwise {@link Transform}, {@link Matrix4f}, {@link Matrix3x2f}, {@link TransformBatch} and the
+ * physics get the exact values from {@link Math}, as they always have. The clamp functions are exact and used either way.
+ * <p>
+ * Only the sine and cosine are approximated by the engine, since they are what every sprite and rotating body pays for.
+ * 
+ */
+
+public class FastMath {
+	
+	//Entries in the sine table for a full turn, a power of two so angles wrap with a mask
+	private static final int SIZE = 4096;
+	private static final int MASK = SIZE - 1;
+	
+	//Table entries per degree
+	private static final double SCALE = SIZE / 360.0;
+	
+	//One extra entry, so interpolating the last one needs no wrap
+	private static final float[] SIN = new float[SIZE + 1];
+	
+	static {
+		for(int i = 0; i <= SIZE; i++)
+			SIN[i] = (float)Math.sin(i * 2 * Math.PI / SIZE);
+	}
+	
+	/**
+	 * 
+	 * The largest absolute error of {@link #sin(float)} and {@link #cos(float)}. The table is interpolated linearly between
+	 * entries 360 / 4096 degrees apart, which is off by at most (2 * pi / 4096)^2 / 8, about 2.9e-7, on top of the rounding of
+	 * floats.
+	 * 
+	 */
+	public static final float TRIG_ERROR = 1e-6f;
+	
+	/**
+	 * 
+	 * The largest relative error of {@link #invSqrt(float)}, after its two Newton-Raphson steps.
+	 * 
+	 */
+	public static final float INV_SQRT_ERROR = 5e-6f;
+	
+	private static boolean enabled = false;
+	
+	private FastMath() {}
+	
+	/**
+	 * 
+	 * Enables / disables the approximations in the engine. When disabled, the engine computes every value exactly as before.
+	 * <p>
+	 * Should be called before the game and the physics are started, since the physics thread is not told about the change.
+	 * 
+	 * @param enabled - true to use the approximations
+	 */
+	public static void setEnabled(boolean enabled) {
+		FastMath.enabled = enabled;
+	}
+	
+	/**
+	 * 
+	 * Checks whether the engine uses the approximations.
+	 * 
+	 * @return true if the approximations are used
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * 
+	 * Returns the sine of an angle from the table, off by at most {@link #TRIG_ERROR}. The angle may be any value within
+	 * +-1e9 degrees, it is wrapped in double precision so large angles are as accurate as small ones.
+	 * 
+	 * @param degrees - the angle, in degrees
+	 * @return the sine of the angle
+	 */
+	public static float sin(float degrees) {
+		return lookup(degrees * SCALE);
+	}
+	
+	/**
+	 * 
+	 * Returns the cosine of an angle from the table, off by at most {@link #TRIG_ERROR}. The angle may be any value within
+	 * +-1e9 degrees.
+	 * 
+	 * @param degrees - the angle, in degrees
+	 * @return the cosine of the angle
+	 */
+	public static float cos(float degrees) {
+		return lookup(degrees * SCALE + SIZE / 4);
+	}
+	
+	//Interpolates the table at a position measured in entries
+	private static float lookup(double t) {
+		long l = (long)t;
+		if(t < l)
+			l--;
+		float f = (float)(t - l);
+		int i = (int)l & MASK;
+		return SIN[i] + (SIN[i + 1] - SIN[i]) * f;
+	}
+	
+	/**
+	 * 
+	 * Returns the sine of an angle, from the table if the approximations are enabled, otherwise exactly.
+	 * 
+	 * @param degrees - the angle, in degrees
+	 * @return the sine of the angle
+	 */
+	public static float sinDegrees(float degrees) {
+		if(enabled)
+			return sin(degrees);
+		return (float)Math.sin((float)Math.toRadians(degrees));
+	}
+	
+	/**
+	 * 
+	 * Returns the cosine of an angle, from the table if the approximations are enabled, otherwise exactly.
+	 * 
+	 * @param degrees - the angle, in degrees
+	 * @return the cosine of the angle
+	 */
+	public static float cosDegrees(float degrees) {
+		if(enabled)
+			return cos(degrees);
+		return (float)Math.cos((float)Math.toRadians(degrees));
+	}
+	
+	/**
+	 * 
+	 * Returns an approximation of 1 / sqrt(x), off by a relative error of at most {@link #INV_SQRT_ERROR}. The estimate is read
+	 * from the bits of the float and refined by two Newton-Raphson steps. The value must be positive and normal, zero gives a
+	 * large finite value rather than infinity.
+	 * <p>
+	 * Where the processor has a square root instruction, which the JIT uses for {@link Math#sqrt(double)}, 1 / Math.sqrt(x) is
+	 * as fast or faster, so the engine does not use this even when the approximations are enabled.
+	 * 
+	 * @param x - the value, greater than zero
+	 * @return the inverse square root of the value
+	 */
+	public static float invSqrt(float x) {
+		float half = x * 0.5f;
+		float y = Float.intBitsToFloat(0x5f3759df - (Float.floatToRawIntBits(x) >> 1));
+		y *= 1.5f - half * y * y;
+		y *= 1.5f - half * y * y;
+		return y;
+	}
+	
+	/**
+	 * 
+	 * Clamps a value to a range. This is exact, but unlike {@link Math#min(float, float)} and {@link Math#max(float, float)} it
+	 * does not check for NaN or tell -0 from 0, which the engine never relies on.
+	 * 
+	 * @param value - the value to clamp
+	 * @param min - the lower bound
+	 * @param max - the upper bound, not less than the lower bound
+	 * @return the value, or the nearest bound if it is outside the range
+	 */
+	public static float clamp(float value, float min, float max) {
+		return value < min ? min : value > max ? max : value;
+	}
+	
+	/**
+	 * 
+	 * Clamps a value to a range.
+	 * 
+	 * @param value - the value to clamp
+	 * @param min - the lower bound
+	 * @param max - the upper bound, not less than the lower bound
+	 * @return the value, or the nearest bound if it is outside the range
+	 */
+	public static int clamp(int value, int min, int max) {
+		return value < min ? min : value > max ? max : value;
+	}
+	
+	/**
+	 * 
+	 * Returns the lower of two values. Exact, without the NaN and -0 checks of {@link Math#min(float, float)}.
+	 * 
+	 * @param a - the first value
+	 * @param b - the second value
+	 * @return the lower value
+	 */
+	public static float min(float a, float b) {
+		return a < b ? a : b;
+	}
+	
+	/**
+	 * 
+	 * Returns the higher of two values. Exact, without the NaN and -0 checks of {@link Math#max(float, float)}.
+	 * 
+	 * @param a - the first value
+	 * @param b - the second value
+	 * @return the higher value
+	 */
+	public static float max(float a, float b) {
+		return a > b ? a : b;
+	}
+}
@@ -0,0 +1,223 @@
+package time.api.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 
+ * A 2D affine transformation, stored as three columns of two values: the x-axis, the y-axis and the translation. This is all a
+ * sprite needs, in six floats instead of sixteen, and it can be uploaded as a GLSL mat3x2 or expanded into a 4x4 matrix.
+ * <p>
+ * The fields are named after their column and row, so m20 is the translation on the x-axis. None of the operations allocate.
+ * 
+ */
+
+public class Matrix3x2f {
+	
+	public float m00, m01;
+	public float m10, m11;
+	public float m20, m21;
+	
+	/**
+	 * 
+	 * Constructs a new identity matrix.
+	 * 
+	 */
+	public Matrix3x2f() {
+		loadIdentity();
+	}
+	
+	/**
+	 * 
+	 * Loads the identity matrix.
+	 * 
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f loadIdentity() {
+		return set(1, 0, 0, 1, 0, 0);
+	}
+	
+	/**
+	 * 
+	 * Sets every value of this matrix, column by column.
+	 * 
+	 * @param m00 - the x component of the x-axis
+	 * @param m01 - the y component of the x-axis
+	 * @param m10 - the x component of the y-axis
+	 * @param m11 - the y component of the y-axis
+	 * @param m20 - the translation on the x-axis
+	 * @param m21 - the translation on the y-axis
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f set(float m00, float m01, float m10, float m11, float m20, float m21) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m20 = m20;
+		this.m21 = m21;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Copies the values of another matrix into this one.
+	 * 
+	 * @param src - the matrix to copy
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f set(Matrix3x2f src) {
+		return set(src.m00, src.m01, src.m10, src.m11, src.m20, src.m21);
+	}
+	
+	/**
+	 * 
+	 * Sets this matrix to a translation, rotation and scale, applied in the reverse order.
+	 * 
+	 * @param x - the translation on the x-axis
+	 * @param y - the translation on the y-axis
+	 * @param rotation - the rotation, in degrees
+	 * @param scaleX - the scale on the x-axis
+	 * @param scaleY - the scale on the y-axis
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f setTRS(float x, float y, float rotation, float scaleX, float scaleY) {
+		float sin = FastMath.sinDegrees(rotation);
+		float cos = FastMath.cosDegrees(rotation);
+		
+		return set(cos * scaleX, sin * scaleX, -sin * scaleY, cos * scaleY, x, y);
+	}
+	
+	/**
+	 * 
+	 * Multiplies this matrix with the specified right one, so the right matrix is applied first.
+	 * 
+	 * @param right - the right matrix to multiply with
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f multiply(Matrix3x2f right) {
+		return mul(this, right, this);
+	}
+	
+	/**
+	 * 
+	 * Multiplies two matrices and stores the result in a third one. The destination may be either of the multiplied matrices.
+	 * 
+	 * @param left - the left matrix
+	 * @param right - the right matrix, which is applied first
+	 * @param dest - the matrix to store the result in
+	 * @return the destination matrix
+	 */
+	public static Matrix3x2f mul(Matrix3x2f left, Matrix3x2f right, Matrix3x2f dest) {
+		float a00 = left.m00, a01 = left.m01, a10 = left.m10, a11 = left.m11;
+		float b00 = right.m00, b01 = right.m01, b10 = right.m10, b11 = right.m11, b20 = right.m20, b21 = right.m21;
+		
+		return dest.set(a00 * b00 + a10 * b01, a01 * b00 + a11 * b01,
+				a00 * b10 + a10 * b11, a01 * b10 + a11 * b11,
+				a00 * b20 + a10 * b21 + left.m20, a01 * b20 + a11 * b21 + left.m21);
+	}
+	
+	/**
+	 * 
+	 * Translates this matrix, so the translation is applied before the transformations already in it.
+	 * 
+	 * @param x - the translation on the x-axis
+	 * @param y - the translation on the y-axis
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f translate(float x, float y) {
+		m20 += m00 * x + m10 * y;
+		m21 += m01 * x + m11 * y;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Rotates this matrix, so the rotation is applied before the transformations already in it.
+	 * 
+	 * @param angle - the angle specified in degrees
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f rotate(float angle) {
+		float sin = FastMath.sinDegrees(angle);
+		float cos = FastMath.cosDegrees(angle);
+		
+		float x0 = m00, y0 = m01;
+		m00 = x0 * cos + m10 * sin;
+		m01 = y0 * cos + m11 * sin;
+		m10 = m10 * cos - x0 * sin;
+		m11 = m11 * cos - y0 * sin;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Scales this matrix, so the scale is applied before the transformations already in it.
+	 * 
+	 * @param x - the scale on the x-axis
+	 * @param y - the scale on the y-axis
+	 * @return this matrix instance
+	 */
+	public Matrix3x2f scale(float x, float y) {
+		m00 *= x;
+		m01 *= x;
+		m10 *= y;
+		m11 *= y;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Transforms a point by this matrix and stores the result in another vector.
+	 * 
+	 * @param point - the point to transform
+	 * @param dest - the vector to store the result in, which may be the point
+	 * @return the destination vector
+	 */
+	public Vector2f transform(Vector2f point, Vector2f dest) {
+		float x = point.x, y = point.y;
+		return dest.set(m00 * x + m10 * y + m20, m01 * x + m11 * y + m21);
+	}
+	
+	/**
+	 * 
+	 * Writes this matrix into a buffer as a column-major mat3x2, starting at its position. The position of the buffer is left as
+	 * it is.
+	 * 
+	 * @param dest - the buffer to write to, with room for 6 floats
+	 * @return the buffer
+	 */
+	public FloatBuffer get(FloatBuffer dest) {
+		int p = dest.position();
+		dest.put(p, m00).put(p + 1, m01);
+		dest.put(p + 2, m10).put(p + 3, m11);
+		dest.put(p + 4, m20).put(p + 5, m21);
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Writes this matrix into a buffer as a column-major 4x4 matrix, starting at its position, for shaders that take a mat4.
+	 * The position of the buffer is left as it is.
+	 * 
+	 * @param dest - the buffer to write to, with room for 16 floats
+	 * @return the buffer
+	 */
+	public FloatBuffer get4x4(FloatBuffer dest) {
+		int p = dest.position();
+		dest.put(p, m00).put(p + 1, m01).put(p + 2, 0).put(p + 3, 0);
+		dest.put(p + 4, m10).put(p + 5, m11).put(p + 6, 0).put(p + 7, 0);
+		dest.put(p + 8, 0).put(p + 9, 0).put(p + 10, 1).put(p + 11, 0);
+		dest.put(p + 12, m20).put(p + 13, m21).put(p + 14, 0).put(p + 15, 1);
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Returns a representative string of this matrix.
+	 * 
+	 * @return a representative string of this matrix
+	 */
+	public String toString() {
+		return m00 + "\t" + m10 + "\t" + m20 + "\n" + m01 + "\t" + m11 + "\t" + m21 + "\n";
+	}
+}
@@ -1,5 +1,7 @@
 package time.api.math;
 
+import java.nio.FloatBuffer;
+
 /**
  * 
  * This is a class representation of a 4x4 matrix specified in column-major order.
@@ -48,24 +50,45 @@ public class Matrix4f {
 	
 	/**
 	 * 
-	 * Multiplies this matrix with the specified right one.
+	 * Multiplies this matrix with the specified right one, so the right matrix is applied first.
 	 * 
 	 * @param right - the right matrix to multiply with
 	 * @return this matrix instance
 	 */
 	public Matrix4f multiply(Matrix4f right) {
-		float[] result = new float[16];
+		return mul(this, right, this);
+	}
+	
+	/**
+	 * 
+	 * Multiplies two matrices and stores the result in a third one, without allocating. The destination may be either of the
+	 * multiplied matrices.
+	 * 
+	 * @param left - the left matrix
+	 * @param right - the right matrix, which is applied first
+	 * @param dest - the matrix to store the result in
+	 * @return the destination matrix
+	 */
+	public static Matrix4f mul(Matrix4f left, Matrix4f right, Matrix4f dest) {
+		float[] a = left.matrix, b = right.matrix;
 		
-		for(int i = 0; i < 4; i++) {
-			for(int j = 0; j < 4; j++) {
-				for(int k = 0; k < 4; k++) {
-					result[i*4+j] += matrix[k+i*4] * right.toFloatArray()[j+k*4];
-				}
-			}
+		float a00 = a[0], a01 = a[1], a02 = a[2], a03 = a[3];
+		float a10 = a[4], a11 = a[5], a12 = a[6], a13 = a[7];
+		float a20 = a[8], a21 = a[9], a22 = a[10], a23 = a[11];
+		float a30 = a[12], a31 = a[13], a32 = a[14], a33 = a[15];
+		
+		float[] d = dest.matrix;
+		
+		//Every column of the result is the left matrix applied to the same column of the right one
+		for(int c = 0; c < 16; c += 4) {
+			float b0 = b[c], b1 = b[c + 1], b2 = b[c + 2], b3 = b[c + 3];
+			d[c] = a00 * b0 + a10 * b1 + a20 * b2 + a30 * b3;
+			d[c + 1] = a01 * b0 + a11 * b1 + a21 * b2 + a31 * b3;
+			d[c + 2] = a02 * b0 + a12 * b1 + a22 * b2 + a32 * b3;
+			d[c + 3] = a03 * b0 + a13 * b1 + a23 * b2 + a33 * b3;
 		}
 		
-		matrix = result;
-		return this;
+		return dest;
 	}
 	
 	/**
@@ -76,7 +99,7 @@ public class Matrix4f {
 	 * @return this matrix instance
 	 */
 	public Matrix4f translate(Vector2f vec2) {
-		return translate(new Vector3f(vec2.getX(), vec2.getY(), 0));
+		return translate(vec2.x, vec2.y, 0);
 	}
 	
 	/**
@@ -87,9 +110,21 @@ public class Matrix4f {
 	 * @return this matrix instance
 	 */
 	public Matrix4f translate(Vector3f vec3) {
-		matrix[0 + 3 * 4] += vec3.getX();
-		matrix[1 + 3 * 4] += vec3.getY();
-		matrix[2 + 3 * 4] += vec3.getZ();
+		return translate(vec3.x, vec3.y, vec3.z);
+	}
+	
+	/**
+	 * 
+	 * Translates this matrix, so the translation is applied before the transformations already in it.
+	 * 
+	 * @param x - the translation on the x-axis
+	 * @param y - the translation on the y-axis
+	 * @param z - the translation on the z-axis
+	 * @return this matrix instance
+	 */
+	public Matrix4f translate(float x, float y, float z) {
+		for(int r = 0; r < 4; r++)
+			matrix[r + 3 * 4] += matrix[r + 0 * 4] * x + matrix[r + 1 * 4] * y + matrix[r + 2 * 4] * z;
 		
 		return this;
 	}
@@ -108,21 +143,22 @@ public class Matrix4f {
 	
 	/**
 	 * 
-	 * Rotates this matrix on the z-axis.
+	 * Rotates this matrix on the z-axis, so the rotation is applied before the transformations already in it.
 	 * 
 	 * @param angle - the angle specified in degrees
 	 * @return this matrix instance
 	 */
 	public Matrix4f rotate(float angle) {
 		
-		float r = (float)Math.toRadians(angle);
-		float sin = (float)Math.sin(r);
-		float cos = (float)Math.cos(r);
+		float sin = FastMath.sinDegrees(angle);
+		float cos = FastMath.cosDegrees(angle);
 		
-		matrix[0 + 0 * 4] = cos;
-		matrix[0 + 1 * 4] = -sin;
-		matrix[1 + 0 * 4] = sin;
-		matrix[1 + 1 * 4] = cos;
+		for(int i = 0; i < 4; i++) {
+			float c0 = matrix[i + 0 * 4];
+			float c1 = matrix[i + 1 * 4];
+			matrix[i + 0 * 4] = c0 * cos + c1 * sin;
+			matrix[i + 1 * 4] = c1 * cos - c0 * sin;
+		}
 		
 		return this;
 	}
@@ -135,9 +171,7 @@ public class Matrix4f {
 	 * @return this matrix instance
 	 */
 	public Matrix4f scale(Vector2f scale) {
-		matrix[0 + 0 * 4] *= scale.getX();
-		matrix[1 + 1 * 4] *= scale.getY();
-		return this;
+		return scale(scale.x, scale.y, 1);
 	}
 	
 	/**
@@ -148,12 +182,94 @@ public class Matrix4f {
 	 * @return this matrix instance
 	 */
 	public Matrix4f scale(Vector3f scale) {
-		matrix[0 + 0 * 4] *= scale.getX();
-		matrix[1 + 1 * 4] *= scale.getY();
-		matrix[2 + 2 * 4] *= scale.getZ();
+		return scale(scale.x, scale.y, scale.z);
+	}
+	
+	/**
+	 * 
+	 * Scales this matrix, so the scale is applied before the transformations already in it.
+	 * 
+	 * @param x - the scale on the x-axis
+	 * @param y - the scale on the y-axis
+	 * @param z - the scale on the z-axis
+	 * @return this matrix instance
+	 */
+	public Matrix4f scale(float x, float y, float z) {
+		for(int r = 0; r < 4; r++) {
+			matrix[r + 0 * 4] *= x;
+			matrix[r + 1 * 4] *= y;
+			matrix[r + 2 * 4] *= z;
+		}
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets this matrix to a 2D translation, rotation and scale, applied in the reverse order. This gives the same matrix as
+	 * translating, rotating and scaling the identity matrix, without the work of composing them.
+	 * 
+	 * @param x - the translation on the x-axis
+	 * @param y - the translation on the y-axis
+	 * @param rotation - the rotation on the z-axis, in degrees
+	 * @param scaleX - the scale on the x-axis
+	 * @param scaleY - the scale on the y-axis
+	 * @return this matrix instance
+	 */
+	public Matrix4f setTRS(float x, float y, float rotation, float scaleX, float scaleY) {
+		float sin = FastMath.sinDegrees(rotation);
+		float cos = FastMath.cosDegrees(rotation);
+		
+		matrix[0] = cos * scaleX;	matrix[4] = -sin * scaleY;	matrix[8] = 0;		matrix[12] = x;
+		matrix[1] = sin * scaleX;	matrix[5] = cos * scaleY;	matrix[9] = 0;		matrix[13] = y;
+		matrix[2] = 0;				matrix[6] = 0;				matrix[10] = 1;		matrix[14] = 0;
+		matrix[3] = 0;				matrix[7] = 0;				matrix[11] = 0;		matrix[15] = 1;
+		
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Copies the values of another matrix into this one.
+	 * 
+	 * @param src - the matrix to copy
+	 * @return this matrix instance
+	 */
+	public Matrix4f set(Matrix4f src) {
+		System.arraycopy(src.matrix, 0, matrix, 0, 16);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets this matrix to a 2D affine matrix, leaving the z-axis untouched by it.
+	 * 
+	 * @param src - the matrix to expand
+	 * @return this matrix instance
+	 */
+	public Matrix4f set(Matrix3x2f src) {
+		matrix[0] = src.m00;	matrix[4] = src.m10;	matrix[8] = 0;		matrix[12] = src.m20;
+		matrix[1] = src.m01;	matrix[5] = src.m11;	matrix[9] = 0;		matrix[13] = src.m21;
+		matrix[2] = 0;			matrix[6] = 0;			matrix[10] = 1;		matrix[14] = 0;
+		matrix[3] = 0;			matrix[7] = 0;			matrix[11] = 0;		matrix[15] = 1;
+		
 		return this;
 	}
 	
+	/**
+	 * 
+	 * Writes this matrix into a buffer in column-major order, starting at its position. The position of the buffer is left as
+	 * it is, so it can be handed to OpenGL right away.
+	 * 
+	 * @param dest - the buffer to write to, with room for 16 floats
+	 * @return the buffer
+	 */
+	public FloatBuffer get(FloatBuffer dest) {
+		int p = dest.position();
+		for(int i = 0; i < 16; i++)
+			dest.put(p + i, matrix[i]);
+		return dest;
+	}
+	
 	/**
 	 * 
 	 * Sets all values of this matrix to the specified array. The length of the array must be 4*4.
@@ -1,11 +1,45 @@
 package time.api.math;
 
+/**
+ * 
+ * The position, rotation and scale of something in the world, optionally relative to a parent transform.
+ * <p>
+ * The matrices of a transform are cached. Since the position, rotation and scale are public and the physics engine writes to
+ * them directly, a transform notices changes by comparing them with the values its local matrix was last built from, rather
+ * than relying on its setters. A world matrix is only rebuilt when its local matrix or the world matrix of its parent changed
+ * since it was last built, so a subtree that did not move costs a few comparisons per transform to draw. The 4x4 matrices are
+ * only made once they are first asked for, so transforms that are never drawn, such as those of bodies alone, do not carry them.
+ * 
+ */
+
 public class Transform {
 	
 	public Vector2f pos;
 	public float rotation;
 	public Vector2f scale;
 	
+	//The position at the start of the last physics step, if this transform belongs to a simulated body
+	private boolean interpolated;
+	private float prevX, prevY;
+	
+	private Transform parent;
+	
+	private final Matrix3x2f local, world;
+	
+	//Made on first use by getMatrix
+	private Matrix3x2f interpolatedWorld;
+	private Matrix4f matrix, interpolatedMatrix;
+	
+	//The values the local matrix was built from
+	private boolean built;
+	private float builtX, builtY, builtRotation, builtScaleX, builtScaleY;
+	
+	//Counts rebuilds of the world matrix, so children and the 4x4 matrix know when theirs are out of date
+	private int version;
+	private int parentVersion;
+	private int matrixVersion;
+	private boolean worldBuilt;
+	
 	/**
 	 * 
 	 * Constructs a new empty transform.
@@ -57,22 +91,191 @@ public class Transform {
 	 */
 	public Transform(Vector2f position, float rotation, Vector2f scale) {
 		this.pos = position;
+		this.rotation = rotation;
 		this.scale = scale;
+		
+		local = new Matrix3x2f();
+		world = new Matrix3x2f();
+		matrixVersion = -1;
 	}
 	
 	/**
 	 * 
-	 * Returns a composed matrix from this transform.
+	 * Returns a composed matrix from this transform, including the transforms of its parents. The matrix is cached and owned by
+	 * this transform, so it must not be changed.
 	 * 
 	 * @return a composed matrix from this transform
 	 */
 	public Matrix4f getMatrix() {
-		Matrix4f matrix = new Matrix4f();
-		matrix = Matrix4f.IDENTITY();
+		getWorldMatrix();
+		if(matrix == null)
+			matrix = new Matrix4f();
+		if(matrixVersion != version) {
+			matrix.set(world);
+			matrixVersion = version;
+		}
+		return matrix;
+	}
+	
+	/**
+	 * 
+	 * Returns the matrix of this transform alone, without its parents. The matrix is cached and owned by this transform, so it
+	 * must not be changed.
+	 * 
+	 * @return the local matrix of this transform
+	 */
+	public Matrix3x2f getLocalMatrix() {
+		buildLocal();
+		return local;
+	}
+	
+	/**
+	 * 
+	 * Returns the matrix of this transform combined with those of its parents, rebuilding it only if something along the way
+	 * changed. The matrix is cached and owned by this transform, so it must not be changed.
+	 * 
+	 * @return the world matrix of this transform
+	 */
+	public Matrix3x2f getWorldMatrix() {
+		boolean changed = buildLocal() || !worldBuilt;
 		
-		matrix.translate(pos).rotate(rotation).scale(scale);
+		if(parent != null) {
+			Matrix3x2f p = parent.getWorldMatrix();
+			if(changed || parentVersion != parent.version) {
+				Matrix3x2f.mul(p, local, world);
+				parentVersion = parent.version;
+				changed = true;
+			}
+		} else if(changed) {
+			world.set(local);
+		}
 		
-		return matrix;
+		if(changed) {
+			worldBuilt = true;
+			version++;
+		}
+		return world;
+	}
+	
+	/**
+	 * 
+	 * Returns the x coordinate of this transform in the world, after its parents have been applied.
+	 * 
+	 * @return the world x coordinate
+	 */
+	public float getWorldX() {
+		return getWorldMatrix().m20;
+	}
+	
+	/**
+	 * 
+	 * Returns the y coordinate of this transform in the world, after its parents have been applied.
+	 * 
+	 * @return the world y coordinate
+	 */
+	public float getWorldY() {
+		return getWorldMatrix().m21;
+	}
+	
+	/**
+	 * 
+	 * Attaches this transform to a parent, so it moves, rotates and scales along with it. The position, rotation and scale of
+	 * this transform become relative to the parent. Parents only affect drawing; the physics engine works on the position alone.
+	 * 
+	 * @param parent - the parent transform, or null to detach this transform
+	 * @return this transform instance
+	 */
+	public Transform setParent(Transform parent) {
+		for(Transform t = parent; t != null; t = t.parent) {
+			if(t == this)
+				throw new IllegalArgumentException("A transform cannot be its own ancestor");
+		}
+		
+		this.parent = parent;
+		worldBuilt = false;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the parent of this transform.
+	 * 
+	 * @return the parent transform, or null if this transform has none
+	 */
+	public Transform getParent() {
+		return parent;
+	}
+	
+	//Rebuilds the local matrix if any of the values changed since it was last built, returning true if it did
+	private boolean buildLocal() {
+		float x = pos.x, y = pos.y, sx = scale.x, sy = scale.y;
+		if(built && x == builtX && y == builtY && rotation == builtRotation && sx == builtScaleX && sy == builtScaleY)
+			return false;
+		
+		local.setTRS(x, y, rotation, sx, sy);
+		builtX = x;
+		builtY = y;
+		builtRotation = rotation;
+		builtScaleX = sx;
+		builtScaleY = sy;
+		built = true;
+		return true;
+	}
+	
+	/**
+	 * 
+	 * Returns a composed matrix from this transform, positioned between its previous and current position.
+	 * Transforms that are not moved by a physics engine are drawn at their current position.
+	 * 
+	 * The matrix is owned by this transform and overwritten by the next call, so it must not be changed or kept.
+	 * 
+	 * @param alpha - how far along the step to place the transform, between 0 and 1
+	 * @return a composed matrix from this transform
+	 */
+	public Matrix4f getMatrix(float alpha) {
+		if(!interpolated || alpha >= 1)
+			return getMatrix();
+		
+		float x = prevX + (pos.x - prevX) * alpha;
+		float y = prevY + (pos.y - prevY) * alpha;
+		
+		if(interpolatedMatrix == null)
+			interpolatedMatrix = new Matrix4f();
+		
+		if(parent == null)
+			return interpolatedMatrix.setTRS(x, y, rotation, scale.x, scale.y);
+		
+		Matrix3x2f p = parent.getWorldMatrix();
+		if(interpolatedWorld == null)
+			interpolatedWorld = new Matrix3x2f();
+		interpolatedWorld.setTRS(x, y, rotation, scale.x, scale.y);
+		return interpolatedMatrix.set(Matrix3x2f.mul(p, interpolatedWorld, interpolatedWorld));
+	}
+	
+	/**
+	 * 
+	 * Sets the position this transform had at the start of the last physics step.
+	 * 
+	 * @param x - the previous x coordinate
+	 * @param y - the previous y coordinate
+	 * @return this transform instance
+	 */
+	public Transform setPrevious(float x, float y) {
+		prevX = x;
+		prevY = y;
+		interpolated = true;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Forgets the previous position, so this transform is drawn at its current position.
+	 * 
+	 * @return this transform instance
+	 */
+	public Transform clearPrevious() {
+		interpolated = false;
+		return this;
 	}
 	
 	/**
@@ -157,8 +360,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform setScale(Vector2f scale) {
-		this.scale.setX(scale.getX());
-		this.scale.setY(scale.getY());
+		this.scale.set(scale);
 		return this;
 	}
 	
@@ -202,7 +404,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform addScaleX(float scale) {
-		this.scale.setX(this.scale.getX() + scale);
+		this.scale.x += scale;
 		return this;
 	}
 	
@@ -214,7 +416,7 @@ public class Transform {
 	 * @return
 	 */
 	public Transform addScaleY(float scale) {
-		this.scale.setY(this.scale.getY() + scale);
+		this.scale.y += scale;
 		return this;
 	}
 	
@@ -227,7 +429,8 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform addScale(float x, float y) {
-		return addScale(new Vector2f(x, y));
+		this.scale.add(x, y);
+		return this;
 	}
 	
 	/**
@@ -262,7 +465,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform scaleX(float scalar) {
-		this.scale.setX(this.scale.getX() * scalar);
+		this.scale.x *= scalar;
 		return this;
 	}
 	
@@ -274,7 +477,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform scaleY(float scalar) {
-		this.scale.setY(this.scale.getY() * scalar);
+		this.scale.y *= scalar;
 		return this;
 	}
 	
@@ -380,7 +583,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform translateX(float x) {
-		pos.setX(pos.getX() + x);
+		pos.x += x;
 		return this;
 	}
 	
@@ -392,7 +595,7 @@ public class Transform {
 	 * @return this transform instance
 	 */
 	public Transform translateY(float y) {
-		pos.setY(pos.getY() + y);
+		pos.y += y;
 		return this;
 	}
 	
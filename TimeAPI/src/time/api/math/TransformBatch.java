@@ -0,0 +1,384 @@
+package time.api.math;
+
+import java.nio.FloatBuffer;
+
+import time.api.util.Util;
+
+/**
+ * 
+ * Many transforms kept as arrays of positions, rotations and scales, whose matrices are all computed in one pass into a single
+ * direct buffer. The buffer can be uploaded as it is, as an instance or vertex stream, which suits large amounts of sprites
+ * better than building and sending one matrix per {@link Transform}.
+ * <p>
+ * Each instance takes up {@link #AFFINE} floats in the buffer, laid out as a column-major mat3x2, or {@link #MATRIX} floats as
+ * a column-major mat4. The sine and cosine of every instance are kept along with the rotation they were computed from, since
+ * they cost far more than the rest of the matrix, and only recomputed for instances that turned since the last update.
+ * <p>
+ * There are two kernels computing the same values. The scalar one writes every value straight into the buffer. The blocked one
+ * works through the instances a block at a time, computing the matrices of a block in a plain loop over the arrays, which the
+ * JIT compiler can vectorize, and then copies the block into the buffer in bulk. The blocked kernel is used unless changed.
+ * 
+ */
+
+public class TransformBatch {
+	
+	public static final int AFFINE = 6;
+	public static final int MATRIX = 16;
+	
+	//Instances computed per block by the blocked kernel
+	private static final int BLOCK = 256;
+	
+	private final int stride;
+	
+	private float[] x, y, rotation, scaleX, scaleY;
+	private int size;
+	
+	//The sine and cosine of each instance, and the rotation they belong to
+	private float[] sin, cos, turned;
+	
+	private FloatBuffer buffer;
+	
+	private boolean blocked = true;
+	
+	//Scratch space of the blocked kernel
+	private final float[] block;
+	
+	/**
+	 * 
+	 * Constructs a new, empty batch writing mat3x2 matrices.
+	 * 
+	 */
+	public TransformBatch() {
+		this(64, AFFINE);
+	}
+	
+	/**
+	 * 
+	 * Constructs a new, empty batch.
+	 * 
+	 * @param capacity - the amount of instances to make room for, the batch grows beyond it when needed
+	 * @param stride - the floats written per instance, either {@link #AFFINE} or {@link #MATRIX}
+	 */
+	public TransformBatch(int capacity, int stride) {
+		if(stride != AFFINE && stride != MATRIX)
+			throw new IllegalArgumentException("Stride must be " + AFFINE + " or " + MATRIX + ": " + stride);
+		if(capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		
+		this.stride = stride;
+		
+		x = new float[capacity];
+		y = new float[capacity];
+		rotation = new float[capacity];
+		scaleX = new float[capacity];
+		scaleY = new float[capacity];
+		sin = new float[capacity];
+		cos = new float[capacity];
+		turned = new float[capacity];
+		buffer = Util.createFloatBuffer(capacity * stride);
+		
+		block = new float[BLOCK * stride];
+	}
+	
+	/**
+	 * 
+	 * Adds an instance to the batch.
+	 * 
+	 * @param x - the x coordinate
+	 * @param y - the y coordinate
+	 * @param rotation - the rotation, in degrees
+	 * @param scaleX - the scale on the x-axis
+	 * @param scaleY - the scale on the y-axis
+	 * @return the index of the new instance
+	 */
+	public int add(float x, float y, float rotation, float scaleX, float scaleY) {
+		if(size == this.x.length)
+			grow(size * 2);
+		
+		set(size, x, y, rotation, scaleX, scaleY);
+		return size++;
+	}
+	
+	/**
+	 * 
+	 * Adds an instance with the position, rotation and scale of a transform. The transform is copied, so later changes to it
+	 * are not picked up. Parents of the transform are ignored.
+	 * 
+	 * @param t - the transform to copy
+	 * @return the index of the new instance
+	 */
+	public int add(Transform t) {
+		return add(t.pos.x, t.pos.y, t.rotation, t.scale.x, t.scale.y);
+	}
+	
+	/**
+	 * 
+	 * Sets the position, rotation and scale of an instance.
+	 * 
+	 * @param i - the index of the instance
+	 * @param x - the x coordinate
+	 * @param y - the y coordinate
+	 * @param rotation - the rotation, in degrees
+	 * @param scaleX - the scale on the x-axis
+	 * @param scaleY - the scale on the y-axis
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch set(int i, float x, float y, float rotation, float scaleX, float scaleY) {
+		if(i == size)
+			turned[i] = Float.NaN;
+		
+		this.x[i] = x;
+		this.y[i] = y;
+		this.rotation[i] = rotation;
+		this.scaleX[i] = scaleX;
+		this.scaleY[i] = scaleY;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets an instance to the position, rotation and scale of a transform.
+	 * 
+	 * @param i - the index of the instance
+	 * @param t - the transform to copy
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch set(int i, Transform t) {
+		return set(i, t.pos.x, t.pos.y, t.rotation, t.scale.x, t.scale.y);
+	}
+	
+	/**
+	 * 
+	 * Sets the position of an instance.
+	 * 
+	 * @param i - the index of the instance
+	 * @param x - the x coordinate
+	 * @param y - the y coordinate
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch setPosition(int i, float x, float y) {
+		this.x[i] = x;
+		this.y[i] = y;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the rotation of an instance.
+	 * 
+	 * @param i - the index of the instance
+	 * @param rotation - the rotation, in degrees
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch setRotation(int i, float rotation) {
+		this.rotation[i] = rotation;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the scale of an instance.
+	 * 
+	 * @param i - the index of the instance
+	 * @param scaleX - the scale on the x-axis
+	 * @param scaleY - the scale on the y-axis
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch setScale(int i, float scaleX, float scaleY) {
+		this.scaleX[i] = scaleX;
+		this.scaleY[i] = scaleY;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Removes an instance by moving the last instance into its place, so the last instance takes on the index of the removed one.
+	 * 
+	 * @param i - the index of the instance to remove
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch remove(int i) {
+		if(i < 0 || i >= size)
+			throw new IllegalArgumentException("No instance at index " + i + " in a batch of " + size);
+		
+		size--;
+		set(i, x[size], y[size], rotation[size], scaleX[size], scaleY[size]);
+		sin[i] = sin[size];
+		cos[i] = cos[size];
+		turned[i] = turned[size];
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Removes every instance.
+	 * 
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch clear() {
+		size = 0;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the amount of instances in the batch.
+	 * 
+	 * @return the amount of instances
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * 
+	 * Returns the amount of floats written per instance.
+	 * 
+	 * @return either {@link #AFFINE} or {@link #MATRIX}
+	 */
+	public int getStride() {
+		return stride;
+	}
+	
+	/**
+	 * 
+	 * Sets whether the blocked or the scalar kernel computes the matrices. Both give the same values.
+	 * 
+	 * @param blocked - true to use the blocked kernel
+	 * @return this TransformBatch instance
+	 */
+	public TransformBatch setBlocked(boolean blocked) {
+		this.blocked = blocked;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Checks whether the blocked kernel computes the matrices.
+	 * 
+	 * @return true if the blocked kernel is used
+	 */
+	public boolean isBlocked() {
+		return blocked;
+	}
+	
+	/**
+	 * 
+	 * Computes the matrix of every instance into the buffer. The buffer is left flipped, holding {@link #size()} times
+	 * {@link #getStride()} floats, ready to be uploaded.
+	 * 
+	 * @return the buffer holding the matrices
+	 */
+	public FloatBuffer update() {
+		buffer.clear();
+		if(blocked)
+			updateBlocked();
+		else
+			updateScalar();
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * 
+	 * Returns the buffer the matrices are computed into. The buffer is replaced when the batch grows, so it should be fetched
+	 * again after adding instances.
+	 * 
+	 * @return the buffer holding the matrices
+	 */
+	public FloatBuffer getBuffer() {
+		return buffer;
+	}
+	
+	private void updateScalar() {
+		for(int i = 0; i < size; i++) {
+			if(rotation[i] != turned[i])
+				turn(i);
+			float s = sin[i];
+			float c = cos[i];
+			
+			buffer.put(c * scaleX[i]).put(s * scaleX[i]);
+			if(stride == MATRIX)
+				buffer.put(0).put(0);
+			buffer.put(-s * scaleY[i]).put(c * scaleY[i]);
+			if(stride == MATRIX)
+				buffer.put(0).put(0).put(0).put(0).put(1).put(0);
+			buffer.put(x[i]).put(y[i]);
+			if(stride == MATRIX)
+				buffer.put(0).put(1);
+		}
+	}
+	
+	private void updateBlocked() {
+		//The constant parts of a mat4 never change, so they are written once per call
+		if(stride == MATRIX) {
+			for(int j = 0; j < BLOCK; j++) {
+				int o = j * MATRIX;
+				block[o + 2] = block[o + 3] = 0;
+				block[o + 6] = block[o + 7] = 0;
+				block[o + 8] = block[o + 9] = block[o + 11] = 0;
+				block[o + 10] = 1;
+				block[o + 14] = 0;
+				block[o + 15] = 1;
+			}
+		}
+		
+		for(int start = 0; start < size; start += BLOCK) {
+			int n = Math.min(BLOCK, size - start);
+			
+			for(int i = start; i < start + n; i++) {
+				if(rotation[i] != turned[i])
+					turn(i);
+			}
+			
+			if(stride == AFFINE) {
+				for(int j = 0; j < n; j++) {
+					int i = start + j, o = j * AFFINE;
+					block[o] = cos[i] * scaleX[i];
+					block[o + 1] = sin[i] * scaleX[i];
+					block[o + 2] = -sin[i] * scaleY[i];
+					block[o + 3] = cos[i] * scaleY[i];
+					block[o + 4] = x[i];
+					block[o + 5] = y[i];
+				}
+			} else {
+				for(int j = 0; j < n; j++) {
+					int i = start + j, o = j * MATRIX;
+					block[o] = cos[i] * scaleX[i];
+					block[o + 1] = sin[i] * scaleX[i];
+					block[o + 4] = -sin[i] * scaleY[i];
+					block[o + 5] = cos[i] * scaleY[i];
+					block[o + 12] = x[i];
+					block[o + 13] = y[i];
+				}
+			}
+			
+			buffer.put(block, 0, n * stride);
+		}
+	}
+	
+	//Recomputes the sine and cosine of an instance
+	private void turn(int i) {
+		sin[i] = FastMath.sinDegrees(rotation[i]);
+		cos[i] = FastMath.cosDegrees(rotation[i]);
+		turned[i] = rotation[i];
+	}
+	
+	private void grow(int capacity) {
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		rotation = grow(rotation, capacity);
+		scaleX = grow(scaleX, capacity);
+		scaleY = grow(scaleY, capacity);
+		sin = grow(sin, capacity);
+		cos = grow(cos, capacity);
+		turned = grow(turned, capacity);
+		buffer = Util.createFloatBuffer(capacity * stride);
+	}
+	
+	private static float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		System.arraycopy(a, 0, r, 0, a.length);
+		return r;
+	}
+}
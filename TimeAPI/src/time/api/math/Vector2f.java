@@ -1,7 +1,19 @@
 package time.api.math;
 
+/**
+ * 
+ * A two dimensional vector with its components stored in plain fields. Every operation works in place on this vector or on a
+ * destination vector passed in, so none of them allocate.
+ * <p>
+ * It is also a {@link VectorXf} of two components, whose methods it overrides to work on the fields. Of those, only
+ * {@link #getData()} allocates, as it returns a copy of the components.
+ * 
+ */
+
 public class Vector2f extends VectorXf {
 	
+	public float x, y;
+	
 	/**
 	 * 
 	 * Constructs a new Vector2f with components(0,0).
@@ -19,7 +31,18 @@ public class Vector2f extends VectorXf {
 	 * @param y - the initial y component of this vector
 	 */
 	public Vector2f(float x, float y) {
-		super(x, y);
+		this.x = x;
+		this.y = y;
+	}
+	
+	/**
+	 * 
+	 * Constructs a new Vector2f with the same components as another one.
+	 * 
+	 * @param v - the vector to copy
+	 */
+	public Vector2f(Vector2f v) {
+		this(v.x, v.y);
 	}
 	
 	/**
@@ -29,7 +52,7 @@ public class Vector2f extends VectorXf {
 	 * @return the x component of this vector
 	 */
 	public float getX() {
-		return this.getN(0);
+		return x;
 	}
 	
 	/**
@@ -39,7 +62,7 @@ public class Vector2f extends VectorXf {
 	 * @return the y component of this vector
 	 */
 	public float getY() {
-		return this.getN(1);
+		return y;
 	}
 	
 	/**
@@ -49,7 +72,7 @@ public class Vector2f extends VectorXf {
 	 * @param x - the new x value to be set
 	 */
 	public void setX(float x) {
-		setN(0, x);
+		this.x = x;
 	}
 	
 	/**
@@ -59,6 +82,333 @@ public class Vector2f extends VectorXf {
 	 * @param y - the new y value to be set
 	 */
 	public void setY(float y) {
-		setN(1, y);
+		this.y = y;
+	}
+	
+	/**
+	 * 
+	 * Sets both components of this vector.
+	 * 
+	 * @param x - the new x value
+	 * @param y - the new y value
+	 * @return this vector instance
+	 */
+	public Vector2f set(float x, float y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the components of this vector to those of another one.
+	 * 
+	 * @param v - the vector to copy
+	 * @return this vector instance
+	 */
+	public Vector2f set(Vector2f v) {
+		return set(v.x, v.y);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one.
+	 * 
+	 * @param v - the vector to add
+	 * @return this vector instance
+	 */
+	public Vector2f add(Vector2f v) {
+		return add(v.x, v.y, this);
+	}
+	
+	/**
+	 * 
+	 * Adds the specified components to this vector.
+	 * 
+	 * @param x - the value to add to the x component
+	 * @param y - the value to add to the y component
+	 * @return this vector instance
+	 */
+	public Vector2f add(float x, float y) {
+		return add(x, y, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to add
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector2f add(Vector2f v, Vector2f dest) {
+		return add(v.x, v.y, dest);
+	}
+	
+	/**
+	 * 
+	 * Adds the specified components to this vector and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param x - the value to add to the x component
+	 * @param y - the value to add to the y component
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector2f add(float x, float y, Vector2f dest) {
+		dest.x = this.x + x;
+		dest.y = this.y + y;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one.
+	 * 
+	 * @param v - the vector to subtract
+	 * @return this vector instance
+	 */
+	public Vector2f sub(Vector2f v) {
+		return add(-v.x, -v.y, this);
+	}
+	
+	/**
+	 * 
+	 * Subtracts the specified components from this vector.
+	 * 
+	 * @param x - the value to subtract from the x component
+	 * @param y - the value to subtract from the y component
+	 * @return this vector instance
+	 */
+	public Vector2f sub(float x, float y) {
+		return add(-x, -y, this);
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to subtract
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector2f sub(Vector2f v, Vector2f dest) {
+		return add(-v.x, -v.y, dest);
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @return this vector instance
+	 */
+	public Vector2f scale(float f) {
+		return scale(f, this);
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector2f scale(float f, Vector2f dest) {
+		dest.x = x * f;
+		dest.y = y * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one, such as a velocity times a time step to a position.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @return this vector instance
+	 */
+	public Vector2f mulAdd(Vector2f v, float f) {
+		return mulAdd(v, f, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector2f mulAdd(Vector2f v, float f, Vector2f dest) {
+		dest.x = x + v.x * f;
+		dest.y = y + v.y * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of the given vector and this one.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	public float dot(Vector2f v) {
+		return x * v.x + y * v.y;
+	}
+	
+	/**
+	 * 
+	 * Returns the vectors distance from origin.
+	 * 
+	 * @return the distance from origin
+	 */
+	public float getMagnitude() {
+		return (float)Math.sqrt(x * x + y * y);
+	}
+	
+	/**
+	 * 
+	 * Returns the squared distance from origin, which saves a square root when only comparing lengths.
+	 * 
+	 * @return the squared distance from origin
+	 */
+	public float getMagnitudeSquared() {
+		return x * x + y * y;
+	}
+	
+	/**
+	 * 
+	 * Returns the N-th vector element.
+	 * 
+	 * @param n - the index to fetch a component from
+	 * @return the N-th vector element
+	 */
+	@Override
+	public float getN(int n) {
+		switch(n) {
+		case 0:
+			return x;
+		case 1:
+			return y;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Sets the N-th vector element
+	 * 
+	 * @param n - the index of the component to set
+	 * @param f - the value to set
+	 */
+	@Override
+	public void setN(int n, float f) {
+		switch(n) {
+		case 0:
+			x = f;
+			break;
+		case 1:
+			y = f;
+			break;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns a new array holding the components of this vector. Changing the array does not change the vector.
+	 * 
+	 * @return the components of this vector
+	 */
+	@Override
+	public float[] getData() {
+		return new float[] {x, y};
+	}
+	
+	/**
+	 * 
+	 * Tells you how many dimensions the vector has.
+	 * 
+	 * @return how many dimensions this vector has
+	 */
+	@Override
+	public int getDimension() {
+		return 2;
+	}
+	
+	/**
+	 * 
+	 * Adds as many components of a vector of any dimension to this one as both have.
+	 * 
+	 * @param v - the vector you want to add to this vector
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector2f add(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x += v.getN(0);
+		if(n > 1)
+			y += v.getN(1);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Subtracts as many components of a vector of any dimension from this one as both have.
+	 * 
+	 * @param v - the vector you want to subtract from this one
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector2f sub(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x -= v.getN(0);
+		if(n > 1)
+			y -= v.getN(1);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of a vector of any dimension and this one, over as many components as both have.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	@Override
+	public float dot(VectorXf v) {
+		int n = v.getDimension();
+		float s = 0;
+		if(n > 0)
+			s += x * v.getN(0);
+		if(n > 1)
+			s += y * v.getN(1);
+		return s;
+	}
+	
+	/**
+	 * 
+	 * Returns a copy of this vector.
+	 * 
+	 * @return a copy of this vector instance
+	 */
+	public Vector2f clone() {
+		return new Vector2f(x, y);
+	}
+	
+	/**
+	 * 
+	 * Returns a String representation of this vectors dimensions.
+	 * 
+	 * @return a String representation of this vectors dimensions
+	 */
+	public String toString() {
+		return x + "\t" + y;
 	}
-}
\ No newline at end of file
+}
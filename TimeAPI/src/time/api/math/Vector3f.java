@@ -1,7 +1,28 @@
 package time.api.math;
 
+/**
+ * 
+ * A three dimensional vector with its components stored in plain fields. Every operation works in place on this vector or on a
+ * destination vector passed in, so none of them allocate.
+ * <p>
+ * It is also a {@link VectorXf} of three components, whose methods it overrides to work on the fields. Of those, only
+ * {@link #getData()} allocates, as it returns a copy of the components.
+ * 
+ */
+
 public class Vector3f extends VectorXf {
 	
+	public float x, y, z;
+	
+	/**
+	 * 
+	 * Constructs a new Vector3f with components(0,0,0).
+	 * 
+	 */
+	public Vector3f() {
+		this(0, 0, 0);
+	}
+	
 	/**
 	 * 
 	 * Constructs a new Vector3f.
@@ -11,7 +32,19 @@ public class Vector3f extends VectorXf {
 	 * @param z - the initial z component of this vector
 	 */
 	public Vector3f(float x, float y, float z) {
-		super(x, y, z);
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	/**
+	 * 
+	 * Constructs a new Vector3f with the same components as another one.
+	 * 
+	 * @param v - the vector to copy
+	 */
+	public Vector3f(Vector3f v) {
+		this(v.x, v.y, v.z);
 	}
 	
 	/**
@@ -21,7 +54,7 @@ public class Vector3f extends VectorXf {
 	 * @return the x component of this vector
 	 */
 	public float getX() {
-		return this.getN(0);
+		return x;
 	}
 	
 	/**
@@ -31,7 +64,7 @@ public class Vector3f extends VectorXf {
 	 * @return the y component of this vector
 	 */
 	public float getY() {
-		return this.getN(1);
+		return y;
 	}
 	
 	/**
@@ -41,7 +74,7 @@ public class Vector3f extends VectorXf {
 	 * @return the z component of this vector
 	 */
 	public float getZ() {
-		return this.getN(2);
+		return z;
 	}
 	
 	/**
@@ -51,7 +84,7 @@ public class Vector3f extends VectorXf {
 	 * @param x - the new x value to be set
 	 */
 	public void setX(float x) {
-		setN(0, x);
+		this.x = x;
 	}
 	
 	/**
@@ -61,7 +94,7 @@ public class Vector3f extends VectorXf {
 	 * @param y - the new y value to be set
 	 */
 	public void setY(float y) {
-		setN(1, y);
+		this.y = y;
 	}
 	
 	/**
@@ -71,6 +104,329 @@ public class Vector3f extends VectorXf {
 	 * @param z - the new z value to be set
 	 */
 	public void setZ(float z) {
-		setN(2, z);
+		this.z = z;
+	}
+	
+	/**
+	 * 
+	 * Sets every component of this vector.
+	 * 
+	 * @param x - the new x value
+	 * @param y - the new y value
+	 * @param z - the new z value
+	 * @return this vector instance
+	 */
+	public Vector3f set(float x, float y, float z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the components of this vector to those of another one.
+	 * 
+	 * @param v - the vector to copy
+	 * @return this vector instance
+	 */
+	public Vector3f set(Vector3f v) {
+		return set(v.x, v.y, v.z);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one.
+	 * 
+	 * @param v - the vector to add
+	 * @return this vector instance
+	 */
+	public Vector3f add(Vector3f v) {
+		return add(v.x, v.y, v.z, this);
+	}
+	
+	/**
+	 * 
+	 * Adds the specified components to this vector.
+	 * 
+	 * @param x - the value to add to the x component
+	 * @param y - the value to add to the y component
+	 * @param z - the value to add to the z component
+	 * @return this vector instance
+	 */
+	public Vector3f add(float x, float y, float z) {
+		return add(x, y, z, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to add
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector3f add(Vector3f v, Vector3f dest) {
+		return add(v.x, v.y, v.z, dest);
+	}
+	
+	/**
+	 * 
+	 * Adds the specified components to this vector and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param x - the value to add to the x component
+	 * @param y - the value to add to the y component
+	 * @param z - the value to add to the z component
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector3f add(float x, float y, float z, Vector3f dest) {
+		dest.x = this.x + x;
+		dest.y = this.y + y;
+		dest.z = this.z + z;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one.
+	 * 
+	 * @param v - the vector to subtract
+	 * @return this vector instance
+	 */
+	public Vector3f sub(Vector3f v) {
+		return add(-v.x, -v.y, -v.z, this);
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to subtract
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector3f sub(Vector3f v, Vector3f dest) {
+		return add(-v.x, -v.y, -v.z, dest);
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @return this vector instance
+	 */
+	public Vector3f scale(float f) {
+		return scale(f, this);
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector3f scale(float f, Vector3f dest) {
+		dest.x = x * f;
+		dest.y = y * f;
+		dest.z = z * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @return this vector instance
+	 */
+	public Vector3f mulAdd(Vector3f v, float f) {
+		return mulAdd(v, f, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector3f mulAdd(Vector3f v, float f, Vector3f dest) {
+		dest.x = x + v.x * f;
+		dest.y = y + v.y * f;
+		dest.z = z + v.z * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of the given vector and this one.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	public float dot(Vector3f v) {
+		return x * v.x + y * v.y + z * v.z;
+	}
+	
+	/**
+	 * 
+	 * Returns the vectors distance from origin.
+	 * 
+	 * @return the distance from origin
+	 */
+	public float getMagnitude() {
+		return (float)Math.sqrt(x * x + y * y + z * z);
+	}
+	
+	/**
+	 * 
+	 * Returns the N-th vector element.
+	 * 
+	 * @param n - the index to fetch a component from
+	 * @return the N-th vector element
+	 */
+	@Override
+	public float getN(int n) {
+		switch(n) {
+		case 0:
+			return x;
+		case 1:
+			return y;
+		case 2:
+			return z;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Sets the N-th vector element
+	 * 
+	 * @param n - the index of the component to set
+	 * @param f - the value to set
+	 */
+	@Override
+	public void setN(int n, float f) {
+		switch(n) {
+		case 0:
+			x = f;
+			break;
+		case 1:
+			y = f;
+			break;
+		case 2:
+			z = f;
+			break;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns a new array holding the components of this vector. Changing the array does not change the vector.
+	 * 
+	 * @return the components of this vector
+	 */
+	@Override
+	public float[] getData() {
+		return new float[] {x, y, z};
+	}
+	
+	/**
+	 * 
+	 * Tells you how many dimensions the vector has.
+	 * 
+	 * @return how many dimensions this vector has
+	 */
+	@Override
+	public int getDimension() {
+		return 3;
+	}
+	
+	/**
+	 * 
+	 * Adds as many components of a vector of any dimension to this one as both have.
+	 * 
+	 * @param v - the vector you want to add to this vector
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector3f add(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x += v.getN(0);
+		if(n > 1)
+			y += v.getN(1);
+		if(n > 2)
+			z += v.getN(2);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Subtracts as many components of a vector of any dimension from this one as both have.
+	 * 
+	 * @param v - the vector you want to subtract from this one
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector3f sub(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x -= v.getN(0);
+		if(n > 1)
+			y -= v.getN(1);
+		if(n > 2)
+			z -= v.getN(2);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of a vector of any dimension and this one, over as many components as both have.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	@Override
+	public float dot(VectorXf v) {
+		int n = v.getDimension();
+		float s = 0;
+		if(n > 0)
+			s += x * v.getN(0);
+		if(n > 1)
+			s += y * v.getN(1);
+		if(n > 2)
+			s += z * v.getN(2);
+		return s;
+	}
+	
+	/**
+	 * 
+	 * Returns a copy of this vector.
+	 * 
+	 * @return a copy of this vector instance
+	 */
+	public Vector3f clone() {
+		return new Vector3f(x, y, z);
+	}
+	
+	/**
+	 * 
+	 * Returns a String representation of this vectors dimensions.
+	 * 
+	 * @return a String representation of this vectors dimensions
+	 */
+	public String toString() {
+		return x + "\t" + y + "\t" + z;
 	}
-}
\ No newline at end of file
+}
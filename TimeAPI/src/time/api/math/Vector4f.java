@@ -1,17 +1,52 @@
 package time.api.math;
 
+/**
+ * 
+ * A four dimensional vector with its components stored in plain fields. Every operation works in place on this vector or on a
+ * destination vector passed in, so none of them allocate.
+ * <p>
+ * It is also a {@link VectorXf} of four components, whose methods it overrides to work on the fields. Of those, only
+ * {@link #getData()} allocates, as it returns a copy of the components.
+ * 
+ */
+
 public class Vector4f extends VectorXf {
 	
+	public float x, y, z, w;
+	
 	/**
 	 * 
-	 * Constructs a new Vector3f.
+	 * Constructs a new Vector4f with components(0,0,0,0).
+	 * 
+	 */
+	public Vector4f() {
+		this(0, 0, 0, 0);
+	}
+	
+	/**
+	 * 
+	 * Constructs a new Vector4f.
 	 * 
 	 * @param x - the initial x component of this vector
 	 * @param y - the initial y component of this vector
 	 * @param z - the initial z component of this vector
+	 * @param w - the initial w component of this vector
 	 */
 	public Vector4f(float x, float y, float z, float w) {
-		super(x, y, z, w);
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+	}
+	
+	/**
+	 * 
+	 * Constructs a new Vector4f with the same components as another one.
+	 * 
+	 * @param v - the vector to copy
+	 */
+	public Vector4f(Vector4f v) {
+		this(v.x, v.y, v.z, v.w);
 	}
 	
 	/**
@@ -21,7 +56,7 @@ public class Vector4f extends VectorXf {
 	 * @return the x component of this vector
 	 */
 	public float getX() {
-		return this.getN(0);
+		return x;
 	}
 	
 	/**
@@ -31,7 +66,7 @@ public class Vector4f extends VectorXf {
 	 * @return the y component of this vector
 	 */
 	public float getY() {
-		return this.getN(1);
+		return y;
 	}
 	
 	/**
@@ -41,7 +76,7 @@ public class Vector4f extends VectorXf {
 	 * @return the z component of this vector
 	 */
 	public float getZ() {
-		return this.getN(2);
+		return z;
 	}
 	
 	/**
@@ -51,7 +86,7 @@ public class Vector4f extends VectorXf {
 	 * @return the w component of this vector
 	 */
 	public float getW() {
-		return this.getN(3);
+		return w;
 	}
 	
 	/**
@@ -61,7 +96,7 @@ public class Vector4f extends VectorXf {
 	 * @param x - the new x value to be set
 	 */
 	public void setX(float x) {
-		setN(0, x);
+		this.x = x;
 	}
 	
 	/**
@@ -71,7 +106,7 @@ public class Vector4f extends VectorXf {
 	 * @param y - the new y value to be set
 	 */
 	public void setY(float y) {
-		setN(1, y);
+		this.y = y;
 	}
 	
 	/**
@@ -81,7 +116,7 @@ public class Vector4f extends VectorXf {
 	 * @param z - the new z value to be set
 	 */
 	public void setZ(float z) {
-		setN(2, z);
+		this.z = z;
 	}
 	
 	/**
@@ -91,6 +126,322 @@ public class Vector4f extends VectorXf {
 	 * @param w - the new w value to be set
 	 */
 	public void setW(float w) {
-		setN(3, w);
+		this.w = w;
+	}
+	
+	/**
+	 * 
+	 * Sets every component of this vector.
+	 * 
+	 * @param x - the new x value
+	 * @param y - the new y value
+	 * @param z - the new z value
+	 * @param w - the new w value
+	 * @return this vector instance
+	 */
+	public Vector4f set(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the components of this vector to those of another one.
+	 * 
+	 * @param v - the vector to copy
+	 * @return this vector instance
+	 */
+	public Vector4f set(Vector4f v) {
+		return set(v.x, v.y, v.z, v.w);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one.
+	 * 
+	 * @param v - the vector to add
+	 * @return this vector instance
+	 */
+	public Vector4f add(Vector4f v) {
+		return add(v, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to add
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector4f add(Vector4f v, Vector4f dest) {
+		dest.x = x + v.x;
+		dest.y = y + v.y;
+		dest.z = z + v.z;
+		dest.w = w + v.w;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one.
+	 * 
+	 * @param v - the vector to subtract
+	 * @return this vector instance
+	 */
+	public Vector4f sub(Vector4f v) {
+		return sub(v, this);
+	}
+	
+	/**
+	 * 
+	 * Subtracts a vector from this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to subtract
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector4f sub(Vector4f v, Vector4f dest) {
+		dest.x = x - v.x;
+		dest.y = y - v.y;
+		dest.z = z - v.z;
+		dest.w = w - v.w;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @return this vector instance
+	 */
+	public Vector4f scale(float f) {
+		return scale(f, this);
+	}
+	
+	/**
+	 * 
+	 * Scales this vector with the given scalar and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param f - the scalar to scale with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector4f scale(float f, Vector4f dest) {
+		dest.x = x * f;
+		dest.y = y * f;
+		dest.z = z * f;
+		dest.w = w * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @return this vector instance
+	 */
+	public Vector4f mulAdd(Vector4f v, float f) {
+		return mulAdd(v, f, this);
+	}
+	
+	/**
+	 * 
+	 * Adds a vector scaled by the given scalar to this one and stores the result in another vector, leaving this one unchanged.
+	 * 
+	 * @param v - the vector to scale and add
+	 * @param f - the scalar to scale the vector with
+	 * @param dest - the vector to store the result in
+	 * @return the destination vector
+	 */
+	public Vector4f mulAdd(Vector4f v, float f, Vector4f dest) {
+		dest.x = x + v.x * f;
+		dest.y = y + v.y * f;
+		dest.z = z + v.z * f;
+		dest.w = w + v.w * f;
+		return dest;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of the given vector and this one.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	public float dot(Vector4f v) {
+		return x * v.x + y * v.y + z * v.z + w * v.w;
+	}
+	
+	/**
+	 * 
+	 * Returns the vectors distance from origin.
+	 * 
+	 * @return the distance from origin
+	 */
+	public float getMagnitude() {
+		return (float)Math.sqrt(x * x + y * y + z * z + w * w);
+	}
+	
+	/**
+	 * 
+	 * Returns the N-th vector element.
+	 * 
+	 * @param n - the index to fetch a component from
+	 * @return the N-th vector element
+	 */
+	@Override
+	public float getN(int n) {
+		switch(n) {
+		case 0:
+			return x;
+		case 1:
+			return y;
+		case 2:
+			return z;
+		case 3:
+			return w;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Sets the N-th vector element
+	 * 
+	 * @param n - the index of the component to set
+	 * @param f - the value to set
+	 */
+	@Override
+	public void setN(int n, float f) {
+		switch(n) {
+		case 0:
+			x = f;
+			break;
+		case 1:
+			y = f;
+			break;
+		case 2:
+			z = f;
+			break;
+		case 3:
+			w = f;
+			break;
+		default:
+			throw new IndexOutOfBoundsException("Component " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns a new array holding the components of this vector. Changing the array does not change the vector.
+	 * 
+	 * @return the components of this vector
+	 */
+	@Override
+	public float[] getData() {
+		return new float[] {x, y, z, w};
+	}
+	
+	/**
+	 * 
+	 * Tells you how many dimensions the vector has.
+	 * 
+	 * @return how many dimensions this vector has
+	 */
+	@Override
+	public int getDimension() {
+		return 4;
+	}
+	
+	/**
+	 * 
+	 * Adds as many components of a vector of any dimension to this one as both have.
+	 * 
+	 * @param v - the vector you want to add to this vector
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector4f add(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x += v.getN(0);
+		if(n > 1)
+			y += v.getN(1);
+		if(n > 2)
+			z += v.getN(2);
+		if(n > 3)
+			w += v.getN(3);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Subtracts as many components of a vector of any dimension from this one as both have.
+	 * 
+	 * @param v - the vector you want to subtract from this one
+	 * @return this vector instance
+	 */
+	@Override
+	public Vector4f sub(VectorXf v) {
+		int n = v.getDimension();
+		if(n > 0)
+			x -= v.getN(0);
+		if(n > 1)
+			y -= v.getN(1);
+		if(n > 2)
+			z -= v.getN(2);
+		if(n > 3)
+			w -= v.getN(3);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the dot product of a vector of any dimension and this one, over as many components as both have.
+	 * 
+	 * @param v - the vector you want to dot with this vector
+	 * @return the dot product
+	 */
+	@Override
+	public float dot(VectorXf v) {
+		int n = v.getDimension();
+		float s = 0;
+		if(n > 0)
+			s += x * v.getN(0);
+		if(n > 1)
+			s += y * v.getN(1);
+		if(n > 2)
+			s += z * v.getN(2);
+		if(n > 3)
+			s += w * v.getN(3);
+		return s;
+	}
+	
+	/**
+	 * 
+	 * Returns a copy of this vector.
+	 * 
+	 * @return a copy of this vector instance
+	 */
+	public Vector4f clone() {
+		return new Vector4f(x, y, z, w);
+	}
+	
+	/**
+	 * 
+	 * Returns a String representation of this vectors dimensions.
+	 * 
+	 * @return a String representation of this vectors dimensions
+	 */
+	public String toString() {
+		return x + "\t" + y + "\t" + z + "\t" + w;
 	}
-}
\ No newline at end of file
+}
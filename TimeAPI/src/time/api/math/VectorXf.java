@@ -2,6 +2,14 @@ package time.api.math;
 
 import time.api.debug.Debug;
 
+/**
+ * 
+ * A vector with any amount of components, such as the attributes of a vertex. Vectors of two, three or four components should
+ * use {@link Vector2f}, {@link Vector3f} or {@link Vector4f}, which extend this class but keep their components in fields and
+ * override every method that reads or writes them.
+ * 
+ */
+
 public class VectorXf {
 	
 	//The values stored in the vector 
@@ -17,6 +25,14 @@ public class VectorXf {
 		vals = f;
 	}
 	
+	/**
+	 * 
+	 * Constructs a vector without an array of components, for subclasses that keep their components elsewhere.
+	 * 
+	 */
+	protected VectorXf() {
+	}
+	
 	/**
 	 * 
 	 * Returns the vectors distance from origin.
@@ -87,10 +103,10 @@ public class VectorXf {
 	 * @param v - the vector you want to add to this vector
 	 */
 	public VectorXf add(VectorXf v) {
-		float smallest = (v.vals.length < this.vals.length) ? v.vals.length : this.vals.length;
+		int smallest = Math.min(v.getDimension(), this.vals.length);
 		
 		for(int i = 0; i < smallest; i++) {
-			this.vals[i] += v.vals[i];
+			this.vals[i] += v.getN(i);
 		}
 		return this;
 	}
@@ -102,10 +118,10 @@ public class VectorXf {
 	 * @param v - the vector you want to subtract from this one
 	 */
 	public VectorXf sub(VectorXf v) {
-		float smallest = (v.vals.length < this.vals.length) ? v.vals.length : this.vals.length;
+		int smallest = Math.min(v.getDimension(), this.vals.length);
 		
 		for(int i = 0; i < smallest; i++) {
-			this.vals[i] -= v.vals[i];
+			this.vals[i] -= v.getN(i);
 		}
 		return this;
 	}
@@ -117,10 +133,10 @@ public class VectorXf {
 	 * @param v - the vector you want to dot with this vector
 	 */
 	public float dot(VectorXf v) {
-		float smallest = (v.vals.length < this.vals.length) ? v.vals.length : this.vals.length;
+		int smallest = Math.min(v.getDimension(), this.vals.length);
 		float s = 0;
 		for(int i = 0; i < smallest; i++) {
-			s += this.vals[i] * v.vals[i];
+			s += this.vals[i] * v.getN(i);
 		}	
 		return s;
 	}
@@ -0,0 +1,640 @@
+package time.api.physics;
+
+/**
+ * 
+ * A broadphase and query structure built from two dynamic bounding volume hierarchies,
+ * one for absolute bodies and one for everything else.
+ * <p>
+ * Leaves store bounding boxes fattened by a margin, so a body only has to be reinserted once it leaves its fat box.
+ * The trees are kept balanced with rotations, which keeps pair finding, region queries and raycasts at O(log n) per body.
+ * Since absolute bodies never collide with each other, the static tree is only ever queried, never swept for pairs of its own.
+ * 
+ */
+
+public class AABBTree implements Broadphase {
+
+	public static final float DEFAULT_MARGIN = 4.0f;
+
+	private final Tree dynamicTree;
+	private final Tree staticTree;
+
+	private float margin;
+
+	//Traversal stack used while finding pairs
+	private int[] stack = new int[64];
+
+	//Queries may run on several threads at once, so each thread traverses with its own stack
+	private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[64]);
+
+	/**
+	 * 
+	 * Constructs a new tree with the default margin.
+	 * 
+	 */
+	public AABBTree() {
+		this(DEFAULT_MARGIN);
+	}
+
+	/**
+	 * 
+	 * Constructs a new tree with the specified margin.
+	 * 
+	 * @param margin - how much each bounding box is fattened, larger margins mean fewer reinsertions but looser culling
+	 */
+	public AABBTree(float margin) {
+		this.margin = margin;
+		dynamicTree = new Tree();
+		staticTree = new Tree();
+	}
+
+	@Override
+	public void add(Body body) {
+		if(body.proxy != -1)
+			return;
+
+		body.proxy = treeFor(body).insert(body, margin);
+	}
+
+	@Override
+	public void remove(Body body) {
+		int p = body.proxy;
+		if(p == -1)
+			return;
+
+		if(dynamicTree.owns(p, body))
+			dynamicTree.remove(p);
+		else if(staticTree.owns(p, body))
+			staticTree.remove(p);
+
+		body.proxy = -1;
+	}
+
+	@Override
+	public void update(Body body) {
+		int p = body.proxy;
+		if(p == -1)
+			return;
+
+		Tree tree = treeFor(body);
+
+		//The body has switched between absolute and dynamic
+		if(!tree.owns(p, body)) {
+			remove(body);
+			add(body);
+			return;
+		}
+
+		if(tree.contains(p, body))
+			return;
+
+		tree.remove(p);
+		body.proxy = tree.insert(body, margin);
+	}
+
+	@Override
+	public void findPairs(PairBuffer pairs) {
+		Tree t = dynamicTree;
+
+		for(int a = 0; a < t.capacity; a++) {
+			if(!t.isLeaf(a))
+				continue;
+
+			Body body = t.body[a];
+			float minX = body.getMinX(), minY = body.getMinY();
+			float maxX = body.getMaxX(), maxY = body.getMaxY();
+
+			//Dynamic against dynamic, each pair is reported from its lower leaf
+			int top = 0;
+			stack = push(stack, top++, t.root);
+			while(top > 0) {
+				int n = stack[--top];
+				if(n == -1 || !t.overlaps(n, minX, minY, maxX, maxY))
+					continue;
+
+				if(t.isLeaf(n)) {
+					if(n > a && overlaps(t.body[n], minX, minY, maxX, maxY))
+						pairs.add(body, t.body[n]);
+				} else {
+					stack = push(stack, top++, t.child1[n]);
+					stack = push(stack, top++, t.child2[n]);
+				}
+			}
+
+			//Dynamic against static
+			Tree s = staticTree;
+			top = 0;
+			stack = push(stack, top++, s.root);
+			while(top > 0) {
+				int n = stack[--top];
+				if(n == -1 || !s.overlaps(n, minX, minY, maxX, maxY))
+					continue;
+
+				if(s.isLeaf(n)) {
+					if(overlaps(s.body[n], minX, minY, maxX, maxY))
+						pairs.add(body, s.body[n]);
+				} else {
+					stack = push(stack, top++, s.child1[n]);
+					stack = push(stack, top++, s.child2[n]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		dynamicTree.clear();
+		staticTree.clear();
+	}
+
+	/**
+	 * 
+	 * Finds every body whose bounding box overlaps the specified region.
+	 * 
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	@Override
+	public int query(float minX, float minY, float maxX, float maxY, Body[] results) {
+		int count = query(dynamicTree, minX, minY, maxX, maxY, results, 0);
+		return query(staticTree, minX, minY, maxX, maxY, results, count);
+	}
+
+	/**
+	 * 
+	 * Finds every body containing the specified point.
+	 * 
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int queryPoint(float x, float y, Body[] results) {
+		int count = query(x, y, x, y, results);
+
+		int n = 0;
+		for(int i = 0; i < count; i++) {
+			if(results[i].contains(x, y))
+				results[n++] = results[i];
+		}
+		for(int i = n; i < count; i++)
+			results[i] = null;
+
+		return n;
+	}
+
+	/**
+	 * 
+	 * Casts a ray and finds the closest body it hits.
+	 * The ray covers the points origin + direction * t for t between 0 and maxFraction.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param maxFraction - how far along the direction the ray reaches
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean raycast(float ox, float oy, float dx, float dy, float maxFraction, RaycastHit hit) {
+		return raycast(ox, oy, dx, dy, maxFraction, -1L, hit);
+	}
+
+	@Override
+	public boolean raycast(float ox, float oy, float dx, float dy, float maxFraction, long mask, RaycastHit hit) {
+		hit.reset();
+		hit.fraction = maxFraction;
+
+		raycast(dynamicTree, ox, oy, dx, dy, mask, hit);
+		raycast(staticTree, ox, oy, dx, dy, mask, hit);
+
+		if(!hit.hasHit())
+			hit.fraction = 0;
+
+		return hit.hasHit();
+	}
+
+	/**
+	 * 
+	 * Returns the margin bounding boxes are fattened by.
+	 * 
+	 * @return the margin of this tree
+	 */
+	public float getMargin() {
+		return margin;
+	}
+
+	/**
+	 * 
+	 * Returns the height of the taller of the two trees, mostly useful to check that the trees stay balanced.
+	 * 
+	 * @return the height of this tree
+	 */
+	public int getHeight() {
+		return Math.max(dynamicTree.getHeight(), staticTree.getHeight());
+	}
+
+	private Tree treeFor(Body body) {
+		return body.isAbsolute() && !body.isTrigger() ? staticTree : dynamicTree;
+	}
+
+	private int query(Tree t, float minX, float minY, float maxX, float maxY, Body[] results, int count) {
+		int[] stack = stacks.get();
+		int top = 0;
+		stack = push(stack, top++, t.root);
+		while(top > 0 && count < results.length) {
+			int n = stack[--top];
+			if(n == -1 || !t.overlaps(n, minX, minY, maxX, maxY))
+				continue;
+
+			if(t.isLeaf(n)) {
+				if(overlaps(t.body[n], minX, minY, maxX, maxY))
+					results[count++] = t.body[n];
+			} else {
+				stack = push(stack, top++, t.child1[n]);
+				stack = push(stack, top++, t.child2[n]);
+			}
+		}
+		stacks.set(stack);
+		return count;
+	}
+
+	private void raycast(Tree t, float ox, float oy, float dx, float dy, long mask, RaycastHit hit) {
+		int[] stack = stacks.get();
+		int top = 0;
+		stack = push(stack, top++, t.root);
+		while(top > 0) {
+			int n = stack[--top];
+			if(n == -1)
+				continue;
+
+			//Cull nodes that are missed or further away than the closest hit so far
+			if(RaycastHit.castBox(ox, oy, dx, dy, hit.fraction, t.minX[n], t.minY[n], t.maxX[n], t.maxY[n]) < 0)
+				continue;
+
+			if(t.isLeaf(n)) {
+				Body b = t.body[n];
+				if((b.getLayers() & mask) == 0)
+					continue;
+
+				float minX = b.getMinX(), minY = b.getMinY(), maxX = b.getMaxX(), maxY = b.getMaxY();
+				float f = RaycastHit.castBox(ox, oy, dx, dy, hit.fraction, minX, minY, maxX, maxY);
+				if(f >= 0 && (!hit.hasHit() || f < hit.fraction))
+					hit.set(b, ox, oy, dx, dy, f, minX, minY, maxX, maxY);
+			} else {
+				stack = push(stack, top++, t.child1[n]);
+				stack = push(stack, top++, t.child2[n]);
+			}
+		}
+		stacks.set(stack);
+	}
+
+	private static boolean overlaps(Body b, float minX, float minY, float maxX, float maxY) {
+		return b.getMinX() <= maxX && minX <= b.getMaxX() && b.getMinY() <= maxY && minY <= b.getMaxY();
+	}
+
+	private static int[] push(int[] stack, int top, int value) {
+		if(top == stack.length) {
+			int[] s = new int[top * 2];
+			System.arraycopy(stack, 0, s, 0, top);
+			stack = s;
+		}
+		stack[top] = value;
+		return stack;
+	}
+
+	/**
+	 * 
+	 * A single dynamic bounding volume hierarchy with its nodes stored in parallel arrays.
+	 * Leaves have no children, internal nodes always have two.
+	 * 
+	 */
+	private static class Tree {
+
+		int root = -1;
+
+		float[] minX, minY, maxX, maxY;
+		int[] parent, child1, child2, height;
+		Body[] body;
+
+		int capacity;
+		int freeList = -1;
+
+		Tree() {
+			allocate(16);
+		}
+
+		boolean isLeaf(int n) {
+			return height[n] == 0;
+		}
+
+		boolean owns(int n, Body b) {
+			return n < capacity && height[n] == 0 && body[n] == b;
+		}
+
+		boolean overlaps(int n, float x0, float y0, float x1, float y1) {
+			return minX[n] <= x1 && x0 <= maxX[n] && minY[n] <= y1 && y0 <= maxY[n];
+		}
+
+		boolean contains(int n, Body b) {
+			return minX[n] <= b.getMinX() && minY[n] <= b.getMinY() && b.getMaxX() <= maxX[n] && b.getMaxY() <= maxY[n];
+		}
+
+		int getHeight() {
+			return root == -1 ? 0 : height[root];
+		}
+
+		void clear() {
+			for(int i = 0; i < capacity; i++) {
+				if(body[i] != null)
+					body[i].proxy = -1;
+			}
+			root = -1;
+			capacity = 0;
+			freeList = -1;
+			allocate(16);
+		}
+
+		int insert(Body b, float margin) {
+			int leaf = allocateNode();
+			minX[leaf] = b.getMinX() - margin;
+			minY[leaf] = b.getMinY() - margin;
+			maxX[leaf] = b.getMaxX() + margin;
+			maxY[leaf] = b.getMaxY() + margin;
+			body[leaf] = b;
+			height[leaf] = 0;
+
+			insertLeaf(leaf);
+			return leaf;
+		}
+
+		void remove(int leaf) {
+			removeLeaf(leaf);
+			freeNode(leaf);
+		}
+
+		private void insertLeaf(int leaf) {
+			if(root == -1) {
+				root = leaf;
+				parent[leaf] = -1;
+				return;
+			}
+
+			//Find the best sibling by walking down the cheapest path, measured in perimeter
+			float lx0 = minX[leaf], ly0 = minY[leaf], lx1 = maxX[leaf], ly1 = maxY[leaf];
+			int index = root;
+			while(!isLeaf(index)) {
+				int c1 = child1[index];
+				int c2 = child2[index];
+
+				float area = perimeter(index);
+				float combined = perimeter(Math.min(minX[index], lx0), Math.min(minY[index], ly0),
+						Math.max(maxX[index], lx1), Math.max(maxY[index], ly1));
+
+				//Cost of making a new parent for this node and the leaf
+				float cost = 2 * combined;
+
+				//Minimum cost of pushing the leaf further down
+				float inheritance = 2 * (combined - area);
+
+				float cost1 = descendCost(c1, lx0, ly0, lx1, ly1) + inheritance;
+				float cost2 = descendCost(c2, lx0, ly0, lx1, ly1) + inheritance;
+
+				if(cost < cost1 && cost < cost2)
+					break;
+
+				index = cost1 < cost2 ? c1 : c2;
+			}
+
+			int sibling = index;
+			int oldParent = parent[sibling];
+			int newParent = allocateNode();
+			parent[newParent] = oldParent;
+			body[newParent] = null;
+			minX[newParent] = Math.min(minX[sibling], lx0);
+			minY[newParent] = Math.min(minY[sibling], ly0);
+			maxX[newParent] = Math.max(maxX[sibling], lx1);
+			maxY[newParent] = Math.max(maxY[sibling], ly1);
+			height[newParent] = height[sibling] + 1;
+			child1[newParent] = sibling;
+			child2[newParent] = leaf;
+			parent[sibling] = newParent;
+			parent[leaf] = newParent;
+
+			if(oldParent == -1) {
+				root = newParent;
+			} else if(child1[oldParent] == sibling) {
+				child1[oldParent] = newParent;
+			} else {
+				child2[oldParent] = newParent;
+			}
+
+			refit(parent[leaf]);
+		}
+
+		private float descendCost(int c, float x0, float y0, float x1, float y1) {
+			float p = perimeter(Math.min(minX[c], x0), Math.min(minY[c], y0), Math.max(maxX[c], x1), Math.max(maxY[c], y1));
+			return isLeaf(c) ? p : p - perimeter(c);
+		}
+
+		private void removeLeaf(int leaf) {
+			if(leaf == root) {
+				root = -1;
+				return;
+			}
+
+			int p = parent[leaf];
+			int grandParent = parent[p];
+			int sibling = child1[p] == leaf ? child2[p] : child1[p];
+
+			if(grandParent == -1) {
+				root = sibling;
+				parent[sibling] = -1;
+				freeNode(p);
+				return;
+			}
+
+			if(child1[grandParent] == p)
+				child1[grandParent] = sibling;
+			else
+				child2[grandParent] = sibling;
+			parent[sibling] = grandParent;
+			freeNode(p);
+
+			refit(grandParent);
+		}
+
+		/**
+		 * 
+		 * Walks from the specified node to the root, rebalancing and refitting the bounds of every ancestor.
+		 * 
+		 */
+		private void refit(int index) {
+			while(index != -1) {
+				index = balance(index);
+
+				int c1 = child1[index];
+				int c2 = child2[index];
+
+				height[index] = 1 + Math.max(height[c1], height[c2]);
+				minX[index] = Math.min(minX[c1], minX[c2]);
+				minY[index] = Math.min(minY[c1], minY[c2]);
+				maxX[index] = Math.max(maxX[c1], maxX[c2]);
+				maxY[index] = Math.max(maxY[c1], maxY[c2]);
+
+				index = parent[index];
+			}
+		}
+
+		/**
+		 * 
+		 * Performs a left or right rotation if the subtree rooted at a is imbalanced.
+		 * 
+		 * @return the new root of the subtree
+		 */
+		private int balance(int a) {
+			if(isLeaf(a) || height[a] < 2)
+				return a;
+
+			int b = child1[a];
+			int c = child2[a];
+			int diff = height[c] - height[b];
+
+			if(diff > 1)
+				return rotate(a, c, b);
+			if(diff < -1)
+				return rotate(a, b, c);
+
+			return a;
+		}
+
+		/**
+		 * 
+		 * Promotes the taller child up to take the place of a.
+		 * 
+		 * @param a - the imbalanced node
+		 * @param up - the taller child of a which is promoted
+		 * @param other - the other child of a
+		 * @return the promoted node
+		 */
+		private int rotate(int a, int up, int other) {
+			int f = child1[up];
+			int g = child2[up];
+
+			//Swap a and up
+			child1[up] = a;
+			parent[up] = parent[a];
+			parent[a] = up;
+
+			if(parent[up] != -1) {
+				if(child1[parent[up]] == a)
+					child1[parent[up]] = up;
+				else
+					child2[parent[up]] = up;
+			} else {
+				root = up;
+			}
+
+			//Keep the taller grandchild under up and hand the other to a
+			int keep = height[f] > height[g] ? f : g;
+			int give = keep == f ? g : f;
+
+			child2[up] = keep;
+			if(child1[a] == up)
+				child1[a] = give;
+			else
+				child2[a] = give;
+			parent[give] = a;
+
+			fit(a);
+			fit(up);
+
+			return up;
+		}
+
+		private void fit(int n) {
+			int c1 = child1[n];
+			int c2 = child2[n];
+			minX[n] = Math.min(minX[c1], minX[c2]);
+			minY[n] = Math.min(minY[c1], minY[c2]);
+			maxX[n] = Math.max(maxX[c1], maxX[c2]);
+			maxY[n] = Math.max(maxY[c1], maxY[c2]);
+			height[n] = 1 + Math.max(height[c1], height[c2]);
+		}
+
+		private float perimeter(int n) {
+			return perimeter(minX[n], minY[n], maxX[n], maxY[n]);
+		}
+
+		private static float perimeter(float x0, float y0, float x1, float y1) {
+			return 2 * ((x1 - x0) + (y1 - y0));
+		}
+
+		private int allocateNode() {
+			if(freeList == -1)
+				allocate(capacity * 2);
+
+			int n = freeList;
+			freeList = parent[n];
+			parent[n] = -1;
+			child1[n] = -1;
+			child2[n] = -1;
+			height[n] = 0;
+			return n;
+		}
+
+		private void freeNode(int n) {
+			body[n] = null;
+			child1[n] = -1;
+			child2[n] = -1;
+			height[n] = -1;
+			parent[n] = freeList;
+			freeList = n;
+		}
+
+		private void allocate(int n) {
+			int old = capacity;
+
+			minX = grow(minX, n, old);
+			minY = grow(minY, n, old);
+			maxX = grow(maxX, n, old);
+			maxY = grow(maxY, n, old);
+			parent = grow(parent, n, old);
+			child1 = grow(child1, n, old);
+			child2 = grow(child2, n, old);
+			height = grow(height, n, old);
+
+			Body[] b = new Body[n];
+			if(old > 0)
+				System.arraycopy(body, 0, b, 0, old);
+			body = b;
+
+			//Chain the new nodes into the free list
+			for(int i = old; i < n; i++) {
+				parent[i] = i + 1 < n ? i + 1 : freeList;
+				child1[i] = -1;
+				child2[i] = -1;
+				height[i] = -1;
+			}
+			freeList = old;
+			capacity = n;
+		}
+
+		private static float[] grow(float[] a, int n, int old) {
+			float[] r = new float[n];
+			if(old > 0)
+				System.arraycopy(a, 0, r, 0, old);
+			return r;
+		}
+
+		private static int[] grow(int[] a, int n, int old) {
+			int[] r = new int[n];
+			if(old > 0)
+				System.arraycopy(a, 0, r, 0, old);
+			return r;
+		}
+	}
+}
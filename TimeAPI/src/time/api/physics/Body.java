@@ -2,10 +2,8 @@ package time.api.physics;
 
 import java.util.HashSet;
 
-import time.api.debug.Debug;
 import time.api.math.Transform;
 import time.api.math.Vector2f;
-import time.api.math.VectorXf;
 
 /**
  * Something that can collide, an entity that effects other entities via simulated physical interaction.  
@@ -17,9 +15,13 @@ public class Body {
 
 	boolean trigger;
 	boolean absolute;
+	boolean continuous;
 	
-	HashSet<String> collisionTags;
 	HashSet<String> myTags;
+	long layers;
+	
+	//The layers of the bodies this body touched during the last step
+	long touchingLayers;
 
 	float invMass;
 	float epsilon;
@@ -27,8 +29,21 @@ public class Body {
 	
 	Vector2f dim;
 	Transform transform;
+	
+	//The outline of this body, or null for a box the size of its dimensions
+	Shape shape;
 	Vector2f vel;
 	
+	//Broadphase handle, managed by the physics engine
+	int proxy = -1;
+	
+	//The store this body is a view over, if any
+	BodyStore store;
+	int handle = -1;
+	
+	//Stays the same for as long as the body is part of a store
+	int id = -1;
+	
 	/**
 	 * 
 	 * Constructs a new body with the given dimensions and position.
@@ -50,9 +65,9 @@ public class Body {
 		this.transform = transform;
 		vel = new Vector2f(0, 0);
 		
-		collisionTags = new HashSet<>();
 		myTags = new HashSet<>();
-		myTags.add("body");
+		myTags.add(CollisionLayers.BODY);
+		layers = CollisionLayers.getMask(CollisionLayers.BODY);
 	}
 	
 	/**
@@ -77,9 +92,34 @@ public class Body {
 		this.transform = new Transform(x, y);
 		vel = new Vector2f(0, 0);
 		
-		collisionTags = new HashSet<>();
 		myTags = new HashSet<>();
-		myTags.add("body");
+		myTags.add(CollisionLayers.BODY);
+		layers = CollisionLayers.getMask(CollisionLayers.BODY);
+	}
+	
+	/**
+	 * 
+	 * Constructs a new body with the given shape. Its dimensions are those of the box around the shape.
+	 * 
+	 * @param transform - the transform of the body
+	 * @param shape - the shape of the new body
+	 */
+	public Body(Transform transform, Shape shape) {
+		this(transform, shape.getWidth(), shape.getHeight());
+		this.shape = shape;
+	}
+	
+	/**
+	 * 
+	 * Constructs a new body with the given shape and position. Its dimensions are those of the box around the shape.
+	 * 
+	 * @param x - the center x coordinate of the new body
+	 * @param y - the center y coordinate of the new body
+	 * @param shape - the shape of the new body
+	 */
+	public Body(float x, float y, Shape shape) {
+		this(x, y, shape.getWidth(), shape.getHeight());
+		this.shape = shape;
 	}
 	
 	/**
@@ -90,24 +130,36 @@ public class Body {
 	 * @return whether or not there is a collision
 	 */
 	public boolean isCollidingWith(String tag) {
-		return collisionTags.contains(tag);
+		return (touchingLayers & CollisionLayers.findMask(tag)) != 0;
 	}
 	
 	/**
 	 * 
-	 * Adds a collision tag to this body.
-	 * A body can be checked through the {@link #isCollidingWith(Tag)}
+	 * Checks whether or not this body is colliding with another body on any of the specified layers.
+	 * 
+	 * @param mask - the layers to check collision with, see {@link CollisionLayers#getMask(String)}
+	 * @return whether or not there is a collision
+	 */
+	public boolean isCollidingWith(long mask) {
+		return (touchingLayers & mask) != 0;
+	}
+	
+	/**
+	 * 
+	 * Registers a body as touching this one.
+	 * A body can be checked through the {@link #isCollidingWith(String)}
 	 * to see the tags of bodies that are colliding.
 	 * 
-	 * @param tag - the tag to add to this body
+	 * @param body - the body that is touching this body
 	 */
-	private void addCollidingTag(String tag) {
-		collisionTags.add(tag);
+	void addTouching(Body body) {
+		touchingLayers |= body.getLayers();
 	}
 	
 	/**
 	 * 
-	 * Returns the collision tags that belong to this body.
+	 * Returns the collision tags that belong to this body. Tags should be added through {@link #addTag(String)}
+	 * rather than to this set directly, or they will not be picked up as collision layers.
 	 * 
 	 * @return the collision tags of this body
 	 */
@@ -123,7 +175,7 @@ public class Body {
 	 * @return whether or not this body contains the specified tag.
 	 */
 	public boolean hasTag(String tag) {
-		return myTags.contains(tag);
+		return (getLayers() & CollisionLayers.findMask(tag)) != 0;
 	}
 	
 	/**
@@ -134,6 +186,23 @@ public class Body {
 	 */
 	public void addTag(String tag) {
 		myTags.add(tag);
+		layers |= CollisionLayers.getMask(tag);
+		if(store != null) {
+			store.moved(handle);
+			store.setLayers(handle, layers);
+		}
+	}
+	
+	/**
+	 * 
+	 * Returns the collision layers of this body, one bit for each of its tags.
+	 * 
+	 * @return the layer mask of this body
+	 */
+	public long getLayers() {
+		if(store != null)
+			return store.layers[handle];
+		return layers;
 	}
 	
 	/**
@@ -142,7 +211,7 @@ public class Body {
 	 * 
 	 */
 	protected void _clearTags() {
-		collisionTags.clear();
+		touchingLayers = 0;
 	}
 	
 	/**
@@ -152,6 +221,8 @@ public class Body {
 	 * @return
 	 */
 	public boolean isTrigger() {
+		if(store != null)
+			return store.hasFlag(handle, BodyStore.FLAG_TRIGGER);
 		return trigger;
 	}
 	/**
@@ -162,6 +233,8 @@ public class Body {
 	 * @return this Body instance
 	 */
 	public Body setTrigger(boolean trigger) {
+		if(store != null)
+			store.setFlag(handle, BodyStore.FLAG_TRIGGER, trigger);
 		this.trigger = trigger;
 		return this;
 	}
@@ -173,6 +246,8 @@ public class Body {
 	 * @return whether or not the body is locked in space.
 	 */
 	public boolean isAbsolute() {
+		if(store != null)
+			return store.hasFlag(handle, BodyStore.FLAG_ABSOLUTE);
 		return absolute;
 	}
 
@@ -184,10 +259,61 @@ public class Body {
 	 * @return this Body instance
 	 */
 	public Body setAbsolute(boolean absolute) {
+		if(store != null)
+			store.setFlag(handle, BodyStore.FLAG_ABSOLUTE, absolute);
 		this.absolute = absolute;
 		return this;
 	}
 	
+	/**
+	 * 
+	 * Checks whether or not this body uses continuous collision detection.
+	 * 
+	 * @return true if this body is continuous
+	 */
+	public boolean isContinuous() {
+		if(store != null)
+			return store.hasFlag(handle, BodyStore.FLAG_CONTINUOUS);
+		return continuous;
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not this body uses continuous collision detection. A continuous body that moves far enough in a single
+	 * step to pass through something is stopped where it first touches it instead. Only fast bodies such as bullets need this.
+	 * 
+	 * @param continuous - true to make this body continuous
+	 * @return this Body instance
+	 */
+	public Body setContinuous(boolean continuous) {
+		if(store != null)
+			store.setFlag(handle, BodyStore.FLAG_CONTINUOUS, continuous);
+		this.continuous = continuous;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Checks whether or not this body is sleeping. Sleeping bodies are not moved by the physics engine until they are woken up.
+	 * 
+	 * @return true if this body is sleeping
+	 */
+	public boolean isSleeping() {
+		return store != null && store.isSleeping(handle);
+	}
+	
+	/**
+	 * 
+	 * Wakes this body up, along with every body that fell asleep together with it.
+	 * 
+	 * @return this Body instance
+	 */
+	public Body wake() {
+		if(store != null)
+			store.wake(handle);
+		return this;
+	}
+	
 	/**
 	 * 
 	 * Returns the inverse of this body's mass
@@ -195,6 +321,8 @@ public class Body {
 	 * @return the inverse of this body's mass
 	 */
 	public float getInvMass() {
+		if(store != null)
+			return store.invMass[handle];
 		return invMass;
 	}
 	
@@ -207,6 +335,8 @@ public class Body {
 	 */
 	public Body setMass(float mass) {
 		this.invMass = 1 / mass;
+		if(store != null)
+			store.invMass[handle] = invMass;
 		return this;
 	}
 	/**
@@ -214,6 +344,8 @@ public class Body {
 	 * @return the bounciness of this body
 	 */
 	public float getEpsilon() {
+		if(store != null)
+			return store.epsilon[handle];
 		return epsilon;
 	}
 	
@@ -224,6 +356,8 @@ public class Body {
 	 */
 	public Body setEpsilon(float epsilon) {
 		this.epsilon = epsilon;
+		if(store != null)
+			store.epsilon[handle] = epsilon;
 		return this;
 	}
 	
@@ -234,6 +368,8 @@ public class Body {
 	 * @return the friction of this body
 	 */
 	public float getFriction() {
+		if(store != null)
+			return store.mu[handle];
 		return mu;
 	}
 	
@@ -246,6 +382,41 @@ public class Body {
 	 */
 	public Body setFriction(float f) {
 		this.mu = f;
+		if(store != null)
+			store.mu[handle] = f;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the shape of this body.
+	 * 
+	 * @return the shape of this body, or null if it is a box the size of its dimensions
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+	
+	/**
+	 * 
+	 * Sets the shape of this body, along with its dimensions to those of the box around the shape.
+	 * 
+	 * @param shape - the new shape, or null to make the body a box of its current dimensions
+	 * @return this Body instance
+	 */
+	public Body setShape(Shape shape) {
+		this.shape = shape;
+		if(shape != null)
+			dim = new Vector2f(shape.getWidth(), shape.getHeight());
+		if(store != null) {
+			store.moved(handle);
+			store.setShape(handle, shape);
+			if(shape == null) {
+				store.halfW[handle] = dim.x * 0.5f;
+				store.halfH[handle] = dim.y * 0.5f;
+			}
+			store.wake(handle);
+		}
 		return this;
 	}
 	
@@ -261,13 +432,21 @@ public class Body {
 	
 	/**
 	 * 
-	 * Sets the dimensions of this body.
+	 * Sets the dimensions of this body. A body with a shape becomes a box of these dimensions.
 	 * 
 	 * @param dim - the new dimensions to be set
 	 * @return this Body instance
 	 */
 	public Body setDim(Vector2f dim) {
 		this.dim = dim;
+		this.shape = null;
+		if(store != null) {
+			store.moved(handle);
+			store.setShape(handle, null);
+			store.halfW[handle] = dim.x * 0.5f;
+			store.halfH[handle] = dim.y * 0.5f;
+			store.wake(handle);
+		}
 		return this;
 	}
 	
@@ -293,6 +472,57 @@ public class Body {
 		return this;
 	}
 	
+	/**
+	 * 
+	 * Returns the left most x coordinate of this body's bounding box.
+	 * <p>
+	 * Between updates the bounds follow the transform, so a body moved by hand is seen where it was moved to right away. While the
+	 * physics engine is updating, or running on a {@link PhysicsThread}, they are read from the engine instead.
+	 * 
+	 * @return the left most x coordinate of this body
+	 */
+	public float getMinX() {
+		if(store != null && store.loaded)
+			return store.posX[handle] - store.halfW[handle];
+		return transform.pos.x - halfWidth();
+	}
+	
+	/**
+	 * 
+	 * Returns the bottom most y coordinate of this body's bounding box.
+	 * 
+	 * @return the bottom most y coordinate of this body
+	 */
+	public float getMinY() {
+		if(store != null && store.loaded)
+			return store.posY[handle] - store.halfH[handle];
+		return transform.pos.y - halfHeight();
+	}
+	
+	/**
+	 * 
+	 * Returns the right most x coordinate of this body's bounding box.
+	 * 
+	 * @return the right most x coordinate of this body
+	 */
+	public float getMaxX() {
+		if(store != null && store.loaded)
+			return store.posX[handle] + store.halfW[handle];
+		return transform.pos.x + halfWidth();
+	}
+	
+	/**
+	 * 
+	 * Returns the top most y coordinate of this body's bounding box.
+	 * 
+	 * @return the top most y coordinate of this body
+	 */
+	public float getMaxY() {
+		if(store != null && store.loaded)
+			return store.posY[handle] + store.halfH[handle];
+		return transform.pos.y + halfHeight();
+	}
+	
 	/**
 	 * 
 	 * Returns the current velocity of this body.
@@ -300,7 +530,7 @@ public class Body {
 	 * @return the current velocity of this body
 	 */
 	public Vector2f getVel() {
-		if(absolute) 
+		if(isAbsolute()) 
 			freezeVelocity();
 		
 		return vel;
@@ -325,71 +555,43 @@ public class Body {
 	 * @return this Body instance
 	 */
 	public Body freezeVelocity() {
-		this.vel.setX(0);
-		this.vel.setY(0);
+		this.vel.set(0, 0);
 		return this;
 	}
 	
 	/**
 	 * 
-	 * Checks if two bodies are colliding, you should probably not call this. The physics engine will handle this perfectly well.
+	 * Checks if two bodies are colliding and records the contact if they are, you should probably not call this. The physics engine will handle this perfectly well.
+	 * This does not modify either body, so it is safe to run for different pairs at the same time.
 	 * 
 	 * @param body - The other body you want to check for collision against
-	 * @param pe - The physics engine where the check plays out
+	 * @param contacts - The buffer to write the contact to
+	 * @return whether or not the bodies are colliding
 	 */
-	protected void _checkCollision(Body body, PhysicsEngine pe) {
+	protected boolean _checkCollision(Body body, ContactBuffer contacts) {
 		
-		//Collision Check
-		float overlapX = 0.5f * Math.abs(this.dim.getX() + body.dim.getX()) - Math.abs(this.transform.pos.getX() - body.transform.pos.getX());
-		if(overlapX < 0) return;		
-
-		float overlapY = 0.5f * Math.abs(this.dim.getY() + body.dim.getY()) - Math.abs(this.transform.pos.getY() - body.transform.pos.getY());
-		if(overlapY < 0) return;
+		BodyStore s = store;
+		int a = handle;
+		int b = body.handle;
 		
-		//Add in all my tags
-		for(String t : myTags) {
-			body.addCollidingTag(t);
-		}
+		//Triggers only register the touch
+		int flags = ((s.flags[a] | s.flags[b]) & BodyStore.FLAG_TRIGGER) != 0 ? ContactBuffer.TRIGGER : 0;
 		
-		//Add in all the other bodies tags
-		for(String t : body.getTags()) {
-			addCollidingTag(t);
-		}
-		
-		//Make a collision event if necessary 
-		if(trigger || body.isTrigger()) return;
-		
-		VectorXf distance = this.transform.pos.clone().sub(body.getPos());
-		float depth = 0;
-		
-		if(Math.abs(distance.getN(0)) > Math.abs(distance.getN(1))) {
-			distance.setN(1, 0);
-			distance.scale(Math.abs(1/distance.getN(0)));
-			depth = overlapX;
-		}
-		else {
-			distance.setN(0, 0);
-			distance.scale(Math.abs(1/distance.getN(1)));
-			depth = overlapY;
-		}
-
-		new Collision(pe, new Vector2f(distance.getN(0), distance.getN(1)), depth, this, body);
-		return;
+		return ShapeCollisions.collide(s, a, b, flags, contacts);
 	}
 	
 	/**
 	 * 
 	 * Pushes this body with the specified force.
 	 * 
-	 * @param vectorXf - the force to push this body with
+	 * @param force - the force to push this body with
 	 */
-	public void push(VectorXf vectorXf) {
-		vel.add(vectorXf.scale(invMass));
-		if(absolute) {
-			this.vel.setX(0);
-			this.vel.setY(0);
+	public void push(Vector2f force) {
+		if(isAbsolute()) {
+			freezeVelocity();
 			return;
 		}
+		vel.mulAdd(force, getInvMass());
 	}
 	
 	/**
@@ -398,7 +600,7 @@ public class Body {
 	 * 
 	 * @param vel - the velocity to extend the current with.
 	 */
-	public void addVel(VectorXf vel) {
+	public void addVel(Vector2f vel) {
 		this.vel.add(vel);
 	}
 	
@@ -409,23 +611,40 @@ public class Body {
 	 * @param delta - the time passed since the previous frame.
 	 */
 	public void update(float delta) {
-		if(absolute) {
+		if(isAbsolute()) {
 			freezeVelocity();
 			return;
 		}
-		transform.pos.add(vel.clone().scale(delta));
+		transform.pos.mulAdd(vel, delta);
 	}
 	
 	/**
 	 * 
-	 * Checks whether or not a point is contained within this body.
+	 * Checks whether or not a point is contained within this body. Like the bounds, this follows the transform between updates.
 	 * 
 	 * @param x - the x coordinate of the point
 	 * @param y - the y coordinate of the point
 	 * @return true if the points is contained
 	 */
 	public boolean contains(float x, float y) {
-		return contains(new Vector2f(x, y));
+		if(store != null && shape != null) {
+			if(store.loaded)
+				return ShapeCollisions.contains(store, handle, x, y);
+
+			//The body may have been moved by hand since the last update, so the point is moved back along with it
+			return ShapeCollisions.contains(store, handle, x + (store.posX[handle] - transform.pos.x),
+					y + (store.posY[handle] - transform.pos.y));
+		}
+		return x > getMinX() && x < getMaxX() && y > getMinY() && y < getMaxY();
+	}
+	
+	//Shapes are kept fitted to their rotation by the store, boxes are as wide as their dimensions
+	private float halfWidth() {
+		return store != null && shape != null ? store.halfW[handle] : dim.x / 2;
+	}
+	
+	private float halfHeight() {
+		return store != null && shape != null ? store.halfH[handle] : dim.y / 2;
 	}
 	
 	/**
@@ -436,7 +655,6 @@ public class Body {
 	 * @return true if the point is contained
 	 */
 	public boolean contains(Vector2f point) {
-		return point.getX() > transform.pos.getX() - dim.getX() / 2 && point.getX() < transform.pos.getX() + dim.getX() / 2
-				&& point.getY() > transform.pos.getY() - dim.getY() / 2 && point.getY() < transform.pos.getY() + dim.getY() / 2;
+		return contains(point.getX(), point.getY());
 	}
 }
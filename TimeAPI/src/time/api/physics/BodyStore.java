@@ -0,0 +1,905 @@
+package time.api.physics;
+
+import java.nio.ByteBuffer;
+
+import time.api.math.FastMath;
+
+/**
+ * 
+ * Stores the simulation state of every body in a physics engine as parallel primitive arrays indexed by body handle.
+ * <p>
+ * While a body is part of a store, the {@link Body} object is merely a view over its slot. Positions, velocities and dimensions
+ * are gathered from the body's vectors once per update and written back at the end of it, so game code that works
+ * with the vectors directly keeps working, while everything in between runs as tight loops over the arrays.
+ * 
+ */
+
+public class BodyStore {
+
+	public static final int FLAG_TRIGGER = 1;
+	public static final int FLAG_ABSOLUTE = 1 << 1;
+	public static final int FLAG_SLEEPING = 1 << 2;
+	public static final int FLAG_CONTINUOUS = 1 << 3;
+
+	//The amount of bytes each body takes up in a snapshot
+	private static final int SNAPSHOT_BYTES = 88;
+
+	Body[] bodies;
+
+	float[] posX, posY;
+
+	//Where each body was at the start of the last step, for rendering in between steps
+	float[] prevX, prevY;
+	float[] velX, velY;
+	float[] halfW, halfH;
+
+	//The shape of each body, or null for a box the size of its dimensions, and the rotation the shape was last turned to
+	Shape[] shapes;
+	float[] rotation;
+	float[] cos, sin;
+	float[] invMass;
+	float[] epsilon;
+	float[] mu;
+	int[] flags;
+
+	//The collision layers of each body and the layers all of them may collide with
+	long[] layers;
+	long[] filter;
+
+	//1 for bodies that move, 0 for absolute and sleeping ones
+	float[] motion;
+
+	//How long each body has been resting, where it came to rest and the island it fell asleep with
+	float[] sleepTime;
+	float[] restX, restY;
+	int[] island;
+
+	//The next body of the island a sleeping body fell asleep with, every island linking its bodies in a ring
+	int[] ring;
+
+	//Bodies whose position, velocity, dimensions or flags were changed by reading a snapshot, until the engine updates their proxies
+	boolean[] restored;
+
+	//Absolute bodies moved or changed since the engine last woke the bodies resting against them, with their bounds before
+	Body[] moved;
+	float[] movedBounds;
+	int movedCount;
+
+	int size;
+
+	//Whether the arrays are ahead of the body vectors, from loading them until they are stored back
+	boolean loaded;
+
+	//Whether shapes are turned with StrictMath, which gives the same result on every machine
+	private boolean strict;
+
+	private int removed;
+	private int nextId;
+
+	//One row per layer, holding the layers it may collide with
+	private final long[] matrix;
+
+	/**
+	 * 
+	 * Constructs a new, empty body store.
+	 * 
+	 */
+	public BodyStore() {
+		this(64);
+	}
+
+	/**
+	 * 
+	 * Constructs a new body store with room for the specified amount of bodies.
+	 * 
+	 * @param capacity - the amount of bodies this store can hold before growing
+	 */
+	public BodyStore(int capacity) {
+		matrix = new long[CollisionLayers.MAX_LAYERS];
+		for(int i = 0; i < matrix.length; i++)
+			matrix[i] = -1L;
+
+		moved = new Body[8];
+		movedBounds = new float[moved.length * 4];
+
+		allocate(Math.max(capacity, 1));
+	}
+
+	/**
+	 * 
+	 * Adds a body to this store, after which the body reads and writes its state through the store.
+	 * 
+	 * @param body - the body to add
+	 * @return the handle of the body
+	 */
+	public int add(Body body) {
+		if(body.store != null)
+			throw new IllegalStateException("Body is already part of a store");
+
+		if(size == bodies.length)
+			allocate(size * 2);
+
+		int h = size++;
+		bodies[h] = body;
+
+		invMass[h] = body.invMass;
+		epsilon[h] = body.epsilon;
+		mu[h] = body.mu;
+		flags[h] = (body.trigger ? FLAG_TRIGGER : 0) | (body.absolute ? FLAG_ABSOLUTE : 0) | (body.continuous ? FLAG_CONTINUOUS : 0);
+		sleepTime[h] = 0;
+		island[h] = -1;
+		restored[h] = false;
+		setLayers(h, body.layers);
+		setShape(h, body.shape);
+
+		body.store = this;
+		body.handle = h;
+		body.id = nextId++;
+
+		load(h);
+		prevX[h] = posX[h];
+		prevY[h] = posY[h];
+		restX[h] = posX[h];
+		restY[h] = posY[h];
+
+		return h;
+	}
+
+	/**
+	 * 
+	 * Marks a body for removal. It is detached right away, but its slot is only reclaimed by the next {@link #compact()}.
+	 * 
+	 * @param body - the body to remove
+	 */
+	public void remove(Body body) {
+		if(body.store != this)
+			return;
+
+		int h = body.handle;
+
+		//The rest of its island would be left hanging on a body that is gone
+		wake(h);
+
+		body.invMass = invMass[h];
+		body.epsilon = epsilon[h];
+		body.mu = mu[h];
+		body.trigger = (flags[h] & FLAG_TRIGGER) != 0;
+		body.absolute = (flags[h] & FLAG_ABSOLUTE) != 0;
+		body.continuous = (flags[h] & FLAG_CONTINUOUS) != 0;
+		body.layers = layers[h];
+		body.transform.clearPrevious();
+
+		body.store = null;
+		body.handle = -1;
+
+		bodies[h] = null;
+		removed++;
+	}
+
+	/**
+	 * 
+	 * Reclaims the slots of removed bodies. The remaining bodies keep their relative order, but their handles may change.
+	 * 
+	 */
+	public void compact() {
+		if(removed == 0)
+			return;
+
+		//The rings of the sleeping islands are made of handles, so point them at where the bodies are moving to first
+		int n = 0;
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] != null)
+				bodies[i].handle = n++;
+		}
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] != null && (flags[i] & FLAG_SLEEPING) != 0)
+				ring[i] = bodies[ring[i]].handle;
+		}
+
+		n = 0;
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] == null)
+				continue;
+
+			if(i != n) {
+				bodies[n] = bodies[i];
+				posX[n] = posX[i];
+				posY[n] = posY[i];
+				prevX[n] = prevX[i];
+				prevY[n] = prevY[i];
+				velX[n] = velX[i];
+				velY[n] = velY[i];
+				halfW[n] = halfW[i];
+				halfH[n] = halfH[i];
+				invMass[n] = invMass[i];
+				epsilon[n] = epsilon[i];
+				mu[n] = mu[i];
+				flags[n] = flags[i];
+				layers[n] = layers[i];
+				filter[n] = filter[i];
+				motion[n] = motion[i];
+				sleepTime[n] = sleepTime[i];
+				restX[n] = restX[i];
+				restY[n] = restY[i];
+				island[n] = island[i];
+				ring[n] = ring[i];
+				restored[n] = restored[i];
+				shapes[n] = shapes[i];
+				rotation[n] = rotation[i];
+				cos[n] = cos[i];
+				sin[n] = sin[i];
+
+				bodies[n].handle = n;
+			}
+			n++;
+		}
+
+		for(int i = n; i < size; i++) {
+			bodies[i] = null;
+			shapes[i] = null;
+		}
+
+		size = n;
+		removed = 0;
+	}
+
+	/**
+	 * 
+	 * Gathers the position, velocity and dimensions of every body from its vectors.
+	 * Sleeping bodies whose vectors were changed since the last update are woken up along with their island.
+	 * 
+	 */
+	public void load() {
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] == null)
+				continue;
+
+			if((flags[i] & FLAG_SLEEPING) != 0 && changed(i))
+				wake(i);
+			else if((flags[i] & FLAG_ABSOLUTE) != 0 && changed(i))
+				moved(i);
+
+			load(i);
+		}
+		loaded = true;
+	}
+
+	/**
+	 * 
+	 * Writes the position and velocity of every body back to its vectors, along with the position it had at the start
+	 * of the last step.
+	 * 
+	 */
+	public void store() {
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] != null)
+				store(i);
+		}
+		loaded = false;
+	}
+
+	//Writes the position and velocity of a single body back to its vectors
+	void store(int h) {
+		Body b = bodies[h];
+		b.transform.pos.set(posX[h], posY[h]);
+		b.transform.setPrevious(prevX[h], prevY[h]);
+		b.vel.set(velX[h], velY[h]);
+	}
+
+	/**
+	 * 
+	 * Remembers the current position of every body as its previous one. This is called at the start of every step.
+	 * 
+	 */
+	public void savePositions() {
+		System.arraycopy(posX, 0, prevX, 0, size);
+		System.arraycopy(posY, 0, prevY, 0, size);
+	}
+
+	/**
+	 * 
+	 * Adds gravity to the velocity of every body that is not absolute.
+	 * 
+	 * @param gx - the gravity on the x-axis per second
+	 * @param gy - the gravity on the y-axis per second
+	 * @param delta - the length of the step
+	 */
+	public void integrateVelocities(float gx, float gy, float delta) {
+		float dx = gx * delta;
+		float dy = gy * delta;
+
+		for(int i = 0; i < size; i++) {
+			velX[i] = (velX[i] + dx) * motion[i];
+			velY[i] = (velY[i] + dy) * motion[i];
+		}
+	}
+
+	/**
+	 * 
+	 * Moves every body that is not absolute along its velocity.
+	 * 
+	 * @param delta - the length of the step
+	 */
+	public void integratePositions(float delta) {
+		for(int i = 0; i < size; i++) {
+			posX[i] += velX[i] * motion[i] * delta;
+			posY[i] += velY[i] * motion[i] * delta;
+		}
+	}
+
+	/**
+	 * 
+	 * Adds an impulse to the velocity of a body, scaled by its inverse mass. Absolute bodies are left frozen.
+	 * 
+	 * @param h - the handle of the body
+	 * @param x - the impulse on the x-axis
+	 * @param y - the impulse on the y-axis
+	 */
+	void push(int h, float x, float y) {
+		velX[h] = (velX[h] + x * invMass[h]) * motion[h];
+		velY[h] = (velY[h] + y * invMass[h]) * motion[h];
+	}
+
+	/**
+	 * 
+	 * Wakes up a body. If it is sleeping, every body that fell asleep in the same island is woken up with it, which takes as long
+	 * as the island is large.
+	 * 
+	 * @param h - the handle of the body
+	 */
+	public void wake(int h) {
+		if((flags[h] & FLAG_SLEEPING) == 0) {
+			sleepTime[h] = 0;
+			return;
+		}
+
+		int i = h;
+		do {
+			int next = ring[i];
+
+			flags[i] &= ~FLAG_SLEEPING;
+			motion[i] = (flags[i] & FLAG_ABSOLUTE) != 0 ? 0 : 1;
+			sleepTime[i] = 0;
+			restX[i] = posX[i];
+			restY[i] = posY[i];
+			island[i] = -1;
+
+			//The touches recorded before falling asleep are stale now
+			if(bodies[i] != null)
+				bodies[i]._clearTags();
+
+			i = next;
+		} while(i != h);
+	}
+
+	/**
+	 * 
+	 * Puts a body to sleep as part of the specified island. Its velocity is cleared and it stops moving until woken up.
+	 * 
+	 * @param h - the handle of the body
+	 * @param id - the island the body falls asleep with
+	 * @param first - the first body of the island to fall asleep, which may be the body itself
+	 */
+	void sleep(int h, int id, int first) {
+		flags[h] |= FLAG_SLEEPING;
+		motion[h] = 0;
+		velX[h] = 0;
+		velY[h] = 0;
+		island[h] = id;
+
+		if(first == h) {
+			ring[h] = h;
+		} else {
+			ring[h] = ring[first];
+			ring[first] = h;
+		}
+	}
+
+	/**
+	 * 
+	 * Records that an absolute body is about to be moved or changed, so the engine can wake the bodies resting against it
+	 * before the next step. Nothing is recorded for other bodies, which wake their own islands.
+	 * 
+	 * @param h - the handle of the body
+	 */
+	void moved(int h) {
+		if((flags[h] & FLAG_ABSOLUTE) == 0)
+			return;
+
+		if(movedCount == moved.length) {
+			Body[] b = new Body[movedCount * 2];
+			System.arraycopy(moved, 0, b, 0, movedCount);
+			moved = b;
+			float[] r = new float[b.length * 4];
+			System.arraycopy(movedBounds, 0, r, 0, movedCount * 4);
+			movedBounds = r;
+		}
+
+		int j = movedCount * 4;
+		movedBounds[j] = posX[h] - halfW[h];
+		movedBounds[j + 1] = posY[h] - halfH[h];
+		movedBounds[j + 2] = posX[h] + halfW[h];
+		movedBounds[j + 3] = posY[h] + halfH[h];
+		moved[movedCount++] = bodies[h];
+	}
+
+	/**
+	 * 
+	 * Checks whether or not a body is sleeping.
+	 * 
+	 * @param h - the handle of the body
+	 * @return true if the body is sleeping
+	 */
+	public boolean isSleeping(int h) {
+		return (flags[h] & FLAG_SLEEPING) != 0;
+	}
+
+	/**
+	 * 
+	 * Sets whether or not bodies on two layers may collide with each other.
+	 * 
+	 * @param a - the bit index of the first layer
+	 * @param b - the bit index of the second layer
+	 * @param collide - true if the layers should collide
+	 */
+	public void setLayerCollision(int a, int b, boolean collide) {
+		if(collide) {
+			matrix[a] |= 1L << b;
+			matrix[b] |= 1L << a;
+		} else {
+			matrix[a] &= ~(1L << b);
+			matrix[b] &= ~(1L << a);
+		}
+
+		for(int i = 0; i < size; i++)
+			filter[i] = filter(layers[i]);
+	}
+
+	/**
+	 * 
+	 * Checks whether or not bodies on two layers may collide with each other.
+	 * 
+	 * @param a - the bit index of the first layer
+	 * @param b - the bit index of the second layer
+	 * @return true if the layers collide
+	 */
+	public boolean canLayersCollide(int a, int b) {
+		return (matrix[a] & (1L << b)) != 0;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not two bodies are on layers that may collide with each other, that is whether every layer of
+	 * one body may collide with every layer of the other.
+	 * 
+	 * @param a - the handle of the first body
+	 * @param b - the handle of the second body
+	 * @return true if the bodies may collide
+	 */
+	public boolean canCollide(int a, int b) {
+		return (layers[b] & ~filter[a]) == 0;
+	}
+
+	/**
+	 * 
+	 * Computes a hash of the id, position, velocity and sleep state of every body in this store. Stores holding the same
+	 * bodies in the same order and state have the same hash.
+	 * 
+	 * @return the hash of the state of all bodies
+	 */
+	public long hash() {
+		long h = 0xCBF29CE484222325L;
+		for(int i = 0; i < size; i++) {
+			Body b = bodies[i];
+			if(b == null)
+				continue;
+
+			h = mix(h, b.id);
+			h = mix(h, Float.floatToIntBits(posX[i]));
+			h = mix(h, Float.floatToIntBits(posY[i]));
+			h = mix(h, Float.floatToIntBits(velX[i]));
+			h = mix(h, Float.floatToIntBits(velY[i]));
+			h = mix(h, flags[i] & FLAG_SLEEPING);
+		}
+		return h;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of bytes the bodies take up in a snapshot.
+	 * 
+	 * @return the size of the bodies in a snapshot
+	 */
+	int snapshotSize() {
+		return 8 + (size - removed) * SNAPSHOT_BYTES;
+	}
+
+	/**
+	 * 
+	 * Writes the state of every body to a snapshot. Each field is written for all bodies before the next one, so every field
+	 * is copied straight out of its array.
+	 * 
+	 * @param buffer - the buffer to write to
+	 */
+	void write(ByteBuffer buffer) {
+		//The rings are written as handles, which have to match the order the bodies are written in
+		compact();
+
+		int n = size;
+		int p = buffer.position();
+		buffer.putInt(p, nextId);
+		buffer.putInt(p + 4, n);
+		p += 8;
+
+		//The fields kept in the bodies themselves are gathered in one pass
+		for(int i = 0; i < n; i++) {
+			Body b = bodies[i];
+			buffer.putInt(p + i * 4, b.id);
+			buffer.putLong(p + n * 4 + i * 8, b.touchingLayers);
+		}
+		p += n * 12;
+
+		p = put(buffer, p, flags, n);
+		p = put(buffer, p, posX, n);
+		p = put(buffer, p, posY, n);
+		p = put(buffer, p, prevX, n);
+		p = put(buffer, p, prevY, n);
+		p = put(buffer, p, velX, n);
+		p = put(buffer, p, velY, n);
+		p = put(buffer, p, halfW, n);
+		p = put(buffer, p, halfH, n);
+		p = put(buffer, p, invMass, n);
+		p = put(buffer, p, epsilon, n);
+		p = put(buffer, p, mu, n);
+		p = put(buffer, p, sleepTime, n);
+		p = put(buffer, p, restX, n);
+		p = put(buffer, p, restY, n);
+		p = put(buffer, p, island, n);
+		p = put(buffer, p, ring, n);
+		p = put(buffer, p, layers, n);
+
+		buffer.position(p);
+	}
+
+	/**
+	 * 
+	 * Reads the state of every body from a snapshot. The store must hold the same bodies as when the snapshot was written,
+	 * otherwise nothing is read. Bodies whose position, velocity, dimensions or flags differ from the snapshot are marked in
+	 * {@link #restored}.
+	 * 
+	 * @param buffer - the buffer to read from
+	 * @param vectors - true to write the position and velocity of the marked bodies to their vectors
+	 */
+	void read(ByteBuffer buffer, boolean vectors) {
+		compact();
+
+		int start = buffer.position();
+		int next = buffer.getInt(start);
+		int n = buffer.getInt(start + 4);
+		if(n != size)
+			throw new IllegalStateException("The snapshot holds " + n + " bodies, but there are " + size);
+
+		int p = start + 8;
+		for(int i = 0; i < n; i++) {
+			int id = buffer.getInt(p + i * 4);
+			if(bodies[i].id != id)
+				throw new IllegalStateException("The body with id " + id + " in the snapshot is not part of this store");
+		}
+		p += n * 4;
+		int touching = p;
+		p += n * 8;
+
+		for(int i = 0; i < n; i++) {
+			int f = buffer.getInt(p + i * 4);
+			restored[i] = f != flags[i];
+			flags[i] = f;
+			motion[i] = (f & (FLAG_ABSOLUTE | FLAG_SLEEPING)) != 0 ? 0 : 1;
+		}
+		p += n * 4;
+
+		p = getChanged(buffer, p, posX, n);
+		p = getChanged(buffer, p, posY, n);
+		p = getChanged(buffer, p, prevX, n);
+		p = getChanged(buffer, p, prevY, n);
+		p = getChanged(buffer, p, velX, n);
+		p = getChanged(buffer, p, velY, n);
+
+		//Dimensions rarely change, so the work that goes with them is skipped when they did not.
+		//The bounds of a shape follow from its rotation, which the simulation does not change
+		for(int i = 0; i < n; i++) {
+			float w = buffer.getFloat(p + i * 4);
+			float h = buffer.getFloat(p + (n + i) * 4);
+			if(shapes[i] == null && (w != halfW[i] || h != halfH[i])) {
+				halfW[i] = w;
+				halfH[i] = h;
+				bodies[i].dim.set(w * 2, h * 2);
+				restored[i] = true;
+			}
+		}
+		p += n * 8;
+
+		p = get(buffer, p, invMass, n);
+		p = get(buffer, p, epsilon, n);
+		p = get(buffer, p, mu, n);
+		p = get(buffer, p, sleepTime, n);
+		p = get(buffer, p, restX, n);
+		p = get(buffer, p, restY, n);
+		p = get(buffer, p, island, n);
+		p = get(buffer, p, ring, n);
+
+		for(int i = 0; i < n; i++) {
+			long l = buffer.getLong(p + i * 8);
+			if(l != layers[i])
+				setLayers(i, l);
+		}
+		p += n * 8;
+
+		for(int i = 0; i < n; i++) {
+			bodies[i].touchingLayers = buffer.getLong(touching + i * 8);
+			if(vectors && restored[i])
+				store(i);
+		}
+
+		buffer.position(p);
+		nextId = next;
+	}
+
+	//Reads a field of every body, marking the bodies it changed as restored. The value is copied even when it compares equal,
+	//since 0 and -0 do but hash differently
+	private int getChanged(ByteBuffer buffer, int p, float[] a, int n) {
+		for(int i = 0; i < n; i++) {
+			float v = buffer.getFloat(p + i * 4);
+			if(v != a[i])
+				restored[i] = true;
+			a[i] = v;
+		}
+		return p + n * 4;
+	}
+
+	private static int put(ByteBuffer buffer, int p, float[] a, int n) {
+		for(int i = 0; i < n; i++)
+			buffer.putFloat(p + i * 4, a[i]);
+		return p + n * 4;
+	}
+
+	private static int put(ByteBuffer buffer, int p, int[] a, int n) {
+		for(int i = 0; i < n; i++)
+			buffer.putInt(p + i * 4, a[i]);
+		return p + n * 4;
+	}
+
+	private static int put(ByteBuffer buffer, int p, long[] a, int n) {
+		for(int i = 0; i < n; i++)
+			buffer.putLong(p + i * 8, a[i]);
+		return p + n * 8;
+	}
+
+	private static int get(ByteBuffer buffer, int p, float[] a, int n) {
+		for(int i = 0; i < n; i++)
+			a[i] = buffer.getFloat(p + i * 4);
+		return p + n * 4;
+	}
+
+	private static int get(ByteBuffer buffer, int p, int[] a, int n) {
+		for(int i = 0; i < n; i++)
+			a[i] = buffer.getInt(p + i * 4);
+		return p + n * 4;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of bodies in this store, including removed ones that have not been compacted yet.
+	 * 
+	 * @return the amount of slots in use
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * Returns the body with the specified handle.
+	 * 
+	 * @param h - the handle of the body
+	 * @return the body, or null if it has been removed
+	 */
+	public Body get(int h) {
+		return bodies[h];
+	}
+
+	void setFlag(int h, int flag, boolean value) {
+		//A body that stops or starts being absolute changes its island, and no longer holds up what rests on it
+		if((flag & FLAG_ABSOLUTE) != 0 && hasFlag(h, FLAG_ABSOLUTE) != value) {
+			moved(h);
+			wake(h);
+		}
+
+		if(value)
+			flags[h] |= flag;
+		else
+			flags[h] &= ~flag;
+
+		motion[h] = (flags[h] & (FLAG_ABSOLUTE | FLAG_SLEEPING)) != 0 ? 0 : 1;
+	}
+
+	void setLayers(int h, long mask) {
+		layers[h] = mask;
+		filter[h] = filter(mask);
+	}
+
+	boolean hasFlag(int h, int flag) {
+		return (flags[h] & flag) != 0;
+	}
+
+	private void load(int h) {
+		Body b = bodies[h];
+		float x = b.transform.pos.x;
+		float y = b.transform.pos.y;
+
+		//A body that was moved by hand jumps there instead of sliding over
+		if(posX[h] != x || posY[h] != y) {
+			prevX[h] = x;
+			prevY[h] = y;
+		}
+
+		posX[h] = x;
+		posY[h] = y;
+		velX[h] = b.vel.x;
+		velY[h] = b.vel.y;
+		if(shapes[h] == null) {
+			halfW[h] = b.dim.x * 0.5f;
+			halfH[h] = b.dim.y * 0.5f;
+		} else if(shapes[h].rotates() && b.transform.rotation != rotation[h]) {
+			turn(h, b.transform.rotation);
+		}
+		motion[h] = (flags[h] & (FLAG_ABSOLUTE | FLAG_SLEEPING)) != 0 ? 0 : 1;
+	}
+
+	private long filter(long mask) {
+		long f = -1L;
+		for(int i = 0; i < matrix.length; i++) {
+			if((mask & (1L << i)) != 0)
+				f &= matrix[i];
+		}
+		return f;
+	}
+
+	private static long mix(long h, int v) {
+		h = (h ^ (v & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	private boolean changed(int h) {
+		Body b = bodies[h];
+		return posX[h] != b.transform.pos.x || posY[h] != b.transform.pos.y
+				|| velX[h] != b.vel.x || velY[h] != b.vel.y
+				|| (shapes[h] == null ? halfW[h] != b.dim.x * 0.5f || halfH[h] != b.dim.y * 0.5f
+						: shapes[h].rotates() && rotation[h] != b.transform.rotation);
+	}
+
+	/**
+	 * 
+	 * Sets the shape of a body and fits its bounds around it.
+	 * 
+	 * @param h - the handle of the body
+	 * @param shape - the new shape, or null for a box the size of the body's dimensions
+	 */
+	void setShape(int h, Shape shape) {
+		shapes[h] = shape;
+		if(shape == null)
+			return;
+
+		if(shape.rotates()) {
+			turn(h, bodies[h] != null ? bodies[h].transform.rotation : 0);
+		} else {
+			rotation[h] = 0;
+			cos[h] = 1;
+			sin[h] = 0;
+			halfW[h] = shape.getHalfWidth(1, 0);
+			halfH[h] = shape.getHalfHeight(1, 0);
+		}
+	}
+
+	/**
+	 * 
+	 * Sets whether rotating shapes are turned with {@link StrictMath}, which gives bit for bit the same bounds on every machine.
+	 * Otherwise {@link Math} or the table of {@link FastMath} are used, which may differ between machines. Every rotating shape
+	 * is turned again, so bodies added before the change follow it as well.
+	 * 
+	 * @param strict - true to turn shapes with StrictMath
+	 */
+	void setStrict(boolean strict) {
+		this.strict = strict;
+		for(int i = 0; i < size; i++) {
+			if(bodies[i] != null && shapes[i] != null && shapes[i].rotates())
+				turn(i, rotation[i]);
+		}
+	}
+
+	//Turns the shape of a body to a rotation in degrees, refitting its bounds
+	private void turn(int h, float degrees) {
+		rotation[h] = degrees;
+		if(strict) {
+			double r = StrictMath.toRadians(degrees);
+			cos[h] = (float)StrictMath.cos(r);
+			sin[h] = (float)StrictMath.sin(r);
+		} else if(FastMath.isEnabled()) {
+			cos[h] = FastMath.cos(degrees);
+			sin[h] = FastMath.sin(degrees);
+		} else {
+			double r = Math.toRadians(degrees);
+			cos[h] = (float)Math.cos(r);
+			sin[h] = (float)Math.sin(r);
+		}
+		halfW[h] = shapes[h].getHalfWidth(cos[h], sin[h]);
+		halfH[h] = shapes[h].getHalfHeight(cos[h], sin[h]);
+	}
+
+	private void allocate(int n) {
+		Body[] b = new Body[n];
+		if(bodies != null)
+			System.arraycopy(bodies, 0, b, 0, size);
+		bodies = b;
+
+		posX = grow(posX, n);
+		posY = grow(posY, n);
+		prevX = grow(prevX, n);
+		prevY = grow(prevY, n);
+		velX = grow(velX, n);
+		velY = grow(velY, n);
+		halfW = grow(halfW, n);
+		halfH = grow(halfH, n);
+		invMass = grow(invMass, n);
+		epsilon = grow(epsilon, n);
+		mu = grow(mu, n);
+		motion = grow(motion, n);
+		sleepTime = grow(sleepTime, n);
+		restX = grow(restX, n);
+		restY = grow(restY, n);
+		rotation = grow(rotation, n);
+		cos = grow(cos, n);
+		sin = grow(sin, n);
+
+		Shape[] sh = new Shape[n];
+		if(shapes != null)
+			System.arraycopy(shapes, 0, sh, 0, size);
+		shapes = sh;
+
+		int[] is = new int[n];
+		if(island != null)
+			System.arraycopy(island, 0, is, 0, size);
+		island = is;
+
+		int[] r = new int[n];
+		if(ring != null)
+			System.arraycopy(ring, 0, r, 0, size);
+		ring = r;
+
+		int[] f = new int[n];
+		if(flags != null)
+			System.arraycopy(flags, 0, f, 0, size);
+		flags = f;
+
+		layers = grow(layers, n);
+		filter = grow(filter, n);
+
+		boolean[] re = new boolean[n];
+		if(restored != null)
+			System.arraycopy(restored, 0, re, 0, size);
+		restored = re;
+	}
+
+	private float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+
+	private long[] grow(long[] a, int n) {
+		long[] r = new long[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+}
@@ -0,0 +1,93 @@
+package time.api.physics;
+
+/**
+ * 
+ * An axis-aligned box, which ignores the rotation of its body. This is the shape of a body without a shape.
+ * 
+ */
+
+public class BoxShape extends Shape {
+
+	final float halfW, halfH;
+
+	/**
+	 * 
+	 * Constructs a new axis-aligned box.
+	 * 
+	 * @param w - the width of the box
+	 * @param h - the height of the box
+	 */
+	public BoxShape(float w, float h) {
+		this(BOX, w, h);
+	}
+
+	BoxShape(int type, float w, float h) {
+		super(type);
+		if(w < 0 || h < 0)
+			throw new IllegalArgumentException("Box dimensions cannot be negative: " + w + "x" + h);
+
+		this.halfW = w * 0.5f;
+		this.halfH = h * 0.5f;
+	}
+
+	@Override
+	public boolean rotates() {
+		return false;
+	}
+
+	@Override
+	public float getWidth() {
+		return halfW * 2;
+	}
+
+	@Override
+	public float getHeight() {
+		return halfH * 2;
+	}
+
+	@Override
+	float getHalfWidth(float cos, float sin) {
+		return halfW;
+	}
+
+	@Override
+	float getHalfHeight(float cos, float sin) {
+		return halfH;
+	}
+
+	@Override
+	float support(float dx, float dy) {
+		return halfW * Math.abs(dx) + halfH * Math.abs(dy);
+	}
+
+	@Override
+	int getAxisCount() {
+		return 2;
+	}
+
+	@Override
+	float getAxisX(int i) {
+		return i == 0 ? 1 : 0;
+	}
+
+	@Override
+	float getAxisY(int i) {
+		return i == 0 ? 0 : 1;
+	}
+
+	@Override
+	int getVertexCount() {
+		return 4;
+	}
+
+	//Counter-clockwise from the bottom left corner
+	@Override
+	float getVertexX(int i) {
+		return i == 0 || i == 3 ? -halfW : halfW;
+	}
+
+	@Override
+	float getVertexY(int i) {
+		return i < 2 ? -halfH : halfH;
+	}
+}
@@ -0,0 +1,91 @@
+package time.api.physics;
+
+/**
+ * 
+ * Finds the pairs of bodies that may be colliding, so that the physics engine only has to run the exact collision check on those.
+ * Different scenes favour different implementations, which is why the {@link PhysicsEngine} can be configured with any of them.
+ * <p>
+ * Queries and raycasts only read the broadphase, so they may run on several threads at once as long as no body is added,
+ * removed or updated meanwhile.
+ * 
+ */
+
+public interface Broadphase {
+	
+	/**
+	 * 
+	 * Adds a body to this broadphase.
+	 * 
+	 * @param body - the body to add
+	 */
+	public void add(Body body);
+	
+	/**
+	 * 
+	 * Removes a body from this broadphase.
+	 * 
+	 * @param body - the body to remove
+	 */
+	public void remove(Body body);
+	
+	/**
+	 * 
+	 * Notifies this broadphase that a body may have moved or changed size.
+	 * 
+	 * @param body - the body to update
+	 */
+	public void update(Body body);
+	
+	/**
+	 * 
+	 * Appends every pair of bodies with overlapping bounding boxes to the specified buffer. Each pair must be reported exactly once.
+	 * 
+	 * @param pairs - the buffer to append the pairs to
+	 */
+	public void findPairs(PairBuffer pairs);
+	
+	/**
+	 * 
+	 * Finds every body whose bounding box overlaps the specified region. Each body is reported at most once.
+	 * 
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int query(float minX, float minY, float maxX, float maxY, Body[] results);
+	
+	/**
+	 * 
+	 * Casts a ray and finds the closest body whose bounding box it hits.
+	 * The ray covers the points origin + direction * t for t between 0 and maxFraction.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param maxFraction - how far along the direction the ray reaches
+	 * @param mask - the layers to look for, bodies on none of them are ignored
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean raycast(float ox, float oy, float dx, float dy, float maxFraction, long mask, RaycastHit hit);
+	
+	/**
+	 * 
+	 * Brings whatever this broadphase keeps to speed up queries and raycasts in line with the updates made since the last
+	 * step, so that the queries that follow only have to read it. The physics engine calls this before it queries the broadphase
+	 * or hands it out.
+	 * 
+	 */
+	public default void prepareQueries() {}
+	
+	/**
+	 * 
+	 * Removes all bodies from this broadphase.
+	 * 
+	 */
+	public void clear();
+}
@@ -0,0 +1,66 @@
+package time.api.physics;
+
+/**
+ * 
+ * A circle centered on its body.
+ * 
+ */
+
+public class CircleShape extends Shape {
+
+	private final float radius;
+
+	/**
+	 * 
+	 * Constructs a new circle.
+	 * 
+	 * @param radius - the radius of the circle
+	 */
+	public CircleShape(float radius) {
+		super(CIRCLE);
+		if(radius < 0)
+			throw new IllegalArgumentException("Radius cannot be negative: " + radius);
+
+		this.radius = radius;
+	}
+
+	/**
+	 * 
+	 * Returns the radius of this circle.
+	 * 
+	 * @return the radius
+	 */
+	public float getRadius() {
+		return radius;
+	}
+
+	@Override
+	public boolean rotates() {
+		return false;
+	}
+
+	@Override
+	public float getWidth() {
+		return radius * 2;
+	}
+
+	@Override
+	public float getHeight() {
+		return radius * 2;
+	}
+
+	@Override
+	float getHalfWidth(float cos, float sin) {
+		return radius;
+	}
+
+	@Override
+	float getHalfHeight(float cos, float sin) {
+		return radius;
+	}
+
+	@Override
+	float support(float dx, float dy) {
+		return radius * (float)Math.sqrt(dx * dx + dy * dy);
+	}
+}
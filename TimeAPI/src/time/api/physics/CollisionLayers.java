@@ -0,0 +1,96 @@
+package time.api.physics;
+
+import java.util.HashMap;
+
+/**
+ * 
+ * Interns body tags as collision layers. Every tag is given a bit index the first time it is used, so the set of tags on a body
+ * fits in a single long and checking for a tag during the simulation is a mask test rather than a string lookup.
+ * At most {@value #MAX_LAYERS} different tags can be used.
+ * 
+ */
+
+public final class CollisionLayers {
+
+	public static final int MAX_LAYERS = 64;
+
+	//The layer every body is on
+	public static final String BODY = "body";
+
+	private static final HashMap<String, Integer> layers = new HashMap<>();
+	private static final String[] names = new String[MAX_LAYERS];
+
+	private static int count;
+
+	static {
+		getLayer(BODY);
+	}
+
+	private CollisionLayers() {}
+
+	/**
+	 * 
+	 * Returns the layer of the specified tag, registering it if it has not been used before.
+	 * 
+	 * @param tag - the tag to look up
+	 * @return the bit index of the tag
+	 */
+	public static synchronized int getLayer(String tag) {
+		Integer layer = layers.get(tag);
+		if(layer != null)
+			return layer;
+
+		if(count == MAX_LAYERS)
+			throw new IllegalStateException("Cannot register tag \"" + tag + "\", all " + MAX_LAYERS + " collision layers are in use");
+
+		names[count] = tag;
+		layers.put(tag, count);
+		return count++;
+	}
+
+	/**
+	 * 
+	 * Returns the layer of the specified tag without registering it.
+	 * 
+	 * @param tag - the tag to look up
+	 * @return the bit index of the tag, or -1 if the tag has never been used
+	 */
+	public static synchronized int findLayer(String tag) {
+		Integer layer = layers.get(tag);
+		return layer == null ? -1 : layer;
+	}
+
+	/**
+	 * 
+	 * Returns the mask of the specified tag, registering it if it has not been used before.
+	 * 
+	 * @param tag - the tag to look up
+	 * @return a mask with only the bit of the tag set
+	 */
+	public static long getMask(String tag) {
+		return 1L << getLayer(tag);
+	}
+
+	/**
+	 * 
+	 * Returns the mask of the specified tag without registering it.
+	 * 
+	 * @param tag - the tag to look up
+	 * @return a mask with only the bit of the tag set, or 0 if the tag has never been used
+	 */
+	public static long findMask(String tag) {
+		int layer = findLayer(tag);
+		return layer < 0 ? 0 : 1L << layer;
+	}
+
+	/**
+	 * 
+	 * Returns the tag of the specified layer.
+	 * 
+	 * @param layer - the bit index of the layer
+	 * @return the tag of the layer, or null if no tag has been given that layer
+	 */
+	public static synchronized String getName(int layer) {
+		return names[layer];
+	}
+}
@@ -0,0 +1,154 @@
+package time.api.physics;
+
+/**
+ * 
+ * A reusable list of contacts between bodies, stored as parallel primitive arrays.
+ * Bodies are referred to by their handle in the {@link BodyStore}. The arrays only ever grow,
+ * so a buffer that is cleared and refilled every step stops allocating once it is large enough.
+ * 
+ */
+
+public class ContactBuffer {
+
+	//The contact only registers the touch and is never solved
+	public static final int TRIGGER = 1;
+
+	int[] bodyA, bodyB;
+	float[] normalX, normalY;
+	float[] depth;
+
+	//How far apart the centers of the bodies are along the normal when they just touch
+	float[] reach;
+	int[] flags;
+
+	//The slot of each contact in the contact manager
+	int[] cached;
+
+	int size;
+
+	/**
+	 * 
+	 * Constructs a new contact buffer with a default capacity.
+	 * 
+	 */
+	public ContactBuffer() {
+		this(64);
+	}
+
+	/**
+	 * 
+	 * Constructs a new contact buffer with the specified initial capacity.
+	 * 
+	 * @param capacity - the amount of contacts this buffer can hold before growing
+	 */
+	public ContactBuffer(int capacity) {
+		allocate(Math.max(capacity, 1));
+	}
+
+	/**
+	 * 
+	 * Appends a contact to this buffer. The normal points from body b towards body a.
+	 * 
+	 * @param a - the handle of the first body
+	 * @param b - the handle of the second body
+	 * @param nx - the x component of the contact normal
+	 * @param ny - the y component of the contact normal
+	 * @param d - the penetration depth along the normal
+	 * @param r - the distance between the centers along the normal at which the bodies just touch
+	 * @param f - the contact flags
+	 * @return the index of the new contact
+	 */
+	public int add(int a, int b, float nx, float ny, float d, float r, int f) {
+		if(size == bodyA.length)
+			allocate(size * 2);
+
+		int i = size++;
+		bodyA[i] = a;
+		bodyB[i] = b;
+		normalX[i] = nx;
+		normalY[i] = ny;
+		depth[i] = d;
+		reach[i] = r;
+		flags[i] = f;
+		return i;
+	}
+
+	/**
+	 * 
+	 * Appends every contact of another buffer to this one, keeping their order.
+	 * 
+	 * @param other - the buffer to copy the contacts from
+	 */
+	public void addAll(ContactBuffer other) {
+		int n = other.size;
+		if(n == 0)
+			return;
+
+		if(size + n > bodyA.length)
+			allocate(Math.max(size * 2, size + n));
+
+		System.arraycopy(other.bodyA, 0, bodyA, size, n);
+		System.arraycopy(other.bodyB, 0, bodyB, size, n);
+		System.arraycopy(other.normalX, 0, normalX, size, n);
+		System.arraycopy(other.normalY, 0, normalY, size, n);
+		System.arraycopy(other.depth, 0, depth, size, n);
+		System.arraycopy(other.reach, 0, reach, size, n);
+		System.arraycopy(other.flags, 0, flags, size, n);
+		size += n;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of contacts in this buffer.
+	 * 
+	 * @return the amount of contacts in this buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * Removes all contacts from this buffer without releasing its memory.
+	 * 
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not the specified contact only registers a touch.
+	 * 
+	 * @param i - the index of the contact
+	 * @return true if the contact involves a trigger
+	 */
+	public boolean isTrigger(int i) {
+		return (flags[i] & TRIGGER) != 0;
+	}
+
+	private void allocate(int n) {
+		bodyA = grow(bodyA, n);
+		bodyB = grow(bodyB, n);
+		flags = grow(flags, n);
+		cached = grow(cached, n);
+		normalX = grow(normalX, n);
+		normalY = grow(normalY, n);
+		depth = grow(depth, n);
+		reach = grow(reach, n);
+	}
+
+	private int[] grow(int[] a, int n) {
+		int[] r = new int[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+
+	private float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+}
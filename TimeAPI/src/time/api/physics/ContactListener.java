@@ -0,0 +1,40 @@
+package time.api.physics;
+
+/**
+ * 
+ * Receives the contact events of a physics engine. Events are fired at the end of every step, once all contacts of that step
+ * are known, so listeners only have to react when something changes instead of polling every body.
+ * Only the events of interest need to be implemented.
+ * 
+ */
+
+public interface ContactListener {
+
+	/**
+	 * 
+	 * Called when two bodies start touching.
+	 * 
+	 * @param a - the first body
+	 * @param b - the second body
+	 */
+	public default void beginContact(Body a, Body b) {}
+
+	/**
+	 * 
+	 * Called every step two bodies keep touching after the step they started touching. It is not called while the contact
+	 * is only being kept because one of the bodies is sleeping.
+	 * 
+	 * @param a - the first body
+	 * @param b - the second body
+	 */
+	public default void stayContact(Body a, Body b) {}
+
+	/**
+	 * 
+	 * Called when two bodies stop touching, including when one of them is removed from the physics engine.
+	 * 
+	 * @param a - the first body
+	 * @param b - the second body
+	 */
+	public default void endContact(Body a, Body b) {}
+}
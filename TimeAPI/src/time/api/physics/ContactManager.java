@@ -0,0 +1,598 @@
+package time.api.physics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 
+ * Keeps track of the contacts between bodies across steps. Every touching pair is stored under a key packed from the ids
+ * of both bodies, so a contact found in one step is matched with the same contact in the next one. This is what turns
+ * the contacts of a step into begin, stay and end events, and what lets the solver reuse data from earlier steps.
+ * <p>
+ * The persistent contacts are kept in dense arrays with an open addressed index on top, so matching a step's contacts
+ * does not create any objects once the arrays are large enough.
+ * 
+ */
+
+public class ContactManager {
+
+	private static final int BEGIN = 1;
+	private static final int STAY = 2;
+	private static final int END = 3;
+
+	//Kept without events while the bodies rest
+	private static final int RESTING = 4;
+
+	//The amount of bytes each contact takes up in a snapshot
+	private static final int SNAPSHOT_BYTES = 44;
+
+	//The lowest dot product of the old and new normal for impulses to carry over, the normal may turn by about 8 degrees
+	private static final float SAME_NORMAL = 0.99f;
+
+	//Index from pair key to dense slot, a key of 0 marks an empty entry
+	private long[] keys;
+	private int[] index;
+
+	private long[] pairKey;
+	private Body[] bodyA, bodyB;
+	private float[] normalX, normalY;
+	private float[] depth;
+	private int[] flags;
+	private int[] state;
+
+	//The impulses the solver applied in the last step, used as its starting point in the next one
+	float[] normalImpulse, tangentImpulse;
+
+	private int size;
+
+	//The contacts written to the last snapshot, which leaves out those with bodies of another store
+	private int[] selected;
+
+	private final ArrayList<ContactListener> listeners;
+
+	/**
+	 * 
+	 * Constructs a new, empty contact manager.
+	 * 
+	 */
+	public ContactManager() {
+		keys = new long[128];
+		index = new int[128];
+		allocate(64);
+		selected = new int[64];
+		listeners = new ArrayList<>();
+	}
+
+	/**
+	 * 
+	 * Matches the contacts of a step with the persistent contacts. New pairs begin, known pairs stay and pairs that were not
+	 * found end, unless one of their bodies is sleeping. The index of each contact's persistent slot is written to
+	 * {@link ContactBuffer#cached}.
+	 * 
+	 * @param c - the contacts of the step
+	 * @param s - the bodies the contacts refer to
+	 */
+	void update(ContactBuffer c, BodyStore s) {
+		for(int i = 0; i < size; i++)
+			state[i] = END;
+
+		for(int i = 0; i < c.size; i++) {
+			Body a = s.bodies[c.bodyA[i]];
+			Body b = s.bodies[c.bodyB[i]];
+			long key = key(a.id, b.id);
+
+			float nx = c.normalX[i];
+			float ny = c.normalY[i];
+
+			int slot = find(key);
+			if(slot < 0) {
+				slot = insert(key);
+				state[slot] = BEGIN;
+				normalImpulse[slot] = 0;
+				tangentImpulse[slot] = 0;
+			} else {
+				state[slot] = STAY;
+
+				//Impulses only carry over while the bodies touch along about the same normal, the order of the bodies may flip
+				float flip = bodyA[slot] == a ? 1 : -1;
+				if((normalX[slot] * nx + normalY[slot] * ny) * flip <= SAME_NORMAL) {
+					normalImpulse[slot] = 0;
+					tangentImpulse[slot] = 0;
+				}
+			}
+
+			bodyA[slot] = a;
+			bodyB[slot] = b;
+			normalX[slot] = nx;
+			normalY[slot] = ny;
+			depth[slot] = c.depth[i];
+			flags[slot] = c.flags[i];
+			c.cached[i] = slot;
+		}
+
+		//Resting bodies are not tested against each other, so their contacts are kept as they were, and so are the layers they
+		//touch, which absolute bodies lose every step
+		for(int i = 0; i < size; i++) {
+			if(state[i] != END)
+				continue;
+
+			Body a = bodyA[i];
+			Body b = bodyB[i];
+			if(a.store == s && b.store == s && (a.isSleeping() || b.isSleeping())) {
+				state[i] = RESTING;
+				a.addTouching(b);
+				b.addTouching(a);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Fires the events of the last update to every listener and forgets the contacts that ended.
+	 * 
+	 */
+	void dispatch() {
+		if(!listeners.isEmpty()) {
+			for(int i = 0; i < size; i++) {
+				for(int l = 0; l < listeners.size(); l++) {
+					ContactListener listener = listeners.get(l);
+					switch(state[i]) {
+					case BEGIN:
+						listener.beginContact(bodyA[i], bodyB[i]);
+						break;
+					case STAY:
+						listener.stayContact(bodyA[i], bodyB[i]);
+						break;
+					case END:
+						listener.endContact(bodyA[i], bodyB[i]);
+						break;
+					}
+				}
+			}
+		}
+
+		for(int i = size - 1; i >= 0; i--) {
+			if(state[i] == END)
+				remove(i);
+		}
+	}
+
+	/**
+	 * 
+	 * Adds a listener that is notified of contact events.
+	 * 
+	 * @param listener - the listener to add
+	 */
+	public void addListener(ContactListener listener) {
+		if(listener != null && !listeners.contains(listener))
+			listeners.add(listener);
+	}
+
+	/**
+	 * 
+	 * Removes a contact listener.
+	 * 
+	 * @param listener - the listener to remove
+	 */
+	public void removeListener(ContactListener listener) {
+		listeners.remove(listener);
+	}
+
+	boolean hasListeners() {
+		return !listeners.isEmpty();
+	}
+
+	/**
+	 * 
+	 * Checks whether or not two bodies were touching during the last step.
+	 * 
+	 * @param a - the first body
+	 * @param b - the second body
+	 * @return true if the bodies are touching
+	 */
+	public boolean isTouching(Body a, Body b) {
+		if(a.id < 0 || b.id < 0 || a.id == b.id)
+			return false;
+		int slot = find(key(a.id, b.id));
+		return slot >= 0 && state[slot] != END;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of persistent contacts.
+	 * 
+	 * @return the amount of contacts
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * Returns the first body of the specified contact.
+	 * 
+	 * @param i - the index of the contact
+	 * @return the first body of the contact
+	 */
+	public Body getBodyA(int i) {
+		return bodyA[i];
+	}
+
+	/**
+	 * 
+	 * Returns the second body of the specified contact.
+	 * 
+	 * @param i - the index of the contact
+	 * @return the second body of the contact
+	 */
+	public Body getBodyB(int i) {
+		return bodyB[i];
+	}
+
+	/**
+	 * 
+	 * Returns the x component of the normal of the specified contact, pointing from the second body towards the first.
+	 * 
+	 * @param i - the index of the contact
+	 * @return the x component of the contact normal
+	 */
+	public float getNormalX(int i) {
+		return normalX[i];
+	}
+
+	/**
+	 * 
+	 * Returns the y component of the normal of the specified contact, pointing from the second body towards the first.
+	 * 
+	 * @param i - the index of the contact
+	 * @return the y component of the contact normal
+	 */
+	public float getNormalY(int i) {
+		return normalY[i];
+	}
+
+	/**
+	 * 
+	 * Returns how far the bodies of the specified contact overlap along its normal.
+	 * 
+	 * @param i - the index of the contact
+	 * @return the penetration depth of the contact
+	 */
+	public float getDepth(int i) {
+		return depth[i];
+	}
+
+	/**
+	 * 
+	 * Checks whether or not the specified contact involves a trigger.
+	 * 
+	 * @param i - the index of the contact
+	 * @return true if the contact only registers a touch
+	 */
+	public boolean isTrigger(int i) {
+		return (flags[i] & ContactBuffer.TRIGGER) != 0;
+	}
+
+	/**
+	 * 
+	 * Forgets every contact without firing any events.
+	 * 
+	 */
+	public void clear() {
+		for(int i = 0; i < size; i++) {
+			bodyA[i] = null;
+			bodyB[i] = null;
+		}
+		size = 0;
+		for(int i = 0; i < keys.length; i++)
+			keys[i] = 0;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of bytes the contacts between bodies of the specified store take up in a snapshot.
+	 * 
+	 * @param s - the bodies of the snapshot
+	 * @return the size of the contacts in a snapshot
+	 */
+	int snapshotSize(BodyStore s) {
+		return 4 + select(s) * SNAPSHOT_BYTES;
+	}
+
+	//Lists the contacts between bodies of the specified store, which are the ones written to its snapshots
+	private int select(BodyStore s) {
+		if(selected.length < size)
+			selected = new int[pairKey.length];
+
+		int n = 0;
+		for(int i = 0; i < size; i++) {
+			if(bodyA[i].store == s && bodyB[i].store == s)
+				selected[n++] = i;
+		}
+		return n;
+	}
+
+	/**
+	 * 
+	 * Writes every contact between bodies of the specified store to a snapshot, along with the impulses the solver starts from.
+	 * The bodies are referred to by handle, so the store must be compacted. Like the bodies, each field is written for all
+	 * contacts before the next one.
+	 * 
+	 * @param buffer - the buffer to write to
+	 * @param s - the bodies of the snapshot
+	 */
+	void write(ByteBuffer buffer, BodyStore s) {
+		int n = select(s);
+		int p = buffer.position();
+		buffer.putInt(p, n);
+		p += 4;
+
+		for(int k = 0; k < n; k++)
+			buffer.putLong(p + k * 8, pairKey[selected[k]]);
+		p += n * 8;
+		for(int k = 0; k < n; k++) {
+			int i = selected[k];
+			buffer.putInt(p + k * 8, bodyA[i].handle);
+			buffer.putInt(p + k * 8 + 4, bodyB[i].handle);
+		}
+		p += n * 8;
+
+		p = put(buffer, p, normalX, n);
+		p = put(buffer, p, normalY, n);
+		p = put(buffer, p, depth, n);
+		p = put(buffer, p, normalImpulse, n);
+		p = put(buffer, p, tangentImpulse, n);
+		p = put(buffer, p, flags, n);
+		p = put(buffer, p, state, n);
+
+		buffer.position(p);
+	}
+
+	/**
+	 * 
+	 * Replaces every contact with the ones of a snapshot, without firing any events.
+	 * 
+	 * @param buffer - the buffer to read from
+	 * @param s - the bodies the snapshot was read into
+	 */
+	void read(ByteBuffer buffer, BodyStore s) {
+		int p = buffer.position();
+		int n = buffer.getInt(p);
+		p += 4;
+
+		//Contacts past the new end would keep their bodies from being collected
+		for(int i = n; i < size; i++) {
+			bodyA[i] = null;
+			bodyB[i] = null;
+		}
+
+		while(pairKey.length < n)
+			allocate(pairKey.length * 2);
+
+		//A rollback usually lands on the same contacts in the same order, which the index already points to
+		boolean same = n == size;
+		for(int i = 0; i < n; i++) {
+			long key = buffer.getLong(p + i * 8);
+			same &= key == pairKey[i];
+			pairKey[i] = key;
+		}
+		p += n * 8;
+		size = n;
+
+		//The store was checked to hold the same bodies in the same order, so the handles still match
+		for(int i = 0; i < n; i++) {
+			bodyA[i] = s.bodies[buffer.getInt(p + i * 8)];
+			bodyB[i] = s.bodies[buffer.getInt(p + i * 8 + 4)];
+		}
+		p += n * 8;
+
+		p = get(buffer, p, normalX, n);
+		p = get(buffer, p, normalY, n);
+		p = get(buffer, p, depth, n);
+		p = get(buffer, p, normalImpulse, n);
+		p = get(buffer, p, tangentImpulse, n);
+		p = get(buffer, p, flags, n);
+		p = get(buffer, p, state, n);
+
+		buffer.position(p);
+
+		if(!same) {
+			//Keep the load factor at or below one half
+			int length = keys.length;
+			while(n * 2 > length)
+				length *= 2;
+			reindex(length);
+		}
+	}
+
+	//Writes a field of the selected contacts, which are usually all of them
+	private int put(ByteBuffer buffer, int p, float[] a, int n) {
+		if(n == size) {
+			for(int i = 0; i < n; i++)
+				buffer.putFloat(p + i * 4, a[i]);
+		} else {
+			for(int k = 0; k < n; k++)
+				buffer.putFloat(p + k * 4, a[selected[k]]);
+		}
+		return p + n * 4;
+	}
+
+	private int put(ByteBuffer buffer, int p, int[] a, int n) {
+		if(n == size) {
+			for(int i = 0; i < n; i++)
+				buffer.putInt(p + i * 4, a[i]);
+		} else {
+			for(int k = 0; k < n; k++)
+				buffer.putInt(p + k * 4, a[selected[k]]);
+		}
+		return p + n * 4;
+	}
+
+	private static int get(ByteBuffer buffer, int p, float[] a, int n) {
+		for(int i = 0; i < n; i++)
+			a[i] = buffer.getFloat(p + i * 4);
+		return p + n * 4;
+	}
+
+	private static int get(ByteBuffer buffer, int p, int[] a, int n) {
+		for(int i = 0; i < n; i++)
+			a[i] = buffer.getInt(p + i * 4);
+		return p + n * 4;
+	}
+
+	//Packs the ids of two bodies into a key that does not depend on their order
+	static long key(int a, int b) {
+		int lo = Math.min(a, b);
+		int hi = Math.max(a, b);
+		return ((long)lo << 32) | (hi & 0xFFFFFFFFL);
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+
+		while(keys[i] != 0) {
+			if(keys[i] == key)
+				return index[i];
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int insert(long key) {
+		//Keep the load factor at or below one half
+		if((size + 1) * 2 > keys.length)
+			growIndex();
+		if(size == pairKey.length)
+			allocate(size * 2);
+
+		int slot = size++;
+		pairKey[slot] = key;
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while(keys[i] != 0)
+			i = (i + 1) & mask;
+		keys[i] = key;
+		index[i] = slot;
+
+		return slot;
+	}
+
+	private void remove(int slot) {
+		unlink(pairKey[slot]);
+
+		//Move the last contact into the gap
+		int last = --size;
+		if(slot != last) {
+			pairKey[slot] = pairKey[last];
+			bodyA[slot] = bodyA[last];
+			bodyB[slot] = bodyB[last];
+			normalX[slot] = normalX[last];
+			normalY[slot] = normalY[last];
+			depth[slot] = depth[last];
+			flags[slot] = flags[last];
+			state[slot] = state[last];
+			normalImpulse[slot] = normalImpulse[last];
+			tangentImpulse[slot] = tangentImpulse[last];
+			index[locate(pairKey[slot])] = slot;
+		}
+		bodyA[last] = null;
+		bodyB[last] = null;
+	}
+
+	private int locate(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while(keys[i] != key)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	//Removes a key from the index, shifting back the entries that probed past it
+	private void unlink(long key) {
+		int mask = keys.length - 1;
+		int i = locate(key);
+		int j = i;
+
+		while(true) {
+			j = (j + 1) & mask;
+			if(keys[j] == 0)
+				break;
+
+			int k = hash(keys[j]) & mask;
+			if(i <= j ? (i < k && k <= j) : (i < k || k <= j))
+				continue;
+
+			keys[i] = keys[j];
+			index[i] = index[j];
+			i = j;
+		}
+		keys[i] = 0;
+	}
+
+	private void growIndex() {
+		reindex(keys.length * 2);
+	}
+
+	//Indexes every contact anew in an index of the specified length
+	private void reindex(int length) {
+		if(length != keys.length) {
+			keys = new long[length];
+			index = new int[length];
+		} else {
+			Arrays.fill(keys, 0);
+		}
+
+		int mask = keys.length - 1;
+		for(int s = 0; s < size; s++) {
+			int i = hash(pairKey[s]) & mask;
+			while(keys[i] != 0)
+				i = (i + 1) & mask;
+			keys[i] = pairKey[s];
+			index[i] = s;
+		}
+	}
+
+	private void allocate(int n) {
+		long[] k = new long[n];
+		Body[] a = new Body[n];
+		Body[] b = new Body[n];
+		if(pairKey != null) {
+			System.arraycopy(pairKey, 0, k, 0, size);
+			System.arraycopy(bodyA, 0, a, 0, size);
+			System.arraycopy(bodyB, 0, b, 0, size);
+		}
+		pairKey = k;
+		bodyA = a;
+		bodyB = b;
+
+		normalX = grow(normalX, n);
+		normalY = grow(normalY, n);
+		depth = grow(depth, n);
+		flags = grow(flags, n);
+		state = grow(state, n);
+		normalImpulse = grow(normalImpulse, n);
+		tangentImpulse = grow(tangentImpulse, n);
+	}
+
+	private float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+
+	private int[] grow(int[] a, int n) {
+		int[] r = new int[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, size);
+		return r;
+	}
+
+	private static int hash(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key ^ (key >>> 32));
+	}
+}
@@ -0,0 +1,490 @@
+package time.api.physics;
+
+import time.api.math.FastMath;
+
+/**
+ * 
+ * Resolves the contacts found by the physics engine with sequential impulses.
+ * <p>
+ * Every contact is a constraint that keeps its bodies from moving into each other, with friction along the contact tangent.
+ * The velocity iterations repeatedly apply the impulse each constraint needs given what the others have done so far, which
+ * converges towards a solution for the whole pile rather than for each contact on its own. The impulses of the previous step
+ * are applied up front, so a resting pile starts each step close to its solution. After the bodies have moved, the position
+ * iterations push apart whatever still overlaps, without adding any velocity.
+ * 
+ */
+
+public class ContactSolver {
+
+	public static final int DEFAULT_VELOCITY_ITERATIONS = 8;
+	public static final int DEFAULT_POSITION_ITERATIONS = 3;
+
+	public static final float DEFAULT_POSITION_CORRECTION = 0.2f;
+	public static final float DEFAULT_SLOP = 0.1f;
+	public static final float DEFAULT_MAX_CORRECTION = 4.0f;
+	public static final float DEFAULT_RESTITUTION_THRESHOLD = 5.0f;
+
+	private int velocityIterations = DEFAULT_VELOCITY_ITERATIONS;
+	private int positionIterations = DEFAULT_POSITION_ITERATIONS;
+	private boolean warmStarting = true;
+
+	private float positionCorrection = DEFAULT_POSITION_CORRECTION;
+	private float slop = DEFAULT_SLOP;
+	private float maxCorrection = DEFAULT_MAX_CORRECTION;
+	private float restitutionThreshold = DEFAULT_RESTITUTION_THRESHOLD;
+
+	//One entry per solid contact of the current step
+	private int[] contact;
+	private float[] massA, massB;
+	private float[] normalMass;
+	private float[] friction;
+	private float[] bias;
+	private float[] normalImpulse, tangentImpulse;
+
+	private int size;
+
+	//One entry per contact with static geometry, which cannot be moved and is not part of the body store
+	private int[] staticBody;
+	private float[] staticNormalX, staticNormalY;
+	private float[] staticPlane;
+	private float[] staticMass;
+	private float[] staticFriction;
+	private float[] staticBias;
+	private float[] staticNormalImpulse, staticTangentImpulse;
+
+	private int staticSize;
+
+	/**
+	 * 
+	 * Constructs a new contact solver with the default settings.
+	 * 
+	 */
+	public ContactSolver() {
+		allocate(64);
+		allocateStatic(16);
+	}
+
+	/**
+	 * 
+	 * Corrects the velocities of the bodies so that no contact is closing. The resulting impulses are handed to the contact
+	 * manager for the next step.
+	 * 
+	 * @param s - the bodies of the step
+	 * @param c - the contacts of the step
+	 * @param m - the contact manager holding the impulses of earlier steps
+	 */
+	void solveVelocities(BodyStore s, ContactBuffer c, ContactManager m) {
+		prepare(s, c, m);
+
+		for(int i = 0; i < velocityIterations; i++) {
+			solveVelocityConstraints(s, c);
+			solveStaticVelocityConstraints(s);
+		}
+
+		for(int i = 0; i < size; i++) {
+			int slot = c.cached[contact[i]];
+			m.normalImpulse[slot] = normalImpulse[i];
+			m.tangentImpulse[slot] = tangentImpulse[i];
+		}
+	}
+
+	/**
+	 * 
+	 * Pushes apart the bodies that still overlap once they have been moved. This must follow
+	 * {@link #solveVelocities(BodyStore, ContactBuffer, ContactManager)} within the same step.
+	 * 
+	 * @param s - the bodies of the step
+	 * @param c - the contacts of the step
+	 */
+	void solvePositions(BodyStore s, ContactBuffer c) {
+		for(int i = 0; i < positionIterations; i++) {
+			boolean solved = solvePositionConstraints(s, c);
+			if(solveStaticPositionConstraints(s) && solved)
+				break;
+		}
+	}
+
+	/**
+	 * 
+	 * Adds a contact between a body and static geometry for the current step. The geometry is a half plane: the body is kept on
+	 * the side the normal points to, with its nearest edge no closer than the plane.
+	 * 
+	 * @param s - the bodies of the step
+	 * @param a - the handle of the body
+	 * @param nx - the x component of the normal, pointing from the geometry to the body
+	 * @param ny - the y component of the normal, pointing from the geometry to the body
+	 * @param plane - the distance of the surface from the origin along the normal
+	 * @param friction - the friction of the geometry
+	 * @param epsilon - the bounciness of the geometry
+	 */
+	void addStaticContact(BodyStore s, int a, float nx, float ny, float plane, float friction, float epsilon) {
+		float mA = s.invMass[a] * s.motion[a];
+		if(mA == 0)
+			return;
+
+		if(staticSize == staticBody.length)
+			allocateStatic(staticSize * 2);
+
+		int j = staticSize++;
+		staticBody[j] = a;
+		staticNormalX[j] = nx;
+		staticNormalY[j] = ny;
+		staticPlane[j] = plane;
+		staticMass[j] = mA;
+		staticFriction[j] = Math.min(s.mu[a], friction);
+
+		float vn = s.velX[a] * nx + s.velY[a] * ny;
+		staticBias[j] = vn < -restitutionThreshold ? -Math.min(s.epsilon[a], epsilon) * vn : 0;
+
+		staticNormalImpulse[j] = 0;
+		staticTangentImpulse[j] = 0;
+	}
+
+	/**
+	 * 
+	 * Forgets the contacts with static geometry. This must be called at the end of every step that added any.
+	 * 
+	 */
+	void clearStaticContacts() {
+		staticSize = 0;
+	}
+
+	private void prepare(BodyStore s, ContactBuffer c, ContactManager m) {
+		size = 0;
+		if(contact.length < c.size)
+			allocate(c.bodyA.length);
+
+		for(int i = 0; i < c.size; i++) {
+			if(c.isTrigger(i))
+				continue;
+
+			int a = c.bodyA[i];
+			int b = c.bodyB[i];
+
+			//Absolute and sleeping bodies cannot be moved
+			float mA = s.invMass[a] * s.motion[a];
+			float mB = s.invMass[b] * s.motion[b];
+			if(mA + mB == 0)
+				continue;
+
+			int j = size++;
+			contact[j] = i;
+			massA[j] = mA;
+			massB[j] = mB;
+			normalMass[j] = 1 / (mA + mB);
+			friction[j] = Math.min(s.mu[a], s.mu[b]);
+
+			float nx = c.normalX[i];
+			float ny = c.normalY[i];
+
+			//Bodies that hit each other hard enough bounce off
+			float vn = (s.velX[a] - s.velX[b]) * nx + (s.velY[a] - s.velY[b]) * ny;
+			bias[j] = vn < -restitutionThreshold ? -Math.min(s.epsilon[a], s.epsilon[b]) * vn : 0;
+
+			if(warmStarting) {
+				int slot = c.cached[i];
+				normalImpulse[j] = m.normalImpulse[slot];
+				tangentImpulse[j] = m.tangentImpulse[slot];
+
+				float px = normalImpulse[j] * nx - tangentImpulse[j] * ny;
+				float py = normalImpulse[j] * ny + tangentImpulse[j] * nx;
+				s.velX[a] += px * mA;
+				s.velY[a] += py * mA;
+				s.velX[b] -= px * mB;
+				s.velY[b] -= py * mB;
+			} else {
+				normalImpulse[j] = 0;
+				tangentImpulse[j] = 0;
+			}
+		}
+	}
+
+	private void solveVelocityConstraints(BodyStore s, ContactBuffer c) {
+		for(int j = 0; j < size; j++) {
+			int i = contact[j];
+			int a = c.bodyA[i];
+			int b = c.bodyB[i];
+
+			float nx = c.normalX[i];
+			float ny = c.normalY[i];
+			float mA = massA[j];
+			float mB = massB[j];
+
+			//Friction first, bounded by the normal impulse of the previous iteration
+			float vx = s.velX[a] - s.velX[b];
+			float vy = s.velY[a] - s.velY[b];
+			float vt = vy * nx - vx * ny;
+
+			float maxFriction = friction[j] * normalImpulse[j];
+			float old = tangentImpulse[j];
+			float pt = FastMath.clamp(old - vt * normalMass[j], -maxFriction, maxFriction);
+			tangentImpulse[j] = pt;
+			pt -= old;
+
+			s.velX[a] -= ny * pt * mA;
+			s.velY[a] += nx * pt * mA;
+			s.velX[b] += ny * pt * mB;
+			s.velY[b] -= nx * pt * mB;
+
+			//The bodies may push each other apart, but never pull
+			vx = s.velX[a] - s.velX[b];
+			vy = s.velY[a] - s.velY[b];
+			float vn = vx * nx + vy * ny;
+
+			old = normalImpulse[j];
+			float pn = FastMath.max(old - (vn - bias[j]) * normalMass[j], 0);
+			normalImpulse[j] = pn;
+			pn -= old;
+
+			s.velX[a] += nx * pn * mA;
+			s.velY[a] += ny * pn * mA;
+			s.velX[b] -= nx * pn * mB;
+			s.velY[b] -= ny * pn * mB;
+		}
+	}
+
+	private void solveStaticVelocityConstraints(BodyStore s) {
+		for(int j = 0; j < staticSize; j++) {
+			int a = staticBody[j];
+			float nx = staticNormalX[j];
+			float ny = staticNormalY[j];
+			float mA = staticMass[j];
+
+			//The geometry does not move, so the relative velocity is that of the body
+			float vt = s.velY[a] * nx - s.velX[a] * ny;
+
+			float maxFriction = staticFriction[j] * staticNormalImpulse[j];
+			float old = staticTangentImpulse[j];
+			float pt = FastMath.clamp(old - vt / mA, -maxFriction, maxFriction);
+			staticTangentImpulse[j] = pt;
+			pt -= old;
+
+			s.velX[a] -= ny * pt * mA;
+			s.velY[a] += nx * pt * mA;
+
+			float vn = s.velX[a] * nx + s.velY[a] * ny;
+
+			old = staticNormalImpulse[j];
+			float pn = FastMath.max(old - (vn - staticBias[j]) / mA, 0);
+			staticNormalImpulse[j] = pn;
+			pn -= old;
+
+			s.velX[a] += nx * pn * mA;
+			s.velY[a] += ny * pn * mA;
+		}
+	}
+
+	private boolean solveStaticPositionConstraints(BodyStore s) {
+		float deepest = 0;
+
+		for(int j = 0; j < staticSize; j++) {
+			int a = staticBody[j];
+			float nx = staticNormalX[j];
+			float ny = staticNormalY[j];
+
+			float reach = Math.abs(nx) * s.halfW[a] + Math.abs(ny) * s.halfH[a];
+			float separation = s.posX[a] * nx + s.posY[a] * ny - reach - staticPlane[j];
+			deepest = Math.min(deepest, separation);
+
+			//Only the body moves, so it takes the whole correction
+			float correction = FastMath.clamp(positionCorrection * (separation + slop), -maxCorrection, 0);
+			s.posX[a] -= nx * correction;
+			s.posY[a] -= ny * correction;
+		}
+
+		return deepest >= -3 * slop;
+	}
+
+	//Returns true once every contact overlaps by no more than the slop
+	private boolean solvePositionConstraints(BodyStore s, ContactBuffer c) {
+		float deepest = 0;
+
+		for(int j = 0; j < size; j++) {
+			int i = contact[j];
+			int a = c.bodyA[i];
+			int b = c.bodyB[i];
+
+			float nx = c.normalX[i];
+			float ny = c.normalY[i];
+
+			//The bodies do not turn, so the overlap along the normal follows from how far apart their centers are
+			float separation = (s.posX[a] - s.posX[b]) * nx + (s.posY[a] - s.posY[b]) * ny - c.reach[i];
+			deepest = Math.min(deepest, separation);
+
+			float correction = FastMath.clamp(positionCorrection * (separation + slop), -maxCorrection, 0);
+			float p = -correction * normalMass[j];
+
+			s.posX[a] += nx * p * massA[j];
+			s.posY[a] += ny * p * massA[j];
+			s.posX[b] -= nx * p * massB[j];
+			s.posY[b] -= ny * p * massB[j];
+		}
+
+		return deepest >= -3 * slop;
+	}
+
+	/**
+	 * 
+	 * Sets how many times per step the velocities of all contacts are solved. More iterations make piles stiffer.
+	 * 
+	 * @param velocityIterations - the amount of velocity iterations
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setVelocityIterations(int velocityIterations) {
+		if(velocityIterations < 1)
+			throw new IllegalArgumentException("There must be at least one velocity iteration: " + velocityIterations);
+		this.velocityIterations = velocityIterations;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns how many times per step the velocities of all contacts are solved.
+	 * 
+	 * @return the amount of velocity iterations
+	 */
+	public int getVelocityIterations() {
+		return velocityIterations;
+	}
+
+	/**
+	 * 
+	 * Sets the most times per step the positions of all contacts are corrected. Correction stops early once nothing overlaps
+	 * by much.
+	 * 
+	 * @param positionIterations - the amount of position iterations
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setPositionIterations(int positionIterations) {
+		if(positionIterations < 0)
+			throw new IllegalArgumentException("Position iterations cannot be negative: " + positionIterations);
+		this.positionIterations = positionIterations;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns the most times per step the positions of all contacts are corrected.
+	 * 
+	 * @return the amount of position iterations
+	 */
+	public int getPositionIterations() {
+		return positionIterations;
+	}
+
+	/**
+	 * 
+	 * Sets whether or not each step starts from the impulses of the previous one.
+	 * 
+	 * @param warmStarting - true to reuse the impulses of the previous step
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setWarmStarting(boolean warmStarting) {
+		this.warmStarting = warmStarting;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not each step starts from the impulses of the previous one.
+	 * 
+	 * @return true if warm starting is enabled
+	 */
+	public boolean isWarmStarting() {
+		return warmStarting;
+	}
+
+	/**
+	 * 
+	 * Sets how much of the overlap between two bodies is removed by each position iteration.
+	 * 
+	 * @param positionCorrection - the fraction of the overlap to remove, between 0 and 1
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setPositionCorrection(float positionCorrection) {
+		if(positionCorrection < 0 || positionCorrection > 1)
+			throw new IllegalArgumentException("Position correction must be between 0 and 1: " + positionCorrection);
+		this.positionCorrection = positionCorrection;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets how far bodies may overlap without being pushed apart. A little overlap keeps resting contacts from flickering.
+	 * 
+	 * @param slop - the allowed overlap
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setSlop(float slop) {
+		if(slop < 0)
+			throw new IllegalArgumentException("Slop cannot be negative: " + slop);
+		this.slop = slop;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets the furthest a single position iteration may move two bodies apart.
+	 * 
+	 * @param maxCorrection - the largest correction per iteration
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setMaxCorrection(float maxCorrection) {
+		if(maxCorrection <= 0)
+			throw new IllegalArgumentException("Max correction must be positive: " + maxCorrection);
+		this.maxCorrection = maxCorrection;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets the speed two bodies must hit each other with to bounce. Slower contacts come to rest instead, which keeps bouncy
+	 * bodies from jittering on the ground.
+	 * 
+	 * @param restitutionThreshold - the lowest speed that bounces
+	 * @return this ContactSolver instance
+	 */
+	public ContactSolver setRestitutionThreshold(float restitutionThreshold) {
+		if(restitutionThreshold < 0)
+			throw new IllegalArgumentException("Restitution threshold cannot be negative: " + restitutionThreshold);
+		this.restitutionThreshold = restitutionThreshold;
+		return this;
+	}
+
+	private void allocate(int n) {
+		contact = new int[n];
+		massA = new float[n];
+		massB = new float[n];
+		normalMass = new float[n];
+		friction = new float[n];
+		bias = new float[n];
+		normalImpulse = new float[n];
+		tangentImpulse = new float[n];
+	}
+
+	private void allocateStatic(int n) {
+		staticBody = grow(staticBody, n);
+		staticNormalX = grow(staticNormalX, n);
+		staticNormalY = grow(staticNormalY, n);
+		staticPlane = grow(staticPlane, n);
+		staticMass = grow(staticMass, n);
+		staticFriction = grow(staticFriction, n);
+		staticBias = grow(staticBias, n);
+		staticNormalImpulse = grow(staticNormalImpulse, n);
+		staticTangentImpulse = grow(staticTangentImpulse, n);
+	}
+
+	private static float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, a.length);
+		return r;
+	}
+
+	private static int[] grow(int[] a, int n) {
+		int[] r = new int[n];
+		if(a != null)
+			System.arraycopy(a, 0, r, 0, a.length);
+		return r;
+	}
+}
@@ -0,0 +1,111 @@
+package time.api.physics;
+
+/**
+ * 
+ * Keeps fast bodies from passing through others between two steps.
+ * <p>
+ * Only continuous bodies that move further than their own half size in a step are swept. The box they cover during the step
+ * is looked up in the broadphase, and each body found is tested with a ray against its bounding box grown by the size of the
+ * swept body, which gives the time of impact of the two boxes. Other bodies are treated as if they stood still.
+ * The swept body is moved to the earliest impact and loses the part of its velocity going into the body it hit,
+ * so the contact is picked up by the regular solver in the next step.
+ * 
+ */
+
+class ContinuousCollision {
+
+	private Body[] found;
+	private final RaycastHit hit;
+
+	/**
+	 * 
+	 * Constructs a new continuous collision pass.
+	 * 
+	 */
+	ContinuousCollision() {
+		found = new Body[64];
+		hit = new RaycastHit();
+	}
+
+	/**
+	 * 
+	 * Sweeps every fast continuous body along its velocity. This runs right before the positions are integrated.
+	 * 
+	 * @param s - the bodies of the step
+	 * @param broadphase - the broadphase to look for obstacles in
+	 * @param delta - the length of the step
+	 */
+	void sweep(BodyStore s, Broadphase broadphase, float delta) {
+		for(int i = 0; i < s.size; i++) {
+			if((s.flags[i] & BodyStore.FLAG_CONTINUOUS) == 0 || s.motion[i] == 0)
+				continue;
+
+			float dx = s.velX[i] * delta;
+			float dy = s.velY[i] * delta;
+
+			//Slower bodies always overlap what they move into at the end of the step
+			if(Math.abs(dx) <= s.halfW[i] && Math.abs(dy) <= s.halfH[i])
+				continue;
+
+			sweep(s, broadphase, i, dx, dy);
+		}
+	}
+
+	private void sweep(BodyStore s, Broadphase broadphase, int i, float dx, float dy) {
+		float x = s.posX[i];
+		float y = s.posY[i];
+		float hw = s.halfW[i];
+		float hh = s.halfH[i];
+
+		float minX = Math.min(x, x + dx) - hw;
+		float minY = Math.min(y, y + dy) - hh;
+		float maxX = Math.max(x, x + dx) + hw;
+		float maxY = Math.max(y, y + dy) + hh;
+
+		int count = broadphase.query(minX, minY, maxX, maxY, found);
+		while(count == found.length) {
+			found = new Body[found.length * 2];
+			count = broadphase.query(minX, minY, maxX, maxY, found);
+		}
+
+		Body self = s.bodies[i];
+		hit.reset();
+		hit.fraction = 1;
+
+		for(int k = 0; k < count; k++) {
+			Body b = found[k];
+			found[k] = null;
+
+			int h = b.handle;
+			if(b == self || b.store != s || (s.flags[h] & BodyStore.FLAG_TRIGGER) != 0 || !s.canCollide(i, h))
+				continue;
+
+			float bx0 = s.posX[h] - s.halfW[h] - hw;
+			float by0 = s.posY[h] - s.halfH[h] - hh;
+			float bx1 = s.posX[h] + s.halfW[h] + hw;
+			float by1 = s.posY[h] + s.halfH[h] + hh;
+
+			//Bodies that already overlap are handled by the regular contacts
+			float t = RaycastHit.castBox(x, y, dx, dy, hit.fraction, bx0, by0, bx1, by1);
+			if(t > 0 && (!hit.hasHit() || t < hit.fraction))
+				hit.set(b, x, y, dx, dy, t, bx0, by0, bx1, by1);
+		}
+
+		if(!hit.hasHit())
+			return;
+
+		//Stop at the impact, the rest of the step is spent sliding along the surface
+		s.posX[i] = hit.x;
+		s.posY[i] = hit.y;
+
+		float nx = hit.normalX;
+		float ny = hit.normalY;
+		float vn = s.velX[i] * nx + s.velY[i] * ny;
+		if(vn < 0) {
+			s.velX[i] -= vn * nx;
+			s.velY[i] -= vn * ny;
+		}
+
+		hit.reset();
+	}
+}
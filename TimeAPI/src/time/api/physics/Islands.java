@@ -0,0 +1,130 @@
+package time.api.physics;
+
+/**
+ * 
+ * Puts resting bodies to sleep. Bodies that are connected through solid contacts form an island, and an island only falls
+ * asleep once every body in it has been moving slower than a threshold for long enough. Absolute bodies never join an island,
+ * so a pile resting on the ground is one island rather than everything that touches the ground.
+ * <p>
+ * A body's speed is averaged over the whole resting time: it rests for as long as it stays close to the point where it came to
+ * rest. Its velocity alone is not enough, since a resting pile keeps trading small velocities back and forth with the ground
+ * while its position stays put.
+ * 
+ */
+
+class Islands {
+
+	private int[] parent;
+	private float[] rest;
+	private int[] label;
+
+	//The first body of each island to fall asleep, which the rest are linked to
+	private int[] first;
+
+	//The label of the next island to fall asleep, kept in snapshots
+	int nextIsland;
+
+	/**
+	 * 
+	 * Constructs a new, empty island builder.
+	 * 
+	 */
+	Islands() {
+		parent = new int[64];
+		rest = new float[64];
+		label = new int[64];
+		first = new int[64];
+	}
+
+	/**
+	 * 
+	 * Advances the resting time of every awake body and puts the islands that have rested long enough to sleep.
+	 * 
+	 * @param s - the bodies to update
+	 * @param c - the contacts of the current step
+	 * @param delta - the length of the step
+	 * @param threshold - the speed below which a body counts as resting
+	 * @param timeToSleep - how long an island has to rest before falling asleep
+	 */
+	void update(BodyStore s, ContactBuffer c, float delta, float threshold, float timeToSleep) {
+		int n = s.size;
+		if(parent.length < n) {
+			parent = new int[s.bodies.length];
+			rest = new float[parent.length];
+			label = new int[parent.length];
+			first = new int[parent.length];
+		}
+
+		for(int i = 0; i < n; i++) {
+			parent[i] = i;
+			rest[i] = Float.MAX_VALUE;
+			label[i] = -1;
+		}
+
+		for(int i = 0; i < c.size; i++) {
+			if(c.isTrigger(i))
+				continue;
+
+			int a = c.bodyA[i];
+			int b = c.bodyB[i];
+			if(isActive(s, a) && isActive(s, b))
+				union(a, b);
+		}
+
+		//How far a body moving at the threshold speed gets before the island falls asleep
+		float d = threshold * timeToSleep;
+		float d2 = d * d;
+		for(int i = 0; i < n; i++) {
+			if(!isActive(s, i))
+				continue;
+
+			float dx = s.posX[i] - s.restX[i];
+			float dy = s.posY[i] - s.restY[i];
+			if(dx * dx + dy * dy <= d2) {
+				s.sleepTime[i] += delta;
+			} else {
+				s.sleepTime[i] = 0;
+				s.restX[i] = s.posX[i];
+				s.restY[i] = s.posY[i];
+			}
+
+			int r = find(i);
+			rest[r] = Math.min(rest[r], s.sleepTime[i]);
+		}
+
+		for(int i = 0; i < n; i++) {
+			if(!isActive(s, i))
+				continue;
+
+			int r = find(i);
+			if(rest[r] < timeToSleep)
+				continue;
+
+			if(label[r] < 0) {
+				label[r] = nextIsland;
+				first[r] = i;
+				nextIsland = nextIsland == Integer.MAX_VALUE ? 0 : nextIsland + 1;
+			}
+			s.sleep(i, label[r], first[r]);
+		}
+	}
+
+	private boolean isActive(BodyStore s, int h) {
+		return (s.flags[h] & (BodyStore.FLAG_ABSOLUTE | BodyStore.FLAG_SLEEPING)) == 0;
+	}
+
+	private int find(int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private void union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if(a != b)
+			parent[Math.max(a, b)] = Math.min(a, b);
+	}
+}
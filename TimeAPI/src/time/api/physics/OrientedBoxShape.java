@@ -0,0 +1,36 @@
+package time.api.physics;
+
+/**
+ * 
+ * A box that turns with the rotation of its body.
+ * 
+ */
+
+public class OrientedBoxShape extends BoxShape {
+
+	/**
+	 * 
+	 * Constructs a new oriented box.
+	 * 
+	 * @param w - the width of the box before it is rotated
+	 * @param h - the height of the box before it is rotated
+	 */
+	public OrientedBoxShape(float w, float h) {
+		super(ORIENTED_BOX, w, h);
+	}
+
+	@Override
+	public boolean rotates() {
+		return true;
+	}
+
+	@Override
+	float getHalfWidth(float cos, float sin) {
+		return Math.abs(cos) * halfW + Math.abs(sin) * halfH;
+	}
+
+	@Override
+	float getHalfHeight(float cos, float sin) {
+		return Math.abs(sin) * halfW + Math.abs(cos) * halfH;
+	}
+}
@@ -0,0 +1,165 @@
+package time.api.physics;
+
+/**
+ * 
+ * A reusable list of body pairs produced by a broadphase.
+ * The backing arrays only grow, so a buffer that is cleared and refilled every step stops allocating once it is large enough.
+ * 
+ */
+
+public class PairBuffer {
+
+	private Body[] first;
+	private Body[] second;
+
+	private int size;
+
+	//Scratch space for sorting
+	private long[] keys, sortedKeys;
+	private Body[] sortedFirst, sortedSecond;
+
+	/**
+	 * 
+	 * Constructs a new pair buffer with a default capacity.
+	 * 
+	 */
+	public PairBuffer() {
+		this(64);
+	}
+
+	/**
+	 * 
+	 * Constructs a new pair buffer with the specified initial capacity.
+	 * 
+	 * @param capacity - the amount of pairs this buffer can hold before growing
+	 */
+	public PairBuffer(int capacity) {
+		first = new Body[Math.max(capacity, 1)];
+		second = new Body[first.length];
+	}
+
+	/**
+	 * 
+	 * Appends a pair to this buffer.
+	 * 
+	 * @param a - the first body of the pair
+	 * @param b - the second body of the pair
+	 */
+	public void add(Body a, Body b) {
+		if(size == first.length) {
+			Body[] f = new Body[size * 2];
+			Body[] s = new Body[size * 2];
+			System.arraycopy(first, 0, f, 0, size);
+			System.arraycopy(second, 0, s, 0, size);
+			first = f;
+			second = s;
+		}
+		first[size] = a;
+		second[size] = b;
+		size++;
+	}
+
+	/**
+	 * 
+	 * Returns the first body of the specified pair.
+	 * 
+	 * @param i - the index of the pair
+	 * @return the first body of the pair
+	 */
+	public Body getFirst(int i) {
+		return first[i];
+	}
+
+	/**
+	 * 
+	 * Returns the second body of the specified pair.
+	 * 
+	 * @param i - the index of the pair
+	 * @return the second body of the pair
+	 */
+	public Body getSecond(int i) {
+		return second[i];
+	}
+
+	/**
+	 * 
+	 * Returns the amount of pairs currently in this buffer.
+	 * 
+	 * @return the amount of pairs in this buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * Sorts the pairs by the ids of their bodies, with the body of the lower id first in each pair. The result only depends
+	 * on which pairs are in this buffer, not on the order they were added in.
+	 * 
+	 */
+	public void sort() {
+		if(keys == null || keys.length < size) {
+			keys = new long[first.length];
+			sortedKeys = new long[first.length];
+			sortedFirst = new Body[first.length];
+			sortedSecond = new Body[first.length];
+		}
+
+		for(int i = 0; i < size; i++) {
+			if(first[i].id > second[i].id) {
+				Body b = first[i];
+				first[i] = second[i];
+				second[i] = b;
+			}
+			keys[i] = ContactManager.key(first[i].id, second[i].id);
+		}
+
+		//Bottom up merge sort, passing the pairs back and forth between the buffers
+		long[] k = keys, tk = sortedKeys;
+		Body[] f = first, tf = sortedFirst;
+		Body[] s = second, ts = sortedSecond;
+
+		for(int width = 1; width < size; width *= 2) {
+			for(int lo = 0; lo < size; lo += width * 2) {
+				int mid = Math.min(lo + width, size);
+				int hi = Math.min(lo + width * 2, size);
+
+				int i = lo, j = mid;
+				for(int o = lo; o < hi; o++) {
+					int from = i < mid && (j >= hi || k[i] <= k[j]) ? i++ : j++;
+					tk[o] = k[from];
+					tf[o] = f[from];
+					ts[o] = s[from];
+				}
+			}
+
+			long[] lk = k; k = tk; tk = lk;
+			Body[] lf = f; f = tf; tf = lf;
+			Body[] ls = s; s = ts; ts = ls;
+		}
+
+		if(f != first) {
+			System.arraycopy(f, 0, first, 0, size);
+			System.arraycopy(s, 0, second, 0, size);
+		}
+
+		//Do not hold on to bodies from the scratch space
+		for(int i = 0; i < size; i++) {
+			sortedFirst[i] = null;
+			sortedSecond[i] = null;
+		}
+	}
+
+	/**
+	 * 
+	 * Removes all pairs from this buffer without releasing its memory.
+	 * 
+	 */
+	public void clear() {
+		for(int i = 0; i < size; i++) {
+			first[i] = null;
+			second[i] = null;
+		}
+		size = 0;
+	}
+}
@@ -0,0 +1,184 @@
+package time.api.physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 
+ * Runs the narrowphase over a list of candidate pairs on a {@link ForkJoinPool}.
+ * <p>
+ * The pairs are cut into chunks of a fixed size and every chunk writes into its own contact buffer. Once all chunks are done
+ * the buffers are merged in chunk order, so the resulting contacts are exactly the ones a single thread would have produced,
+ * in the same order, no matter how many threads took part. The chunk tasks and buffers are kept between steps.
+ * 
+ */
+
+public class ParallelNarrowphase {
+
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	private static final int STILL = BodyStore.FLAG_ABSOLUTE | BodyStore.FLAG_SLEEPING;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	private Chunk[] chunks;
+	private final Root root;
+
+	/**
+	 * 
+	 * Constructs a new parallel narrowphase running on the common pool.
+	 * 
+	 */
+	public ParallelNarrowphase() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * 
+	 * Constructs a new parallel narrowphase.
+	 * 
+	 * @param pool - the pool to run the chunks on
+	 * @param chunkSize - the amount of pairs each task tests
+	 */
+	public ParallelNarrowphase(ForkJoinPool pool, int chunkSize) {
+		if(pool == null)
+			throw new IllegalArgumentException("Pool cannot be null");
+		if(chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.chunks = new Chunk[0];
+		this.root = new Root();
+	}
+
+	/**
+	 * 
+	 * Tests every pair in the buffer and appends the resulting contacts to the contact buffer.
+	 * Small workloads are run on the calling thread.
+	 * 
+	 * @param pairs - the candidate pairs
+	 * @param contacts - the buffer to append the contacts to
+	 */
+	public void collide(PairBuffer pairs, ContactBuffer contacts) {
+		int n = pairs.size();
+		int count = (n + chunkSize - 1) / chunkSize;
+
+		if(count <= 1 || pool.getParallelism() <= 1) {
+			collide(pairs, 0, n, contacts);
+			return;
+		}
+
+		if(chunks.length < count) {
+			Chunk[] c = new Chunk[count];
+			System.arraycopy(chunks, 0, c, 0, chunks.length);
+			for(int i = chunks.length; i < count; i++)
+				c[i] = new Chunk();
+			chunks = c;
+		}
+
+		for(int i = 0; i < count; i++) {
+			Chunk c = chunks[i];
+			c.reinitialize();
+			c.pairs = pairs;
+			c.from = i * chunkSize;
+			c.to = Math.min(n, c.from + chunkSize);
+			c.contacts.clear();
+		}
+
+		root.reinitialize();
+		root.count = count;
+		pool.invoke(root);
+
+		//Merge in chunk order so the result does not depend on scheduling
+		for(int i = 0; i < count; i++) {
+			contacts.addAll(chunks[i].contacts);
+			chunks[i].contacts.clear();
+			chunks[i].pairs = null;
+		}
+	}
+
+	/**
+	 * 
+	 * Returns the pool the chunks run on.
+	 * 
+	 * @return the pool of this narrowphase
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of pairs each task tests.
+	 * 
+	 * @return the chunk size
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * 
+	 * Tests a range of pairs on the calling thread.
+	 * 
+	 * @param pairs - the candidate pairs
+	 * @param from - the first pair to test
+	 * @param to - the pair after the last one to test
+	 * @param contacts - the buffer to append the contacts to
+	 */
+	static void collide(PairBuffer pairs, int from, int to, ContactBuffer contacts) {
+		for(int p = from; p < to; p++) {
+			Body a = pairs.getFirst(p);
+			Body b = pairs.getSecond(p);
+
+			BodyStore s = a.store;
+
+			//Layers that never collide are rejected before any other work
+			if(!s.canCollide(a.handle, b.handle)) continue;
+
+			int fa = s.flags[a.handle];
+			int fb = s.flags[b.handle];
+
+			//Bodies that do not move have nothing new to report, except triggers that still register what they touch
+			if((fa & STILL) != 0 && (fb & STILL) != 0
+					&& (((fa | fb) & BodyStore.FLAG_TRIGGER) == 0 || (fa & fb & BodyStore.FLAG_SLEEPING) != 0)) continue;
+
+			a._checkCollision(b, contacts);
+		}
+	}
+
+	private class Root extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int count;
+
+		@Override
+		protected void compute() {
+			for(int i = 1; i < count; i++)
+				chunks[i].fork();
+
+			chunks[0].invoke();
+
+			for(int i = 1; i < count; i++)
+				chunks[i].join();
+		}
+	}
+
+	private static class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final ContactBuffer contacts = new ContactBuffer();
+
+		PairBuffer pairs;
+		int from, to;
+
+		@Override
+		protected void compute() {
+			collide(pairs, from, to, contacts);
+		}
+	}
+}
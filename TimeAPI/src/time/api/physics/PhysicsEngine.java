@@ -1,6 +1,8 @@
 package time.api.physics;
 
-import java.util.HashSet;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import time.api.debug.Debug;
 import time.api.math.Vector2f;
@@ -15,29 +17,82 @@ import time.api.math.Vector2f;
 
 public class PhysicsEngine {
 	
+	public static final float DEFAULT_CELL_SIZE = 64.0f;
+	public static final float DEFAULT_SLEEP_THRESHOLD = 2.0f;
+	public static final float DEFAULT_TIME_TO_SLEEP = 0.5f;
+	public static final int DEFAULT_MAX_SUBSTEPS = 5;
+	
+	private static final int SNAPSHOT_MAGIC = 0x54504853;
+	private static final int SNAPSHOT_VERSION = 3;
+	private static final int SNAPSHOT_HEADER = 32;
+	
 	private static float frameRate = 60.0f;
 	private static float simulationStep = 1.0f/frameRate;
 	
-	private HashSet<Body> trash;
-	private HashSet<Body> bodies;
-	private HashSet<Collision> collisions;
+	private ArrayList<Body> trash;
+	private ArrayList<Collision> collisions;
+	private BodyStore bodies;
+	private ContactBuffer contacts;
+	
+	private Broadphase broadphase;
+	private PairBuffer pairs;
+	private ParallelNarrowphase narrowphase;
+	private ContactManager contactManager;
+	private ContactSolver solver;
+	private ContinuousCollision continuous;
+	private PhysicsQuery query;
+	private QueryBatch batch;
+	
+	private Islands islands;
+	private PhysicsStats stats;
+	
+	//The bodies found around something that wakes what rests against it
+	private Body[] nearby;
+	
+	private TileMap tileMap;
+	private int tileVersion;
+	private boolean allowSleeping = true;
+	private float sleepThreshold = DEFAULT_SLEEP_THRESHOLD;
+	private float timeToSleep = DEFAULT_TIME_TO_SLEEP;
 	
 	private Vector2f gravity;
 	
 	private float timer;
+	private int maxSubsteps = DEFAULT_MAX_SUBSTEPS;
 	
 	private boolean useStep = true;
 	
+	private boolean deterministic;
+	private long stateHash;
+	private long stepCount;
+	
+	//Set by restore until the proxies of the bodies it changed are brought up to date
+	private boolean restoredProxies;
+	
+	//Set while a physics thread owns the simulation, which then never touches the vectors of the bodies
+	private boolean detached;
+	
 	/**
 	 * 
 	 * Initialized the physics engine.
 	 * 
 	 */
 	public PhysicsEngine() {
-		bodies = new HashSet<Body>();
-		trash = new  HashSet<Body>();
-		collisions = new HashSet<Collision>();
+		bodies = new BodyStore();
+		trash = new ArrayList<Body>();
+		collisions = new ArrayList<Collision>();
+		contacts = new ContactBuffer();
+		broadphase = new SpatialHash(DEFAULT_CELL_SIZE);
+		pairs = new PairBuffer();
+		islands = new Islands();
+		nearby = new Body[64];
+		contactManager = new ContactManager();
+		solver = new ContactSolver();
+		continuous = new ContinuousCollision();
+		query = new PhysicsQuery();
+		batch = new QueryBatch(query);
 		gravity = new Vector2f(0.0f, 0.0f);
+		stats = new PhysicsStats();
 	}
 	
 	/**
@@ -48,89 +103,934 @@ public class PhysicsEngine {
 	 * @return - this PhysicsEngine instance
 	 */
 	public PhysicsEngine update(float delta) {
+		checkAttached();
 		
 		//Increase the timer to make sure we run at a smooth frame rate.
-		if (useStep) {
+		if (isFixedStep()) {
 			timer += delta;
 			delta = simulationStep;
 		}
 		
+		long t = stats.begin();
+		prepare();
+		stats.time(PhysicsStats.PREPARE, t);
+		
 		//Check if we're ready to step or running each frame, and if so, enter the loop. 
-		while (simulationStep < timer || !useStep) {
+		int steps = 0;
+		while ((simulationStep < timer && steps < maxSubsteps) || !isFixedStep()) {
 			//Decrease the timer so we step through the simulation for all the accumulated time
-			if (useStep)
+			if (isFixedStep())
 				timer -= simulationStep;
+			steps++;
 			
-			//Clear tags
-			for(Body b : bodies) {
-				if(b == null) {
-					removeBody(b);
-					continue;
-				}
-				b._clearTags();
-			}
-			
-			for(Body b : trash) {
-				bodies.remove(b);
-			}
-			
-			trash.clear();
-			
-			//These are to prevent double collisions
-			int i = -1;
-			int j = -1;
-			for(Body a : bodies) {
-				i++;
-				if(a == null)
-					continue;
-				a.addVel(gravity.clone().scale(delta));
-				
-				j = -1;
-				for(Body b : bodies) {
-					j++;
-					if(b == null)
-						continue;
-					if(j <= i) continue;
-					
-					if(a.absolute && b.absolute && !(a.isTrigger() || b.isTrigger())) continue;
-					
-					if(Math.abs(a.getPos().getX() - b.getPos().getX()) > (a.getDim().getX() + b.getDim().getX() / 2)
-							&& Math.abs(a.getPos().getY() - b.getPos().getY()) > (a.getDim().getY() + b.getDim().getY() / 2))
-						continue;
-					
-					a._checkCollision(b, this);
-				}
-			}
-			
-			for (Collision c : collisions) {
-				c._solve();
-			}
-			
-			for(Body a : bodies) {
-				if(a == null)
-					continue;
-				a.update(delta);
-			}
-			collisions.clear();
+			simulate(delta);
 			
 			//Break if we're running every frame
-			if (!useStep)
+			if (!isFixedStep())
 				break;
 		}
+		
+		//Drop the time we could not catch up on, otherwise every following frame would fall further behind
+		if (isFixedStep() && simulationStep < timer)
+			timer %= simulationStep;
+		
+		//Publish the results to the bodies
+		t = stats.now();
+		bodies.store();
+		stats.time(PhysicsStats.STORE, t);
+		
+		stats.set(PhysicsStats.STEPS, steps);
+		stats.set(PhysicsStats.BODIES, bodies.size());
+		stats.end();
+		
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Progresses the physics world exactly one fixed step, no matter how much time has passed.
+	 * Lockstep games should call this once per simulation tick instead of calling {@link #update(float)}.
+	 * 
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine step() {
+		checkAttached();
+		
+		long t = stats.begin();
+		prepare();
+		stats.time(PhysicsStats.PREPARE, t);
+		
+		simulate(simulationStep);
+		
+		t = stats.now();
+		bodies.store();
+		stats.time(PhysicsStats.STORE, t);
+		
+		stats.set(PhysicsStats.STEPS, 1);
+		stats.set(PhysicsStats.BODIES, bodies.size());
+		stats.end();
+		return this;
+	}
+	
+	//Removes the trashed bodies and picks up any changes made to the bodies since the previous update
+	private void prepare() {
+		refreshProxies();
+		removeTrash();
+		bodies.load();
+		wakeMoved();
+		updateBroadphase();
+	}
+	
+	private void removeTrash() {
+		for(int i = 0; i < trash.size(); i++) {
+			wakeAround(trash.get(i));
+			broadphase.remove(trash.get(i));
+			bodies.remove(trash.get(i));
+		}
+		
+		trash.clear();
+		bodies.compact();
+	}
+	
+	/**
+	 * 
+	 * Runs a single fixed step while detached, working only on the body store. Changes to the bodies must already have been
+	 * made to the store, and the results are left there for the physics thread to publish.
+	 * 
+	 */
+	void advance() {
+		long t = stats.begin();
+		refreshProxies();
+		removeTrash();
+		wakeMoved();
+		updateBroadphase();
+		stats.time(PhysicsStats.PREPARE, t);
+		
+		simulate(simulationStep);
+		
+		stats.set(PhysicsStats.STEPS, 1);
+		stats.set(PhysicsStats.BODIES, bodies.size());
+		stats.end();
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not a physics thread owns this engine. While detached, the engine neither reads nor writes the vectors of
+	 * its bodies, since another thread is drawing them.
+	 * 
+	 * @param detached - true if a physics thread owns this engine
+	 */
+	void setDetached(boolean detached) {
+		//The physics thread works on the store alone, so pick up what was changed through the vectors since the last update
+		//first, after which the bodies read their bounds from the store until it is stored back
+		if(detached && !this.detached)
+			prepare();
+		
+		this.detached = detached;
+	}
+	
+	/**
+	 * 
+	 * Checks whether or not a physics thread owns this engine.
+	 * 
+	 * @return true if the engine is run by a physics thread
+	 */
+	public boolean isDetached() {
+		return detached;
+	}
+	
+	/**
+	 * 
+	 * Returns the counters and timings of the recent updates of this engine, one sample per update, or per step when run by a
+	 * physics thread.
+	 * 
+	 * @return the stats of this engine
+	 */
+	public PhysicsStats getStats() {
+		return stats;
+	}
+	
+	BodyStore getBodyStore() {
+		return bodies;
+	}
+	
+	/**
+	 * 
+	 * Returns the length of a single fixed step.
+	 * 
+	 * @return the length of a step in seconds
+	 */
+	public static float getSimulationStep() {
+		return simulationStep;
+	}
+	
+	private void checkAttached() {
+		if(detached)
+			throw new IllegalStateException("The physics engine is run by a physics thread");
+	}
+	
+	//Runs a single step of the simulation
+	private void simulate(float delta) {
+		long t = stats.now();
+		bodies.savePositions();
+		
+		//Clear tags, sleeping bodies keep the ones they fell asleep with
+		for(int i = 0; i < bodies.size(); i++) {
+			if(!bodies.isSleeping(i))
+				bodies.get(i)._clearTags();
+		}
+		
+		bodies.integrateVelocities(gravity.x, gravity.y, delta);
+		t = stats.time(PhysicsStats.INTEGRATE, t);
+		
+		//Only pairs with overlapping bounds are tested against each other
+		broadphase.findPairs(pairs);
+		
+		//The broadphase reports pairs in an order that depends on its history, so sort them when it has to be reproducible
+		if(deterministic)
+			pairs.sort();
+		
+		//Anything moving that touches a sleeping body wakes its whole island
+		for(int p = 0; p < pairs.size(); p++) {
+			Body a = pairs.getFirst(p);
+			Body b = pairs.getSecond(p);
+			if(a.isSleeping() && !b.isSleeping() && !b.isAbsolute())
+				bodies.wake(a.handle);
+			else if(b.isSleeping() && !a.isSleeping() && !a.isAbsolute())
+				bodies.wake(b.handle);
+		}
+		stats.set(PhysicsStats.PAIRS, pairs.size());
+		t = stats.time(PhysicsStats.BROADPHASE, t);
+		
+		if(narrowphase != null)
+			narrowphase.collide(pairs, contacts);
+		else
+			ParallelNarrowphase.collide(pairs, 0, pairs.size(), contacts);
+		pairs.clear();
+		
+		//Collisions handed in by hand are solved along with the ones that were found
+		for(int i = 0; i < collisions.size(); i++)
+			collisions.get(i).addTo(bodies, contacts);
+		collisions.clear();
+		
+		for(int i = 0; i < contacts.size(); i++) {
+			Body a = bodies.get(contacts.bodyA[i]);
+			Body b = bodies.get(contacts.bodyB[i]);
+			a.addTouching(b);
+			b.addTouching(a);
+		}
+		
+		contactManager.update(contacts, bodies);
+		
+		//Terrain is looked up by the cells each body overlaps instead of going through the broadphase
+		if(tileMap != null) {
+			if(tileMap.getVersion() != tileVersion) {
+				tileVersion = tileMap.getVersion();
+				wakeAll();
+			}
+			tileMap.collide(bodies, solver);
+		}
+		t = stats.time(PhysicsStats.NARROWPHASE, t);
+		
+		solver.solveVelocities(bodies, contacts, contactManager);
+		t = stats.time(PhysicsStats.SOLVE, t);
+		
+		//Fast continuous bodies are stopped where they would first hit something
+		continuous.sweep(bodies, broadphase, delta);
+		t = stats.time(PhysicsStats.CONTINUOUS, t);
+		
+		bodies.integratePositions(delta);
+		t = stats.time(PhysicsStats.INTEGRATE, t);
+		
+		solver.solvePositions(bodies, contacts);
+		solver.clearStaticContacts();
+		t = stats.time(PhysicsStats.SOLVE, t);
+		
+		//Keep the broadphase in line with where the bodies ended up, for the next step and for queries
+		updateBroadphase();
+		t = stats.time(PhysicsStats.BROADPHASE, t);
+		
+		if(allowSleeping)
+			islands.update(bodies, contacts, delta, sleepThreshold, timeToSleep);
+		stats.set(PhysicsStats.CONTACTS, contacts.size());
+		contacts.clear();
+		t = stats.time(PhysicsStats.SLEEP, t);
+		
+		stepCount++;
+		if(deterministic)
+			stateHash = bodies.hash();
+		
+		//Listeners see the bodies through their vectors and may change them, unless another thread owns the vectors
+		if(contactManager.hasListeners() && !detached) {
+			bodies.store();
+			contactManager.dispatch();
+			bodies.load();
+		} else {
+			contactManager.dispatch();
+		}
+		stats.time(PhysicsStats.LISTENERS, t);
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not the simulation is reproducible. In deterministic mode, the same bodies added in the same order and
+	 * given the same input produce bit for bit the same state on every machine: the simulation always advances in fixed steps
+	 * and colliding pairs are solved in the order of the ids of their bodies rather than the order the broadphase found them in.
+	 * Rotating shapes are turned with {@link StrictMath}, even when {@link time.api.math.FastMath} is enabled.
+	 * A hash of the state is computed after every step, see {@link #getStateHash()}.
+	 * 
+	 * @param deterministic - true to make the simulation reproducible
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+		bodies.setStrict(deterministic);
+		if(deterministic)
+			stateHash = bodies.hash();
 		return this;
 	}
 	
 	/**
 	 * 
-	 * Sets the gravity constant to the supplied vector quantity.
+	 * Checks whether or not the simulation is reproducible.
+	 * 
+	 * @return true if running in deterministic mode
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+	
+	/**
+	 * 
+	 * Returns a hash of the position, velocity and sleep state of every body after the last step. Two machines running the
+	 * same deterministic simulation have the same hash after the same step, so comparing hashes is enough to detect a desync.
+	 * 
+	 * @return the hash of the state after the last step, only kept up to date in deterministic mode
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+	
+	/**
+	 * 
+	 * Returns how many steps this physics engine has run.
+	 * 
+	 * @return the amount of steps run
+	 */
+	public long getStepCount() {
+		return stepCount;
+	}
+	
+	/**
+	 * 
+	 * Returns the amount of bytes a snapshot of the current state takes up.
+	 * 
+	 * @return the size of a snapshot in bytes
+	 */
+	public int getSnapshotSize() {
+		return SNAPSHOT_HEADER + bodies.snapshotSize() + contactManager.snapshotSize(bodies);
+	}
+	
+	/**
+	 * 
+	 * Writes the state of the simulation as of the last update to a buffer, starting at its position. This covers the position,
+	 * velocity, mass, material, flags and sleep state of every body along with the contacts and impulses carried between steps,
+	 * so restoring it and stepping again gives the same result as stepping on from here. No objects are created.
+	 * Buffers in native byte order are the fastest to write to and read from, see {@link SnapshotRing}.
+	 * 
+	 * @param buffer - the buffer to write to, with at least {@link #getSnapshotSize()} bytes remaining
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine snapshot(ByteBuffer buffer) {
+		int size = getSnapshotSize();
+		if(buffer.remaining() < size)
+			throw new IllegalArgumentException("A snapshot needs " + size + " bytes, but only " + buffer.remaining() + " remain");
+		
+		buffer.putInt(SNAPSHOT_MAGIC);
+		buffer.putInt(SNAPSHOT_VERSION);
+		buffer.putFloat(timer);
+		buffer.putLong(stepCount);
+		buffer.putLong(stateHash);
+		buffer.putInt(islands.nextIsland);
+		
+		bodies.write(buffer);
+		contactManager.write(buffer, bodies);
+		
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Reads the state of the simulation from a snapshot, starting at the buffer's position. The engine must hold the same
+	 * bodies it held when the snapshot was taken, so bodies added or removed since have to be removed or added back first.
+	 * Contact listeners are not notified. Only the vectors of bodies the snapshot changes are written to, so a body that was
+	 * moved by hand since the last update but is in the same state in the snapshot as in the engine keeps its new position.
+	 * 
+	 * @param buffer - the buffer to read from
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine restore(ByteBuffer buffer) {
+		int start = buffer.position();
+		if(buffer.remaining() < SNAPSHOT_HEADER || buffer.getInt(start) != SNAPSHOT_MAGIC)
+			throw new IllegalArgumentException("The buffer does not hold a physics snapshot");
+		if(buffer.getInt(start + 4) != SNAPSHOT_VERSION)
+			throw new IllegalArgumentException("Unsupported snapshot version: " + buffer.getInt(start + 4));
+		
+		//The bodies are checked before anything is changed
+		buffer.position(start + SNAPSHOT_HEADER);
+		bodies.read(buffer, !detached);
+		contactManager.read(buffer, bodies);
+		
+		timer = buffer.getFloat(start + 8);
+		stepCount = buffer.getLong(start + 12);
+		stateHash = buffer.getLong(start + 20);
+		islands.nextIsland = buffer.getInt(start + 28);
+		
+		//Only the bodies the snapshot moved or changed had their vectors written to. Their proxies are left for the next update
+		//or query, since a rollback steps right after restoring, which brings those of the awake bodies up to date anyway
+		restoredProxies = true;
+		
+		return this;
+	}
+	
+	//Deterministic simulations cannot depend on the frame rate, so they always use step
+	private boolean isFixedStep() {
+		return useStep || deterministic;
+	}
+	
+	/**
+	 * 
+	 * Returns how far the simulation has progressed towards its next step, as a fraction of the step.
+	 * Drawing bodies this far between their previous and current position keeps motion smooth when the frame rate
+	 * differs from the simulation rate.
+	 * 
+	 * @return the interpolation factor between 0 and 1, or 1 if not using step
+	 */
+	public float getAlpha() {
+		if (!isFixedStep())
+			return 1;
+		return Math.min(timer / simulationStep, 1);
+	}
+	
+	/**
+	 * 
+	 * Sets the most steps a single update may run. Time beyond that is dropped, so a long frame slows the simulation
+	 * down for a moment instead of making every following frame longer.
+	 * 
+	 * @param maxSubsteps - the most steps per update
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setMaxSubsteps(int maxSubsteps) {
+		if (maxSubsteps < 1)
+			throw new IllegalArgumentException("There must be at least one substep: " + maxSubsteps);
+		this.maxSubsteps = maxSubsteps;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the most steps a single update may run.
+	 * 
+	 * @return the most steps per update
+	 */
+	public int getMaxSubsteps() {
+		return maxSubsteps;
+	}
+	
+	/**
+	 * 
+	 * Sets the gravity constant to the supplied vector quantity. Changing it wakes every sleeping body.
 	 * 
 	 * @param x - The speed on the x-axis per second
 	 * @param y - The speed on the y-axis per second
 	 * @return this PhysicsEngine instance
 	 */
 	public PhysicsEngine setGravity(float x, float y) {
-		gravity.setX(x);
-		gravity.setY(y);
+		//Resting bodies settled under the old gravity
+		if(gravity.x != x || gravity.y != y)
+			wakeAll();
+		gravity.set(x, y);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the cell size of the spatial hash used to find colliding pairs.
+	 * Cells around the size of the most common body tend to perform best.
+	 * 
+	 * @param cellSize - the width and height of each cell
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setCellSize(float cellSize) {
+		if(!(broadphase instanceof SpatialHash))
+			throw new IllegalStateException("The current broadphase is not a spatial hash");
+		((SpatialHash)broadphase).setCellSize(cellSize);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets the broadphase used to find pairs of bodies that may be colliding. All current bodies are moved over to the new broadphase.
+	 * 
+	 * @param broadphase - the new broadphase
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setBroadphase(Broadphase broadphase) {
+		this.broadphase.clear();
+		this.broadphase = broadphase;
+		for(int i = 0; i < bodies.size(); i++) {
+			Body b = bodies.get(i);
+			if(b != null && !trash.contains(b))
+				broadphase.add(b);
+		}
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not the narrowphase is spread over the common fork join pool.
+	 * The contacts found are the same either way, only the time it takes differs.
+	 * 
+	 * @param parallel - true to test pairs on several threads
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setParallel(boolean parallel) {
+		return setNarrowphase(parallel ? new ParallelNarrowphase() : null);
+	}
+	
+	/**
+	 * 
+	 * Sets the parallel narrowphase used to test pairs, or null to test them on the calling thread.
+	 * 
+	 * @param narrowphase - the parallel narrowphase to use
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setNarrowphase(ParallelNarrowphase narrowphase) {
+		this.narrowphase = narrowphase;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Checks whether or not pairs are tested on several threads.
+	 * 
+	 * @return true if the narrowphase runs in parallel
+	 */
+	public boolean isParallel() {
+		return narrowphase != null;
+	}
+	
+	/**
+	 * 
+	 * Returns the solver that resolves the contacts, which holds the iteration counts and other solver settings.
+	 * 
+	 * @return the contact solver of this physics engine
+	 */
+	public ContactSolver getSolver() {
+		return solver;
+	}
+	
+	/**
+	 * 
+	 * Sets how many times per step the velocities and positions of all contacts are solved.
+	 * 
+	 * @param velocityIterations - the amount of velocity iterations
+	 * @param positionIterations - the most position iterations
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setIterations(int velocityIterations, int positionIterations) {
+		solver.setVelocityIterations(velocityIterations);
+		solver.setPositionIterations(positionIterations);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Adds a listener that is told when bodies start touching, keep touching and stop touching.
+	 * 
+	 * @param listener - the listener to add
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine addContactListener(ContactListener listener) {
+		contactManager.addListener(listener);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Removes a contact listener.
+	 * 
+	 * @param listener - the listener to remove
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine removeContactListener(ContactListener listener) {
+		contactManager.removeListener(listener);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the contact manager, which holds every contact that persisted through the last step.
+	 * 
+	 * @return the contact manager of this physics engine
+	 */
+	public ContactManager getContactManager() {
+		return contactManager;
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not bodies with the specified tags collide with each other. All tags collide by default.
+	 * Bodies with several tags only collide if every pair of their tags does.
+	 * 
+	 * @param a - the first tag
+	 * @param b - the second tag
+	 * @param collide - true if bodies with the tags should collide
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setLayerCollision(String a, String b, boolean collide) {
+		bodies.setLayerCollision(CollisionLayers.getLayer(a), CollisionLayers.getLayer(b), collide);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Checks whether or not bodies with the specified tags collide with each other.
+	 * 
+	 * @param a - the first tag
+	 * @param b - the second tag
+	 * @return true if bodies with the tags collide
+	 */
+	public boolean canLayersCollide(String a, String b) {
+		return bodies.canLayersCollide(CollisionLayers.getLayer(a), CollisionLayers.getLayer(b));
+	}
+	
+	/**
+	 * 
+	 * Casts a ray and finds the closest body whose bounding box it hits.
+	 * The ray covers the points origin + direction * t for t between 0 and 1, so the direction also sets its length.
+	 * Like all queries, this sees the bodies as they were at the end of the last update.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean raycast(float ox, float oy, float dx, float dy, RaycastHit hit) {
+		return raycast(ox, oy, dx, dy, -1L, hit);
+	}
+	
+	/**
+	 * 
+	 * Casts a ray and finds the closest body on any of the specified layers whose bounding box it hits.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean raycast(float ox, float oy, float dx, float dy, long mask, RaycastHit hit) {
+		return query.raycast(proxies(), ox, oy, dx, dy, mask, hit);
+	}
+	
+	/**
+	 * 
+	 * Finds every body whose bounding box overlaps the specified region.
+	 * 
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int overlapBox(float minX, float minY, float maxX, float maxY, Body[] results) {
+		return overlapBox(minX, minY, maxX, maxY, -1L, results);
+	}
+	
+	/**
+	 * 
+	 * Finds every body on any of the specified layers whose bounding box overlaps the specified region.
+	 * 
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int overlapBox(float minX, float minY, float maxX, float maxY, long mask, Body[] results) {
+		return query.overlapBox(proxies(), minX, minY, maxX, maxY, mask, results, 0, results.length);
+	}
+	
+	/**
+	 * 
+	 * Finds every body containing the specified point.
+	 * 
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int overlapPoint(float x, float y, Body[] results) {
+		return overlapPoint(x, y, -1L, results);
+	}
+	
+	/**
+	 * 
+	 * Finds every body on any of the specified layers containing the specified point.
+	 * 
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	public int overlapPoint(float x, float y, long mask, Body[] results) {
+		return query.overlapPoint(proxies(), x, y, mask, results, 0, results.length);
+	}
+	
+	/**
+	 * 
+	 * Moves a box along a straight line and finds the first body it hits. A body the box overlaps from the start is hit
+	 * right away. The point of the hit is where the center of the box stops.
+	 * 
+	 * @param x - the x coordinate of the center of the box
+	 * @param y - the y coordinate of the center of the box
+	 * @param w - the width of the box
+	 * @param h - the height of the box
+	 * @param dx - how far the box moves on the x-axis
+	 * @param dy - how far the box moves on the y-axis
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean sweepBox(float x, float y, float w, float h, float dx, float dy, RaycastHit hit) {
+		return sweepBox(x, y, w, h, dx, dy, -1L, hit);
+	}
+	
+	/**
+	 * 
+	 * Moves a box along a straight line and finds the first body on any of the specified layers it hits.
+	 * 
+	 * @param x - the x coordinate of the center of the box
+	 * @param y - the y coordinate of the center of the box
+	 * @param w - the width of the box
+	 * @param h - the height of the box
+	 * @param dx - how far the box moves on the x-axis
+	 * @param dy - how far the box moves on the y-axis
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	public boolean sweepBox(float x, float y, float w, float h, float dx, float dy, long mask, RaycastHit hit) {
+		return query.sweepBox(proxies(), x, y, w, h, dx, dy, mask, hit);
+	}
+	
+	/**
+	 * 
+	 * Casts a batch of rays in one pass. Each ray is packed into four floats: origin x, origin y, direction x and direction y.
+	 * The batch is spread over the threads of the narrowphase when running in parallel.
+	 * 
+	 * @param rays - the packed rays
+	 * @param count - the amount of rays
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param hits - the hits to write to, one per ray
+	 * @return the amount of rays that hit a body
+	 */
+	public int raycast(float[] rays, int count, long mask, RaycastHit[] hits) {
+		return batch.raycast(getQueryPool(), proxies(), rays, count, mask, hits);
+	}
+	
+	/**
+	 * 
+	 * Runs a batch of region queries in one pass. Each region is packed into four floats: min x, min y, max x and max y.
+	 * Region i writes at most stride bodies to results, starting at index i * stride, and how many it found to counts[i].
+	 * The batch is spread over the threads of the narrowphase when running in parallel.
+	 * 
+	 * @param boxes - the packed regions
+	 * @param count - the amount of regions
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param results - the array to write the bodies to
+	 * @param stride - the most bodies to report per region
+	 * @param counts - the array to write the amount of bodies found per region to
+	 * @return the amount of bodies found in total
+	 */
+	public int overlapBox(float[] boxes, int count, long mask, Body[] results, int stride, int[] counts) {
+		return batch.overlapBox(getQueryPool(), proxies(), boxes, count, mask, results, stride, counts);
+	}
+	
+	/**
+	 * 
+	 * Runs a batch of point queries in one pass. Each point is packed into two floats: x and y.
+	 * Point i writes at most stride bodies to results, starting at index i * stride, and how many it found to counts[i].
+	 * The batch is spread over the threads of the narrowphase when running in parallel.
+	 * 
+	 * @param points - the packed points
+	 * @param count - the amount of points
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param results - the array to write the bodies to
+	 * @param stride - the most bodies to report per point
+	 * @param counts - the array to write the amount of bodies found per point to
+	 * @return the amount of bodies found in total
+	 */
+	public int overlapPoint(float[] points, int count, long mask, Body[] results, int stride, int[] counts) {
+		return batch.overlapPoint(getQueryPool(), proxies(), points, count, mask, results, stride, counts);
+	}
+	
+	/**
+	 * 
+	 * Sweeps a batch of boxes in one pass. Each box is packed into six floats: center x, center y, width, height,
+	 * movement x and movement y. The batch is spread over the threads of the narrowphase when running in parallel.
+	 * 
+	 * @param boxes - the packed boxes
+	 * @param count - the amount of boxes
+	 * @param mask - the layers to look for, see {@link CollisionLayers#getMask(String)}
+	 * @param hits - the hits to write to, one per box
+	 * @return the amount of boxes that hit a body
+	 */
+	public int sweepBox(float[] boxes, int count, long mask, RaycastHit[] hits) {
+		return batch.sweepBox(getQueryPool(), proxies(), boxes, count, mask, hits);
+	}
+	
+	/**
+	 * 
+	 * Sets whether or not resting bodies are allowed to fall asleep. Sleeping bodies are not moved or tested against each other
+	 * until something touches them or their position, velocity or dimensions are changed. Disallowing sleep wakes every body.
+	 * 
+	 * @param allowSleeping - true to let resting bodies sleep
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setAllowSleeping(boolean allowSleeping) {
+		this.allowSleeping = allowSleeping;
+		if(!allowSleeping) {
+			for(int i = 0; i < bodies.size(); i++)
+				bodies.wake(i);
+		}
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Checks whether or not resting bodies are allowed to fall asleep.
+	 * 
+	 * @return true if resting bodies can sleep
+	 */
+	public boolean isSleepingAllowed() {
+		return allowSleeping;
+	}
+	
+	/**
+	 * 
+	 * Sets the speed below which a body counts as resting.
+	 * 
+	 * @param sleepThreshold - the highest speed, in units per second, of a resting body
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setSleepThreshold(float sleepThreshold) {
+		if(sleepThreshold < 0)
+			throw new IllegalArgumentException("Sleep threshold cannot be negative: " + sleepThreshold);
+		this.sleepThreshold = sleepThreshold;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Sets how long every body in an island has to rest before the island falls asleep.
+	 * 
+	 * @param timeToSleep - the time in seconds
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setTimeToSleep(float timeToSleep) {
+		if(timeToSleep < 0)
+			throw new IllegalArgumentException("Time to sleep cannot be negative: " + timeToSleep);
+		this.timeToSleep = timeToSleep;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the amount of bodies that are currently sleeping.
+	 * 
+	 * @return the amount of sleeping bodies
+	 */
+	public int getSleepingBodyCount() {
+		int n = 0;
+		for(int i = 0; i < bodies.size(); i++) {
+			if(bodies.get(i) != null && bodies.isSleeping(i))
+				n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * 
+	 * Returns the amount of bodies that are simulated every step, that is every body that is neither sleeping nor absolute.
+	 * 
+	 * @return the amount of awake bodies
+	 */
+	public int getAwakeBodyCount() {
+		int n = 0;
+		for(int i = 0; i < bodies.size(); i++) {
+			if(bodies.get(i) != null && !bodies.isSleeping(i) && !bodies.hasFlag(i, BodyStore.FLAG_ABSOLUTE))
+				n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * 
+	 * Sets the grid of solid cells the bodies collide with. Tiles cost nothing in the broadphase, so level terrain should be
+	 * made of a tile map rather than of absolute bodies. Sleeping bodies are woken whenever the cells change.
+	 * 
+	 * @param tileMap - the tile map, or null to remove it
+	 * @return this PhysicsEngine instance
+	 */
+	public PhysicsEngine setTileMap(TileMap tileMap) {
+		this.tileMap = tileMap;
+		if(tileMap != null)
+			tileVersion = tileMap.getVersion();
+		wakeAll();
+		return this;
+	}
+	
+	/**
+	 * 
+	 * Returns the grid of solid cells the bodies collide with.
+	 * 
+	 * @return the tile map, or null if there is none
+	 */
+	public TileMap getTileMap() {
+		return tileMap;
+	}
+	
+	/**
+	 * 
+	 * Returns the broadphase used to find pairs of bodies that may be colliding.
+	 * 
+	 * @return the current broadphase
+	 */
+	public Broadphase getBroadphase() {
+		return proxies();
+	}
+	
+	/**
+	 * 
+	 * Adds a collision between two bodies to the next step, where it is solved along with the contacts the engine finds itself.
+	 * 
+	 * @param col - the collision to add
+	 * @return this PhysicsEngine instance
+	 * @deprecated The engine finds and solves its contacts itself, so collisions should not have to be added by hand. Listen to
+	 *             them with {@link #addContactListener(ContactListener)} instead.
+	 */
+	@Deprecated
+	public PhysicsEngine addCollision(Collision col) {
+		collisions.add(col);
 		return this;
 	}
 	
@@ -140,7 +1040,7 @@ public class PhysicsEngine {
 	 * @return This physics engine.
 	 */
 	public PhysicsEngine removeBody(Body body) {
-		if (bodies.contains(body) && !trash.contains(body)) {
+		if (body != null && body.store == bodies && !trash.contains(body)) {
 			trash.add(body);
 		}
 		return this;
@@ -155,8 +1055,10 @@ public class PhysicsEngine {
 	 * @return this PhysicsEngine instance
 	 */
 	public PhysicsEngine _debugDraw() {
-		for(Body b : bodies)
-			Debug.drawRect(b);
+		for(int i = 0; i < bodies.size(); i++) {
+			if(bodies.get(i) != null)
+				Debug.drawRect(bodies.get(i));
+		}
 		return this;
 	}
 	 /**
@@ -167,20 +1069,94 @@ public class PhysicsEngine {
 	  * @return this PhysicsEngine instance
 	  */
 	public PhysicsEngine addBody(Body body) {
+		if(body == null || body.store == bodies)
+			return this;
 		bodies.add(body);
+		broadphase.add(body);
 		return this;
 	}
-	 /**
-	  * 
-	  * It adds a collision between two bodies for the physics engine to handle.
-	  * Do not run call this method since it should only be called internally by the PhysicsEngine. 
-	  * 
-	  * @param col - the collision to add
-	  * @return this PhysicsEngine instance
-	  */
-	public PhysicsEngine addCollision(Collision col) {
-		collisions.add(col);
-		return this;
+	private ForkJoinPool getQueryPool() {
+		return narrowphase != null ? narrowphase.getPool() : null;
+	}
+	
+	//Brings the proxies of the bodies changed by the last restore up to date, which sleeping bodies would otherwise never get
+	private void refreshProxies() {
+		if(!restoredProxies)
+			return;
+		
+		//The bounds come from the vectors restore wrote to, or from the store while a physics thread owns the engine
+		for(int i = 0; i < bodies.size(); i++) {
+			if(bodies.restored[i] && bodies.get(i) != null) {
+				bodies.restored[i] = false;
+				broadphase.update(bodies.get(i));
+			}
+		}
+		restoredProxies = false;
+	}
+	
+	//The broadphase as of the last restore, ready for queries
+	private Broadphase proxies() {
+		refreshProxies();
+		broadphase.prepareQueries();
+		return broadphase;
+	}
+	
+	private void updateBroadphase() {
+		for(int i = 0; i < bodies.size(); i++) {
+			if(!bodies.isSleeping(i))
+				broadphase.update(bodies.get(i));
+		}
+	}
+	
+	private void wakeAll() {
+		for(int i = 0; i < bodies.size(); i++) {
+			if(bodies.get(i) != null && bodies.isSleeping(i))
+				bodies.wake(i);
+		}
+	}
+	
+	//Wakes every sleeping body that rests on or against the specified body
+	private void wakeAround(Body body) {
+		if(body.store != bodies)
+			return;
+		
+		bodies.wake(body.handle);
+		wakeAround(body.getMinX(), body.getMinY(), body.getMaxX(), body.getMaxY());
+	}
+	
+	//Wakes the island of every sleeping body overlapping a region, found through the broadphase
+	private void wakeAround(float minX, float minY, float maxX, float maxY) {
+		broadphase.prepareQueries();
+		int count = broadphase.query(minX, minY, maxX, maxY, nearby);
+		while(count == nearby.length) {
+			nearby = new Body[nearby.length * 2];
+			count = broadphase.query(minX, minY, maxX, maxY, nearby);
+		}
+		
+		for(int i = 0; i < count; i++) {
+			Body b = nearby[i];
+			if(b.store == bodies && bodies.isSleeping(b.handle))
+				bodies.wake(b.handle);
+		}
+	}
+	
+	//Absolute bodies never join an island, so whatever rests against one is woken here when it moves, changes or goes away
+	private void wakeMoved() {
+		float[] r = bodies.movedBounds;
+		for(int m = 0; m < bodies.movedCount; m++) {
+			Body b = bodies.moved[m];
+			int j = m * 4;
+			float minX = r[j], minY = r[j + 1], maxX = r[j + 2], maxY = r[j + 3];
+			if(b.store == bodies) {
+				minX = Math.min(minX, b.getMinX());
+				minY = Math.min(minY, b.getMinY());
+				maxX = Math.max(maxX, b.getMaxX());
+				maxY = Math.max(maxY, b.getMaxY());
+			}
+			wakeAround(minX, minY, maxX, maxY);
+			bodies.moved[m] = null;
+		}
+		bodies.movedCount = 0;
 	}
 	
 	/**
@@ -0,0 +1,157 @@
+package time.api.physics;
+
+/**
+ * 
+ * Answers raycasts, overlap and sweep queries against the bodies of a broadphase.
+ * <p>
+ * Every query works on the bounding boxes of the bodies as they were at the end of the last update, and only reports bodies on
+ * at least one of the layers in its mask. An instance holds its own scratch space, so it must only be used by one thread at a time,
+ * while several instances may query the same broadphase at once.
+ * 
+ */
+
+class PhysicsQuery {
+
+	private Body[] found;
+
+	/**
+	 * 
+	 * Constructs a new query with an empty scratch buffer.
+	 * 
+	 */
+	PhysicsQuery() {
+		found = new Body[64];
+	}
+
+	/**
+	 * 
+	 * Casts a ray and finds the closest body it hits.
+	 * 
+	 * @param broadphase - the broadphase to search
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param mask - the layers to look for
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	boolean raycast(Broadphase broadphase, float ox, float oy, float dx, float dy, long mask, RaycastHit hit) {
+		return broadphase.raycast(ox, oy, dx, dy, 1, mask, hit);
+	}
+
+	/**
+	 * 
+	 * Finds the bodies whose bounding boxes overlap a region.
+	 * 
+	 * @param broadphase - the broadphase to search
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param mask - the layers to look for
+	 * @param results - the array to write the bodies to
+	 * @param offset - the index of results to start writing at
+	 * @param max - the most bodies to write
+	 * @return the amount of bodies written
+	 */
+	int overlapBox(Broadphase broadphase, float minX, float minY, float maxX, float maxY, long mask,
+			Body[] results, int offset, int max) {
+		int count = find(broadphase, minX, minY, maxX, maxY);
+
+		int n = 0;
+		for(int i = 0; i < count; i++) {
+			Body b = found[i];
+			found[i] = null;
+
+			if(n < max && (b.getLayers() & mask) != 0)
+				results[offset + n++] = b;
+		}
+		return n;
+	}
+
+	/**
+	 * 
+	 * Finds the bodies containing a point.
+	 * 
+	 * @param broadphase - the broadphase to search
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @param mask - the layers to look for
+	 * @param results - the array to write the bodies to
+	 * @param offset - the index of results to start writing at
+	 * @param max - the most bodies to write
+	 * @return the amount of bodies written
+	 */
+	int overlapPoint(Broadphase broadphase, float x, float y, long mask, Body[] results, int offset, int max) {
+		int count = find(broadphase, x, y, x, y);
+
+		int n = 0;
+		for(int i = 0; i < count; i++) {
+			Body b = found[i];
+			found[i] = null;
+
+			if(n < max && (b.getLayers() & mask) != 0 && b.contains(x, y))
+				results[offset + n++] = b;
+		}
+		return n;
+	}
+
+	/**
+	 * 
+	 * Moves a box along a direction and finds the first body it hits. A body the box already overlaps is hit right away.
+	 * 
+	 * @param broadphase - the broadphase to search
+	 * @param x - the x coordinate of the center of the box
+	 * @param y - the y coordinate of the center of the box
+	 * @param w - the width of the box
+	 * @param h - the height of the box
+	 * @param dx - how far the box moves on the x-axis
+	 * @param dy - how far the box moves on the y-axis
+	 * @param mask - the layers to look for
+	 * @param hit - the hit to write the result to, its point being where the center of the box stops
+	 * @return true if a body was hit
+	 */
+	boolean sweepBox(Broadphase broadphase, float x, float y, float w, float h, float dx, float dy, long mask, RaycastHit hit) {
+		float hw = w * 0.5f;
+		float hh = h * 0.5f;
+
+		int count = find(broadphase,
+				Math.min(x, x + dx) - hw, Math.min(y, y + dy) - hh,
+				Math.max(x, x + dx) + hw, Math.max(y, y + dy) + hh);
+
+		hit.reset();
+		hit.fraction = 1;
+
+		for(int i = 0; i < count; i++) {
+			Body b = found[i];
+			found[i] = null;
+
+			if((b.getLayers() & mask) == 0)
+				continue;
+
+			//Casting the center against the body grown by the box gives the time of impact of the two boxes
+			float minX = b.getMinX() - hw, minY = b.getMinY() - hh;
+			float maxX = b.getMaxX() + hw, maxY = b.getMaxY() + hh;
+
+			float t = RaycastHit.castBox(x, y, dx, dy, hit.fraction, minX, minY, maxX, maxY);
+			if(t >= 0 && (!hit.hasHit() || t < hit.fraction))
+				hit.set(b, x, y, dx, dy, t, minX, minY, maxX, maxY);
+		}
+
+		if(!hit.hasHit())
+			hit.fraction = 0;
+
+		return hit.hasHit();
+	}
+
+	//Collects every body overlapping a region into the scratch buffer, growing it until everything fits
+	private int find(Broadphase broadphase, float minX, float minY, float maxX, float maxY) {
+		int count = broadphase.query(minX, minY, maxX, maxY, found);
+		while(count == found.length) {
+			found = new Body[found.length * 2];
+			count = broadphase.query(minX, minY, maxX, maxY, found);
+		}
+		return count;
+	}
+}
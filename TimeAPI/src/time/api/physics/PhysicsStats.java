@@ -0,0 +1,299 @@
+package time.api.physics;
+
+/**
+ * 
+ * Counts and times what the physics engine does, over a rolling window of its most recent updates.
+ * <p>
+ * Every update of the engine makes one sample, holding how long each phase took in nanoseconds, summed over the steps the
+ * update ran, together with the amount of steps and the amount of bodies, candidate pairs and contacts in the last of them. Reading the stats is cheap enough to do
+ * every frame from gameplay code or a debug overlay, and recording them costs a few calls to {@link System#nanoTime()} per
+ * step, which can be turned off. When the engine runs on a {@link PhysicsThread}, a reader on another thread may see a sample
+ * that is being written.
+ * 
+ */
+
+public class PhysicsStats {
+
+	public static final int DEFAULT_WINDOW = 60;
+
+	//Phases, timed in nanoseconds
+	public static final int PREPARE = 0;
+	public static final int INTEGRATE = 1;
+	public static final int BROADPHASE = 2;
+	public static final int NARROWPHASE = 3;
+	public static final int SOLVE = 4;
+	public static final int CONTINUOUS = 5;
+	public static final int SLEEP = 6;
+	public static final int LISTENERS = 7;
+	public static final int STORE = 8;
+
+	//Counts
+	public static final int BODIES = 9;
+	public static final int PAIRS = 10;
+	public static final int CONTACTS = 11;
+	public static final int STEPS = 12;
+
+	//The sum of every phase
+	public static final int TOTAL = 13;
+
+	public static final int METRICS = 14;
+
+	private static final String[] NAMES = {
+			"prepare", "integrate", "broadphase", "narrowphase", "solve", "continuous", "sleep", "listeners", "store",
+			"bodies", "pairs", "contacts", "steps", "total"
+	};
+
+	//One row of metrics per sample, the newest at the last written index
+	private final long[] samples;
+	private final int window;
+
+	//The sample being recorded
+	private final long[] current;
+
+	private int next;
+	private int count;
+
+	private boolean enabled = true;
+
+	//Whether the sample being recorded was started while enabled
+	private boolean recording;
+
+	/**
+	 * 
+	 * Constructs a new set of stats over the default window of updates.
+	 * 
+	 */
+	public PhysicsStats() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * 
+	 * Constructs a new set of stats over the specified window of updates.
+	 * 
+	 * @param window - the amount of updates to keep
+	 */
+	public PhysicsStats(int window) {
+		if(window < 1)
+			throw new IllegalArgumentException("Window must hold at least one update: " + window);
+
+		this.window = window;
+		this.samples = new long[window * METRICS];
+		this.current = new long[METRICS];
+	}
+
+	/**
+	 * 
+	 * Returns the value of a metric in the most recent update.
+	 * 
+	 * @param metric - the metric to read, such as {@link #NARROWPHASE} or {@link #CONTACTS}
+	 * @return the value of the metric, in nanoseconds for phases
+	 */
+	public long getLast(int metric) {
+		check(metric);
+		if(count == 0)
+			return 0;
+
+		int last = (next - 1 + window) % window;
+		return samples[last * METRICS + metric];
+	}
+
+	/**
+	 * 
+	 * Returns the average value of a metric over the window.
+	 * 
+	 * @param metric - the metric to read
+	 * @return the average value of the metric, in nanoseconds for phases
+	 */
+	public double getAverage(int metric) {
+		check(metric);
+		if(count == 0)
+			return 0;
+
+		long sum = 0;
+		for(int i = 0; i < count; i++)
+			sum += samples[i * METRICS + metric];
+		return (double)sum / count;
+	}
+
+	/**
+	 * 
+	 * Returns the highest value of a metric over the window.
+	 * 
+	 * @param metric - the metric to read
+	 * @return the highest value of the metric, in nanoseconds for phases
+	 */
+	public long getMax(int metric) {
+		check(metric);
+
+		long max = 0;
+		for(int i = 0; i < count; i++)
+			max = Math.max(max, samples[i * METRICS + metric]);
+		return max;
+	}
+
+	/**
+	 * 
+	 * Returns the name of a metric, for displaying it.
+	 * 
+	 * @param metric - the metric
+	 * @return the name of the metric
+	 */
+	public static String getName(int metric) {
+		check(metric);
+		return NAMES[metric];
+	}
+
+	/**
+	 * 
+	 * Returns the amount of updates currently in the window.
+	 * 
+	 * @return the amount of samples
+	 */
+	public int getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * 
+	 * Returns the most updates kept at once.
+	 * 
+	 * @return the size of the window
+	 */
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * 
+	 * Sets whether or not the engine records stats. Disabled stats keep the samples they already hold.
+	 * 
+	 * @param enabled - true to record stats
+	 * @return this PhysicsStats instance
+	 */
+	public PhysicsStats setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not the engine records stats.
+	 * 
+	 * @return true if stats are recorded
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 
+	 * Forgets every sample.
+	 * 
+	 * @return this PhysicsStats instance
+	 */
+	public PhysicsStats clear() {
+		next = 0;
+		count = 0;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns the averages over the window, one metric per line, with phases in milliseconds.
+	 * 
+	 * @return a summary of the stats
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(int m = 0; m < METRICS; m++) {
+			sb.append(NAMES[m]).append(": ");
+			if(m < BODIES || m == TOTAL)
+				sb.append(String.format("%.3f ms (max %.3f)", getAverage(m) / 1e6, getMax(m) / 1e6));
+			else
+				sb.append(String.format("%.1f (max %d)", getAverage(m), getMax(m)));
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 
+	 * Starts recording the sample of a new update.
+	 * 
+	 * @return the current time, to be passed to {@link #time(int, long)}
+	 */
+	long begin() {
+		recording = enabled;
+		if(!recording)
+			return 0;
+
+		for(int i = 0; i < METRICS; i++)
+			current[i] = 0;
+		return System.nanoTime();
+	}
+
+	/**
+	 * 
+	 * Returns the current time if the sample is being recorded, for timing a phase that does not directly follow another one.
+	 * 
+	 * @return the current time
+	 */
+	long now() {
+		return recording ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * 
+	 * Adds the time since the specified moment to a phase.
+	 * 
+	 * @param phase - the phase that just ended
+	 * @param start - when the phase started
+	 * @return the current time, for the next phase to start from
+	 */
+	long time(int phase, long start) {
+		if(!recording)
+			return 0;
+
+		long now = System.nanoTime();
+		current[phase] += now - start;
+		return now;
+	}
+
+	/**
+	 * 
+	 * Sets a count of the current update.
+	 * 
+	 * @param metric - the count to set
+	 * @param amount - the new value
+	 */
+	void set(int metric, long amount) {
+		current[metric] = amount;
+	}
+
+	/**
+	 * 
+	 * Finishes the sample of the current update and adds it to the window, replacing the oldest one if the window is full.
+	 * 
+	 */
+	void end() {
+		if(!recording)
+			return;
+		recording = false;
+
+		long total = 0;
+		for(int i = 0; i < BODIES; i++)
+			total += current[i];
+		current[TOTAL] = total;
+
+		System.arraycopy(current, 0, samples, next * METRICS, METRICS);
+		next = (next + 1) % window;
+		count = Math.min(count + 1, window);
+	}
+
+	private static void check(int metric) {
+		if(metric < 0 || metric >= METRICS)
+			throw new IllegalArgumentException("Unknown metric: " + metric);
+	}
+}
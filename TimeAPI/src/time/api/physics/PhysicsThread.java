@@ -0,0 +1,385 @@
+package time.api.physics;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 
+ * Runs a {@link PhysicsEngine} on its own thread at the fixed rate of the engine, so a heavy step no longer holds up drawing.
+ * <p>
+ * While the thread runs, it owns the engine and the simulation state of its bodies. After every update it publishes where
+ * each body is into one of three frames, and {@link #sync()} hands the newest one to the calling thread without locking, which
+ * writes the positions and velocities into the vectors of the bodies for drawing. Changes to the simulation, such as adding,
+ * removing or pushing bodies, are queued with the methods of this class and carried out by the physics thread before its next
+ * step. Calling the setters of a body, or any method of the engine that changes it, from another thread while this thread runs
+ * leads to undefined results. Contact listeners are called on the physics thread.
+ * <p>
+ * Once stopped, the final state is written to the vectors of the bodies and the engine can be updated as usual again.
+ * 
+ */
+
+public class PhysicsThread implements Runnable {
+
+	//The shared frame index, with this bit set if the physics thread published it since the last sync
+	private static final int FRESH = 4;
+
+	private final PhysicsEngine engine;
+	private final ConcurrentLinkedQueue<Runnable> commands;
+
+	private final Frame[] frames;
+	private final AtomicInteger shared;
+
+	//Only touched by the physics thread
+	private int back;
+
+	//Only touched by the thread calling sync
+	private int front;
+
+	private Thread thread;
+	private volatile boolean running;
+
+	/**
+	 * 
+	 * Constructs a new physics thread for the specified engine. The thread is not started.
+	 * 
+	 * @param engine - the physics engine to run
+	 */
+	public PhysicsThread(PhysicsEngine engine) {
+		this.engine = engine;
+		this.commands = new ConcurrentLinkedQueue<Runnable>();
+
+		frames = new Frame[3];
+		for(int i = 0; i < frames.length; i++)
+			frames[i] = new Frame();
+
+		back = 0;
+		shared = new AtomicInteger(1);
+		front = 2;
+	}
+
+	/**
+	 * 
+	 * Starts running the physics engine on a new thread. Changes made to the bodies through their vectors or setters since the
+	 * last update are picked up before the thread takes over.
+	 * 
+	 * @return this PhysicsThread instance
+	 */
+	public synchronized PhysicsThread start() {
+		if(thread != null)
+			throw new IllegalStateException("The physics thread is already running");
+
+		engine.setDetached(true);
+		running = true;
+
+		thread = new Thread(this, "Physics");
+		thread.setDaemon(true);
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * 
+	 * Stops the physics thread and waits for it to finish. Queued commands are carried out before it stops, and the final state
+	 * is written to the vectors of the bodies.
+	 * 
+	 * @return this PhysicsThread instance
+	 */
+	public synchronized PhysicsThread stop() {
+		if(thread == null)
+			return this;
+
+		running = false;
+		LockSupport.unpark(thread);
+
+		boolean interrupted = false;
+		while(thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		thread = null;
+		engine.setDetached(false);
+		engine.getBodyStore().store();
+		return this;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not the physics thread is running.
+	 * 
+	 * @return true if the thread is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * 
+	 * Returns the physics engine run by this thread.
+	 * 
+	 * @return the physics engine
+	 */
+	public PhysicsEngine getEngine() {
+		return engine;
+	}
+
+	@Override
+	public void run() {
+		long step = (long)(PhysicsEngine.getSimulationStep() * 1e9);
+		long next = System.nanoTime() + step;
+
+		try {
+			while(running) {
+				runCommands();
+
+				long now = System.nanoTime();
+				int steps = 0;
+				while(next <= now && steps < engine.getMaxSubsteps()) {
+					engine.advance();
+					next += step;
+					steps++;
+				}
+
+				//Drop the time we could not catch up on, the same way the engine does
+				if(next <= now)
+					next += ((now - next) / step + 1) * step;
+
+				if(steps > 0)
+					publish(now);
+
+				LockSupport.parkNanos(this, next - System.nanoTime());
+			}
+		} finally {
+			running = false;
+			runCommands();
+		}
+	}
+
+	/**
+	 * 
+	 * Writes the newest published positions and velocities into the vectors of the bodies. This is meant to be called once per
+	 * frame by the thread that draws the bodies, before drawing them.
+	 * 
+	 * @return true if a new frame was published since the last sync
+	 */
+	public boolean sync() {
+		if((shared.get() & FRESH) == 0)
+			return false;
+
+		front = shared.getAndSet(front) & ~FRESH;
+
+		Frame f = frames[front];
+		for(int i = 0; i < f.size; i++) {
+			Body b = f.bodies[i];
+			b.transform.pos.set(f.posX[i], f.posY[i]);
+			b.transform.setPrevious(f.prevX[i], f.prevY[i]);
+			b.vel.set(f.velX[i], f.velY[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * 
+	 * Returns how far the drawing thread is between the previous and the last synced step, for interpolating the bodies.
+	 * 
+	 * @return the interpolation factor, between 0 and 1
+	 */
+	public float getAlpha() {
+		Frame f = frames[front];
+		if(f.time == 0)
+			return 1;
+
+		float alpha = (System.nanoTime() - f.time) / (PhysicsEngine.getSimulationStep() * 1e9f);
+		return Math.max(0, Math.min(alpha, 1));
+	}
+
+	/**
+	 * 
+	 * Queues a command to be carried out on the physics thread before its next step. Commands may change the engine and its
+	 * bodies freely, and run in the order they were queued in.
+	 * 
+	 * @param command - the command to run
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread invoke(Runnable command) {
+		if(command == null)
+			throw new IllegalArgumentException("Command cannot be null");
+		commands.add(command);
+		return this;
+	}
+
+	/**
+	 * 
+	 * Queues a body to be added to the simulation.
+	 * 
+	 * @param body - the body to add
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread addBody(final Body body) {
+		return invoke(new Runnable() {
+			@Override
+			public void run() {
+				engine.addBody(body);
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * Queues a body to be removed from the simulation.
+	 * 
+	 * @param body - the body to remove
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread removeBody(final Body body) {
+		return invoke(new Runnable() {
+			@Override
+			public void run() {
+				engine.removeBody(body);
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * Queues an impulse on a body, which also wakes it up.
+	 * 
+	 * @param body - the body to push
+	 * @param x - the impulse on the x-axis
+	 * @param y - the impulse on the y-axis
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread push(final Body body, final float x, final float y) {
+		return invoke(new Runnable() {
+			@Override
+			public void run() {
+				BodyStore s = body.store;
+				if(s == null)
+					return;
+				s.wake(body.handle);
+				s.push(body.handle, x, y);
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * Queues a new velocity for a body, which also wakes it up.
+	 * 
+	 * @param body - the body to change
+	 * @param x - the velocity on the x-axis
+	 * @param y - the velocity on the y-axis
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread setVelocity(final Body body, final float x, final float y) {
+		return invoke(new Runnable() {
+			@Override
+			public void run() {
+				BodyStore s = body.store;
+				if(s == null)
+					return;
+				s.wake(body.handle);
+				s.velX[body.handle] = x * s.motion[body.handle];
+				s.velY[body.handle] = y * s.motion[body.handle];
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * Queues a body to be moved to a new position. It jumps there rather than sliding over, and wakes up.
+	 * 
+	 * @param body - the body to move
+	 * @param x - the new center x coordinate
+	 * @param y - the new center y coordinate
+	 * @return this PhysicsThread instance
+	 */
+	public PhysicsThread setPosition(final Body body, final float x, final float y) {
+		return invoke(new Runnable() {
+			@Override
+			public void run() {
+				BodyStore s = body.store;
+				if(s == null)
+					return;
+				int h = body.handle;
+				s.moved(h);
+				s.wake(h);
+				s.posX[h] = s.prevX[h] = x;
+				s.posY[h] = s.prevY[h] = y;
+				engine.getBroadphase().update(body);
+			}
+		});
+	}
+
+	private void runCommands() {
+		Runnable command;
+		while((command = commands.poll()) != null)
+			command.run();
+	}
+
+	//Copies the bodies into the back frame and swaps it with the shared one
+	private void publish(long time) {
+		BodyStore s = engine.getBodyStore();
+		Frame f = frames[back];
+		f.ensureCapacity(s.size);
+
+		int n = 0;
+		for(int i = 0; i < s.size; i++) {
+			if(s.bodies[i] == null)
+				continue;
+
+			f.bodies[n] = s.bodies[i];
+			f.posX[n] = s.posX[i];
+			f.posY[n] = s.posY[i];
+			f.prevX[n] = s.prevX[i];
+			f.prevY[n] = s.prevY[i];
+			f.velX[n] = s.velX[i];
+			f.velY[n] = s.velY[i];
+			n++;
+		}
+
+		//Let go of bodies removed since this frame was last used
+		for(int i = n; i < f.size; i++)
+			f.bodies[i] = null;
+
+		f.size = n;
+		f.time = time;
+
+		back = shared.getAndSet(back | FRESH) & ~FRESH;
+	}
+
+	private static class Frame {
+
+		Body[] bodies = new Body[0];
+		float[] posX, posY;
+		float[] prevX, prevY;
+		float[] velX, velY;
+
+		int size;
+
+		//When the frame was published
+		long time;
+
+		void ensureCapacity(int n) {
+			if(bodies.length >= n)
+				return;
+
+			Body[] b = new Body[n + n / 2];
+			System.arraycopy(bodies, 0, b, 0, size);
+			bodies = b;
+
+			posX = new float[b.length];
+			posY = new float[b.length];
+			prevX = new float[b.length];
+			prevY = new float[b.length];
+			velX = new float[b.length];
+			velY = new float[b.length];
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package time.api.physics;
+
+/**
+ * 
+ * A convex polygon that turns with the rotation of its body.
+ * 
+ */
+
+public class PolygonShape extends Shape {
+
+	private final float[] x, y;
+	private final float[] normalX, normalY;
+
+	//The box around the polygon at no rotation, centered on the body
+	private final float halfW, halfH;
+
+	/**
+	 * 
+	 * Constructs a new convex polygon from its corners, given relative to the center of the body. The corners may be given in
+	 * either winding order.
+	 * 
+	 * @param vertices - the corners as pairs of x and y coordinates
+	 */
+	public PolygonShape(float... vertices) {
+		super(POLYGON);
+		if(vertices.length < 6 || vertices.length % 2 != 0)
+			throw new IllegalArgumentException("A polygon needs at least three corners given as x and y pairs, got " + vertices.length + " values");
+
+		int n = vertices.length / 2;
+		x = new float[n];
+		y = new float[n];
+
+		//Corners are kept counter-clockwise, so the edge normals point outwards
+		float area = 0;
+		for(int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			area += vertices[i * 2] * vertices[j * 2 + 1] - vertices[j * 2] * vertices[i * 2 + 1];
+		}
+		if(area == 0)
+			throw new IllegalArgumentException("Polygon has no area");
+
+		for(int i = 0; i < n; i++) {
+			int k = area > 0 ? i : n - 1 - i;
+			x[i] = vertices[k * 2];
+			y[i] = vertices[k * 2 + 1];
+		}
+
+		normalX = new float[n];
+		normalY = new float[n];
+		float w = 0, h = 0;
+		for(int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			float ex = x[j] - x[i];
+			float ey = y[j] - y[i];
+			float length = (float)Math.sqrt(ex * ex + ey * ey);
+			if(length == 0)
+				throw new IllegalArgumentException("Polygon has two identical corners at " + i + " and " + j);
+
+			normalX[i] = ey / length;
+			normalY[i] = -ex / length;
+
+			//Every other corner must lie behind each edge
+			for(int k = 0; k < n; k++) {
+				if((x[k] - x[i]) * normalX[i] + (y[k] - y[i]) * normalY[i] > 1e-4f * length)
+					throw new IllegalArgumentException("Polygon is not convex");
+			}
+
+			w = Math.max(w, Math.abs(x[i]));
+			h = Math.max(h, Math.abs(y[i]));
+		}
+
+		halfW = w;
+		halfH = h;
+	}
+
+	@Override
+	public boolean rotates() {
+		return true;
+	}
+
+	@Override
+	public float getWidth() {
+		return halfW * 2;
+	}
+
+	@Override
+	public float getHeight() {
+		return halfH * 2;
+	}
+
+	@Override
+	float getHalfWidth(float cos, float sin) {
+		float w = 0;
+		for(int i = 0; i < x.length; i++)
+			w = Math.max(w, Math.abs(x[i] * cos - y[i] * sin));
+		return w;
+	}
+
+	@Override
+	float getHalfHeight(float cos, float sin) {
+		float h = 0;
+		for(int i = 0; i < x.length; i++)
+			h = Math.max(h, Math.abs(x[i] * sin + y[i] * cos));
+		return h;
+	}
+
+	@Override
+	float support(float dx, float dy) {
+		float max = -Float.MAX_VALUE;
+		for(int i = 0; i < x.length; i++)
+			max = Math.max(max, x[i] * dx + y[i] * dy);
+		return max;
+	}
+
+	@Override
+	int getAxisCount() {
+		return x.length;
+	}
+
+	@Override
+	float getAxisX(int i) {
+		return normalX[i];
+	}
+
+	@Override
+	float getAxisY(int i) {
+		return normalY[i];
+	}
+
+	@Override
+	int getVertexCount() {
+		return x.length;
+	}
+
+	@Override
+	float getVertexX(int i) {
+		return x[i];
+	}
+
+	@Override
+	float getVertexY(int i) {
+		return y[i];
+	}
+}
@@ -0,0 +1,259 @@
+package time.api.physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 
+ * Runs many queries of the same kind in one pass, optionally spread over a {@link ForkJoinPool}.
+ * <p>
+ * The queries are packed into a float array and cut into chunks of a fixed size. Each query writes only to its own part of the
+ * caller's result buffers, so the results do not depend on how the chunks were scheduled. The chunk tasks and their scratch
+ * space are kept between batches.
+ * 
+ */
+
+class QueryBatch {
+
+	static final int CHUNK_SIZE = 32;
+
+	private static final int RAYCAST = 0;
+	private static final int OVERLAP_BOX = 1;
+	private static final int OVERLAP_POINT = 2;
+	private static final int SWEEP_BOX = 3;
+
+	private final PhysicsQuery query;
+
+	private Chunk[] chunks;
+	private final Root root;
+
+	//The batch being run
+	private int kind;
+	private Broadphase broadphase;
+	private float[] queries;
+	private long mask;
+	private RaycastHit[] hits;
+	private Body[] results;
+	private int stride;
+	private int[] counts;
+
+	/**
+	 * 
+	 * Constructs a new query batch.
+	 * 
+	 * @param query - the query to use on the calling thread
+	 */
+	QueryBatch(PhysicsQuery query) {
+		this.query = query;
+		this.chunks = new Chunk[0];
+		this.root = new Root();
+	}
+
+	/**
+	 * 
+	 * Casts a batch of rays, packed as origin x, origin y, direction x and direction y.
+	 * 
+	 * @param pool - the pool to run on, or null to run on the calling thread
+	 * @param broadphase - the broadphase to search
+	 * @param rays - the packed rays
+	 * @param count - the amount of rays
+	 * @param mask - the layers to look for
+	 * @param hits - the hits to write to, one per ray
+	 * @return the amount of rays that hit a body
+	 */
+	int raycast(ForkJoinPool pool, Broadphase broadphase, float[] rays, int count, long mask, RaycastHit[] hits) {
+		check(rays, count, 4);
+		check(hits, count);
+		this.hits = hits;
+		return run(pool, RAYCAST, broadphase, rays, count, mask);
+	}
+
+	/**
+	 * 
+	 * Runs a batch of region queries, packed as min x, min y, max x and max y.
+	 * 
+	 * @param pool - the pool to run on, or null to run on the calling thread
+	 * @param broadphase - the broadphase to search
+	 * @param boxes - the packed regions
+	 * @param count - the amount of regions
+	 * @param mask - the layers to look for
+	 * @param results - the bodies found, each region writing at most stride bodies from index i * stride
+	 * @param stride - the most bodies to report per region
+	 * @param counts - the amount of bodies found per region
+	 * @return the amount of bodies found in total
+	 */
+	int overlapBox(ForkJoinPool pool, Broadphase broadphase, float[] boxes, int count, long mask,
+			Body[] results, int stride, int[] counts) {
+		check(boxes, count, 4);
+		check(results, stride, counts, count);
+		this.results = results;
+		this.stride = stride;
+		this.counts = counts;
+		return run(pool, OVERLAP_BOX, broadphase, boxes, count, mask);
+	}
+
+	/**
+	 * 
+	 * Runs a batch of point queries, packed as x and y.
+	 * 
+	 * @param pool - the pool to run on, or null to run on the calling thread
+	 * @param broadphase - the broadphase to search
+	 * @param points - the packed points
+	 * @param count - the amount of points
+	 * @param mask - the layers to look for
+	 * @param results - the bodies found, each point writing at most stride bodies from index i * stride
+	 * @param stride - the most bodies to report per point
+	 * @param counts - the amount of bodies found per point
+	 * @return the amount of bodies found in total
+	 */
+	int overlapPoint(ForkJoinPool pool, Broadphase broadphase, float[] points, int count, long mask,
+			Body[] results, int stride, int[] counts) {
+		check(points, count, 2);
+		check(results, stride, counts, count);
+		this.results = results;
+		this.stride = stride;
+		this.counts = counts;
+		return run(pool, OVERLAP_POINT, broadphase, points, count, mask);
+	}
+
+	/**
+	 * 
+	 * Sweeps a batch of boxes, packed as center x, center y, width, height, movement x and movement y.
+	 * 
+	 * @param pool - the pool to run on, or null to run on the calling thread
+	 * @param broadphase - the broadphase to search
+	 * @param boxes - the packed boxes
+	 * @param count - the amount of boxes
+	 * @param mask - the layers to look for
+	 * @param hits - the hits to write to, one per box
+	 * @return the amount of boxes that hit a body
+	 */
+	int sweepBox(ForkJoinPool pool, Broadphase broadphase, float[] boxes, int count, long mask, RaycastHit[] hits) {
+		check(boxes, count, 6);
+		check(hits, count);
+		this.hits = hits;
+		return run(pool, SWEEP_BOX, broadphase, boxes, count, mask);
+	}
+
+	private int run(ForkJoinPool pool, int kind, Broadphase broadphase, float[] queries, int count, long mask) {
+		this.kind = kind;
+		this.broadphase = broadphase;
+		this.queries = queries;
+		this.mask = mask;
+
+		int n = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if(pool == null || n <= 1 || pool.getParallelism() <= 1) {
+			run(query, 0, count);
+		} else {
+			if(chunks.length < n) {
+				Chunk[] c = new Chunk[n];
+				System.arraycopy(chunks, 0, c, 0, chunks.length);
+				for(int i = chunks.length; i < n; i++)
+					c[i] = new Chunk();
+				chunks = c;
+			}
+
+			for(int i = 0; i < n; i++) {
+				Chunk c = chunks[i];
+				c.reinitialize();
+				c.from = i * CHUNK_SIZE;
+				c.to = Math.min(count, c.from + CHUNK_SIZE);
+			}
+
+			root.reinitialize();
+			root.count = n;
+			pool.invoke(root);
+		}
+
+		int total = 0;
+		for(int i = 0; i < count; i++) {
+			if(kind == RAYCAST || kind == SWEEP_BOX)
+				total += hits[i].hasHit() ? 1 : 0;
+			else
+				total += counts[i];
+		}
+
+		this.broadphase = null;
+		this.queries = null;
+		this.hits = null;
+		this.results = null;
+		this.counts = null;
+
+		return total;
+	}
+
+	private void run(PhysicsQuery q, int from, int to) {
+		float[] d = queries;
+		for(int i = from; i < to; i++) {
+			switch(kind) {
+			case RAYCAST:
+				q.raycast(broadphase, d[i * 4], d[i * 4 + 1], d[i * 4 + 2], d[i * 4 + 3], mask, hits[i]);
+				break;
+			case OVERLAP_BOX:
+				counts[i] = q.overlapBox(broadphase, d[i * 4], d[i * 4 + 1], d[i * 4 + 2], d[i * 4 + 3], mask,
+						results, i * stride, stride);
+				break;
+			case OVERLAP_POINT:
+				counts[i] = q.overlapPoint(broadphase, d[i * 2], d[i * 2 + 1], mask, results, i * stride, stride);
+				break;
+			case SWEEP_BOX:
+				q.sweepBox(broadphase, d[i * 6], d[i * 6 + 1], d[i * 6 + 2], d[i * 6 + 3], d[i * 6 + 4], d[i * 6 + 5],
+						mask, hits[i]);
+				break;
+			}
+		}
+	}
+
+	private static void check(float[] queries, int count, int size) {
+		if(count < 0)
+			throw new IllegalArgumentException("Query count cannot be negative: " + count);
+		if(queries.length < (long)count * size)
+			throw new IllegalArgumentException("Expected " + size + " floats for each of " + count + " queries, got " + queries.length);
+	}
+
+	private static void check(RaycastHit[] hits, int count) {
+		if(hits.length < count)
+			throw new IllegalArgumentException("Expected a hit for each of " + count + " queries, got " + hits.length);
+	}
+
+	private static void check(Body[] results, int stride, int[] counts, int count) {
+		if(stride < 0)
+			throw new IllegalArgumentException("Stride cannot be negative: " + stride);
+		if(results.length < (long)count * stride)
+			throw new IllegalArgumentException("Expected room for " + stride + " bodies for each of " + count + " queries, got " + results.length);
+		if(counts.length < count)
+			throw new IllegalArgumentException("Expected a count for each of " + count + " queries, got " + counts.length);
+	}
+
+	private class Root extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int count;
+
+		@Override
+		protected void compute() {
+			for(int i = 1; i < count; i++)
+				chunks[i].fork();
+
+			chunks[0].invoke();
+
+			for(int i = 1; i < count; i++)
+				chunks[i].join();
+		}
+	}
+
+	private class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final PhysicsQuery query = new PhysicsQuery();
+
+		int from, to;
+
+		@Override
+		protected void compute() {
+			run(query, from, to);
+		}
+	}
+}
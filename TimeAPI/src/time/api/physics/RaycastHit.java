@@ -0,0 +1,191 @@
+package time.api.physics;
+
+/**
+ * 
+ * Holds the result of a raycast. Instances are meant to be reused between casts so that no objects are created per query.
+ * 
+ */
+
+public class RaycastHit {
+
+	Body body;
+
+	float fraction;
+	float x, y;
+	float normalX, normalY;
+
+	/**
+	 * 
+	 * Returns the body that was hit, or null if nothing was hit.
+	 * 
+	 * @return the body that was hit
+	 */
+	public Body getBody() {
+		return body;
+	}
+
+	/**
+	 * 
+	 * Returns how far along the ray the hit occurred, as a multiple of the ray direction.
+	 * 
+	 * @return the fraction along the ray where the hit occurred
+	 */
+	public float getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * 
+	 * Returns the x coordinate of the hit point.
+	 * 
+	 * @return the x coordinate of the hit point
+	 */
+	public float getX() {
+		return x;
+	}
+
+	/**
+	 * 
+	 * Returns the y coordinate of the hit point.
+	 * 
+	 * @return the y coordinate of the hit point
+	 */
+	public float getY() {
+		return y;
+	}
+
+	/**
+	 * 
+	 * Returns the x component of the surface normal at the hit point.
+	 * 
+	 * @return the x component of the surface normal
+	 */
+	public float getNormalX() {
+		return normalX;
+	}
+
+	/**
+	 * 
+	 * Returns the y component of the surface normal at the hit point.
+	 * 
+	 * @return the y component of the surface normal
+	 */
+	public float getNormalY() {
+		return normalY;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not the cast hit anything.
+	 * 
+	 * @return true if a body was hit
+	 */
+	public boolean hasHit() {
+		return body != null;
+	}
+
+	/**
+	 * 
+	 * Clears this hit so it can be reused.
+	 * 
+	 * @return this RaycastHit instance
+	 */
+	public RaycastHit reset() {
+		body = null;
+		fraction = 0;
+		x = y = 0;
+		normalX = normalY = 0;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Records a hit against an axis aligned box at the specified fraction along the ray.
+	 * 
+	 * @param body - the body that was hit
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param t - the fraction along the ray where the box was entered
+	 * @param minX - the left edge of the box
+	 * @param minY - the bottom edge of the box
+	 * @param maxX - the right edge of the box
+	 * @param maxY - the top edge of the box
+	 */
+	void set(Body body, float ox, float oy, float dx, float dy, float t,
+			float minX, float minY, float maxX, float maxY) {
+		this.body = body;
+		this.fraction = t;
+		this.x = ox + dx * t;
+		this.y = oy + dy * t;
+
+		//The face that was crossed last is the one that was hit
+		float tx = dx > 0 ? (minX - ox) / dx : dx < 0 ? (maxX - ox) / dx : Float.NEGATIVE_INFINITY;
+		float ty = dy > 0 ? (minY - oy) / dy : dy < 0 ? (maxY - oy) / dy : Float.NEGATIVE_INFINITY;
+
+		normalX = normalY = 0;
+		if(t <= 0)
+			return;
+		if(tx > ty)
+			normalX = dx > 0 ? -1 : 1;
+		else
+			normalY = dy > 0 ? -1 : 1;
+	}
+
+	/**
+	 * 
+	 * Tests a ray against an axis aligned box using the slab method.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param maxFraction - the furthest fraction along the ray to accept
+	 * @param minX - the left edge of the box
+	 * @param minY - the bottom edge of the box
+	 * @param maxX - the right edge of the box
+	 * @param maxY - the top edge of the box
+	 * @return the fraction along the ray where the box is entered, 0 if the origin is inside it or -1 if it is missed
+	 */
+	static float castBox(float ox, float oy, float dx, float dy, float maxFraction,
+			float minX, float minY, float maxX, float maxY) {
+
+		float tMin = 0;
+		float tMax = maxFraction;
+
+		if(dx == 0) {
+			if(ox < minX || ox > maxX)
+				return -1;
+		} else {
+			float inv = 1f / dx;
+			float t1 = (minX - ox) * inv;
+			float t2 = (maxX - ox) * inv;
+			if(t1 > t2) {
+				float t = t1; t1 = t2; t2 = t;
+			}
+			tMin = Math.max(tMin, t1);
+			tMax = Math.min(tMax, t2);
+			if(tMin > tMax)
+				return -1;
+		}
+
+		if(dy == 0) {
+			if(oy < minY || oy > maxY)
+				return -1;
+		} else {
+			float inv = 1f / dy;
+			float t1 = (minY - oy) * inv;
+			float t2 = (maxY - oy) * inv;
+			if(t1 > t2) {
+				float t = t1; t1 = t2; t2 = t;
+			}
+			tMin = Math.max(tMin, t1);
+			tMax = Math.min(tMax, t2);
+			if(tMin > tMax)
+				return -1;
+		}
+
+		return tMin;
+	}
+}
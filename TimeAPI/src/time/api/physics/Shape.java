@@ -0,0 +1,136 @@
+package time.api.physics;
+
+/**
+ * 
+ * The outline of a body. A body without a shape is an axis-aligned box the size of its dimensions.
+ * <p>
+ * Shapes are described around the center of their body, and the shapes that can turn follow the rotation of the body's
+ * transform. Bodies are not turned by collisions, so a rotated shape only changes which way its body is pushed. For the
+ * broadphase, every shape reports the half extents of the axis-aligned box around it at a given rotation, centered on the body.
+ * <p>
+ * Pairs of bodies are tested by a routine picked from a table by the types of their shapes, see {@link ShapeCollisions}.
+ * 
+ */
+
+public abstract class Shape {
+
+	public static final int BOX = 0;
+	public static final int CIRCLE = 1;
+	public static final int ORIENTED_BOX = 2;
+	public static final int POLYGON = 3;
+
+	//The amount of shape types, and so the size of each side of the dispatch table
+	static final int TYPES = 4;
+
+	private final int type;
+
+	/**
+	 * 
+	 * Constructs a new shape of the specified type.
+	 * 
+	 * @param type - the type of the shape
+	 */
+	Shape(int type) {
+		this.type = type;
+	}
+
+	/**
+	 * 
+	 * Returns the type of this shape, which picks the routines it is tested with.
+	 * 
+	 * @return the type of this shape
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not this shape follows the rotation of its body.
+	 * 
+	 * @return true if the shape turns with its body
+	 */
+	public abstract boolean rotates();
+
+	/**
+	 * 
+	 * Returns the width of the box around this shape when it is not rotated.
+	 * 
+	 * @return the width of this shape
+	 */
+	public abstract float getWidth();
+
+	/**
+	 * 
+	 * Returns the height of the box around this shape when it is not rotated.
+	 * 
+	 * @return the height of this shape
+	 */
+	public abstract float getHeight();
+
+	/**
+	 * 
+	 * Returns half the width of the box around this shape at a rotation.
+	 * 
+	 * @param cos - the cosine of the rotation
+	 * @param sin - the sine of the rotation
+	 * @return the half width of the rotated shape
+	 */
+	abstract float getHalfWidth(float cos, float sin);
+
+	/**
+	 * 
+	 * Returns half the height of the box around this shape at a rotation.
+	 * 
+	 * @param cos - the cosine of the rotation
+	 * @param sin - the sine of the rotation
+	 * @return the half height of the rotated shape
+	 */
+	abstract float getHalfHeight(float cos, float sin);
+
+	/**
+	 * 
+	 * Returns how far this shape reaches along a direction in its own space, the furthest any of its points projects onto it.
+	 * 
+	 * @param dx - the x component of the direction
+	 * @param dy - the y component of the direction
+	 * @return the reach of this shape along the direction
+	 */
+	abstract float support(float dx, float dy);
+
+	/**
+	 * 
+	 * Returns the amount of edge normals that may separate this shape from another.
+	 * 
+	 * @return the amount of separating axes
+	 */
+	int getAxisCount() {
+		return 0;
+	}
+
+	float getAxisX(int i) {
+		throw new IndexOutOfBoundsException("Axis " + i);
+	}
+
+	float getAxisY(int i) {
+		throw new IndexOutOfBoundsException("Axis " + i);
+	}
+
+	/**
+	 * 
+	 * Returns the amount of corners of this shape.
+	 * 
+	 * @return the amount of vertices
+	 */
+	int getVertexCount() {
+		return 0;
+	}
+
+	float getVertexX(int i) {
+		throw new IndexOutOfBoundsException("Vertex " + i);
+	}
+
+	float getVertexY(int i) {
+		throw new IndexOutOfBoundsException("Vertex " + i);
+	}
+}
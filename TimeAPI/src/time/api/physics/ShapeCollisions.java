@@ -0,0 +1,354 @@
+package time.api.physics;
+
+import time.api.math.FastMath;
+
+/**
+ * 
+ * The narrowphase routines for every pair of shape types, picked from a table by the types of the two bodies.
+ * <p>
+ * Boxes against boxes, circles against circles and boxes against circles have routines of their own. Any other pair of
+ * boxes and polygons is separated along the edge normals of both, and circles against polygons add the axis towards the
+ * nearest corner. Each routine appends at most one contact, whose normal points from the second body towards the first.
+ * None of them change the bodies, so different pairs can be tested at the same time.
+ * 
+ */
+
+final class ShapeCollisions {
+
+	interface Collider {
+
+		/**
+		 * 
+		 * Tests two bodies against each other and records the contact if they overlap.
+		 * 
+		 * @param s - the store holding both bodies
+		 * @param a - the handle of the first body
+		 * @param b - the handle of the second body
+		 * @param f - the flags of the contact
+		 * @param c - the buffer to append the contact to
+		 * @return true if the bodies overlap
+		 */
+		boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c);
+	}
+
+	private static final Collider BOX_BOX = new Collider() {
+		@Override
+		public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+			return boxBox(s, a, b, f, c);
+		}
+	};
+
+	private static final Collider CIRCLE_CIRCLE = new Collider() {
+		@Override
+		public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+			return circleCircle(s, a, b, f, c);
+		}
+	};
+
+	private static final Collider BOX_CIRCLE = new Collider() {
+		@Override
+		public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+			return boxCircle(s, a, b, f, c);
+		}
+	};
+
+	private static final Collider CIRCLE_POLYGON = new Collider() {
+		@Override
+		public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+			return separate(s, a, b, true, f, c);
+		}
+	};
+
+	private static final Collider POLYGON_POLYGON = new Collider() {
+		@Override
+		public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+			return separate(s, a, b, false, f, c);
+		}
+	};
+
+	//Indexed by the types of the first and second body
+	private static final Collider[][] TABLE = new Collider[Shape.TYPES][Shape.TYPES];
+
+	static {
+		for(int i = 0; i < Shape.TYPES; i++) {
+			for(int j = 0; j < Shape.TYPES; j++)
+				TABLE[i][j] = POLYGON_POLYGON;
+		}
+
+		TABLE[Shape.BOX][Shape.BOX] = BOX_BOX;
+		TABLE[Shape.CIRCLE][Shape.CIRCLE] = CIRCLE_CIRCLE;
+
+		TABLE[Shape.BOX][Shape.CIRCLE] = BOX_CIRCLE;
+		TABLE[Shape.CIRCLE][Shape.BOX] = flip(BOX_CIRCLE);
+
+		TABLE[Shape.CIRCLE][Shape.ORIENTED_BOX] = CIRCLE_POLYGON;
+		TABLE[Shape.ORIENTED_BOX][Shape.CIRCLE] = flip(CIRCLE_POLYGON);
+		TABLE[Shape.CIRCLE][Shape.POLYGON] = CIRCLE_POLYGON;
+		TABLE[Shape.POLYGON][Shape.CIRCLE] = flip(CIRCLE_POLYGON);
+	}
+
+	private ShapeCollisions() {}
+
+	/**
+	 * 
+	 * Tests two bodies against each other with the routine for their shapes, and records the contact if they overlap.
+	 * 
+	 * @param s - the store holding both bodies
+	 * @param a - the handle of the first body
+	 * @param b - the handle of the second body
+	 * @param f - the flags of the contact
+	 * @param c - the buffer to append the contact to
+	 * @return true if the bodies overlap
+	 */
+	static boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+		return TABLE[type(s, a)][type(s, b)].collide(s, a, b, f, c);
+	}
+
+	/**
+	 * 
+	 * Checks whether or not a point lies within the shape of a body.
+	 * 
+	 * @param s - the store holding the body
+	 * @param h - the handle of the body
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @return true if the point is inside the body
+	 */
+	static boolean contains(BodyStore s, int h, float x, float y) {
+		float dx = x - s.posX[h];
+		float dy = y - s.posY[h];
+
+		Shape shape = s.shapes[h];
+		if(shape == null || shape.getType() == Shape.BOX)
+			return Math.abs(dx) < s.halfW[h] && Math.abs(dy) < s.halfH[h];
+
+		if(shape.getType() == Shape.CIRCLE)
+			return dx * dx + dy * dy < s.halfW[h] * s.halfW[h];
+
+		//Turn the point into the space of the shape, where it must lie behind every edge
+		float lx = dx * s.cos[h] + dy * s.sin[h];
+		float ly = dy * s.cos[h] - dx * s.sin[h];
+		for(int i = 0; i < shape.getAxisCount(); i++) {
+			float nx = shape.getAxisX(i);
+			float ny = shape.getAxisY(i);
+			if(lx * nx + ly * ny >= shape.support(nx, ny))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean boxBox(BodyStore s, int a, int b, int f, ContactBuffer c) {
+		float dx = s.posX[a] - s.posX[b];
+		float dy = s.posY[a] - s.posY[b];
+
+		float overlapX = s.halfW[a] + s.halfW[b] - Math.abs(dx);
+		if(overlapX < 0) return false;
+
+		float overlapY = s.halfH[a] + s.halfH[b] - Math.abs(dy);
+		if(overlapY < 0) return false;
+
+		//Separate along the axis of least overlap
+		if(overlapX < overlapY)
+			c.add(a, b, dx < 0 ? -1 : 1, 0, overlapX, s.halfW[a] + s.halfW[b], f);
+		else
+			c.add(a, b, 0, dy < 0 ? -1 : 1, overlapY, s.halfH[a] + s.halfH[b], f);
+
+		return true;
+	}
+
+	private static boolean circleCircle(BodyStore s, int a, int b, int f, ContactBuffer c) {
+		float dx = s.posX[a] - s.posX[b];
+		float dy = s.posY[a] - s.posY[b];
+		float r = s.halfW[a] + s.halfW[b];
+
+		float d2 = dx * dx + dy * dy;
+		if(d2 > r * r) return false;
+
+		//Circles on top of each other are pushed apart vertically
+		float d = (float)Math.sqrt(d2);
+		if(d == 0)
+			c.add(a, b, 0, 1, r, r, f);
+		else
+			c.add(a, b, dx / d, dy / d, r - d, r, f);
+
+		return true;
+	}
+
+	private static boolean boxCircle(BodyStore s, int a, int b, int f, ContactBuffer c) {
+		float dx = s.posX[b] - s.posX[a];
+		float dy = s.posY[b] - s.posY[a];
+		float hw = s.halfW[a], hh = s.halfH[a];
+		float r = s.halfW[b];
+
+		//The point of the box closest to the center of the circle
+		float px = FastMath.clamp(dx, -hw, hw);
+		float py = FastMath.clamp(dy, -hh, hh);
+
+		if(px != dx || py != dy) {
+			float ex = px - dx;
+			float ey = py - dy;
+			float d2 = ex * ex + ey * ey;
+			if(d2 > r * r) return false;
+
+			float d = (float)Math.sqrt(d2);
+			float nx = ex / d, ny = ey / d;
+			float depth = r - d;
+			c.add(a, b, nx, ny, depth, -(dx * nx + dy * ny) + depth, f);
+			return true;
+		}
+
+		//The center is inside the box, so push out through the nearest side
+		float overlapX = hw - Math.abs(dx) + r;
+		float overlapY = hh - Math.abs(dy) + r;
+		if(overlapX < overlapY)
+			c.add(a, b, dx > 0 ? -1 : 1, 0, overlapX, hw + r, f);
+		else
+			c.add(a, b, 0, dy > 0 ? -1 : 1, overlapY, hh + r, f);
+
+		return true;
+	}
+
+	//Tests the edge normals of both bodies, and the axis from the nearest corner of b for a circle a
+	private static boolean separate(BodyStore s, int a, int b, boolean circle, int f, ContactBuffer c) {
+		int countA = axisCount(s, a);
+		int countB = axisCount(s, b);
+		int count = countA + countB + (circle ? 1 : 0);
+
+		float depth = Float.MAX_VALUE;
+		float bestX = 0, bestY = 0;
+
+		for(int k = 0; k < count; k++) {
+			float nx, ny;
+			if(k < countA) {
+				nx = axisX(s, a, k);
+				ny = axisY(s, a, k);
+			} else if(k < countA + countB) {
+				nx = axisX(s, b, k - countA);
+				ny = axisY(s, b, k - countA);
+			} else {
+				int v = nearestVertex(s, b, s.posX[a], s.posY[a]);
+				nx = s.posX[a] - vertexX(s, b, v);
+				ny = s.posY[a] - vertexY(s, b, v);
+				float length = (float)Math.sqrt(nx * nx + ny * ny);
+				if(length == 0)
+					continue;
+				nx /= length;
+				ny /= length;
+			}
+
+			float maxA = support(s, a, nx, ny), minA = -support(s, a, -nx, -ny);
+			float maxB = support(s, b, nx, ny), minB = -support(s, b, -nx, -ny);
+
+			//How far a has to move along the axis, or against it, to stop overlapping b
+			float forward = maxB - minA;
+			float backward = maxA - minB;
+			if(forward < 0 || backward < 0)
+				return false;
+
+			if(forward < depth) {
+				depth = forward;
+				bestX = nx;
+				bestY = ny;
+			}
+			if(backward < depth) {
+				depth = backward;
+				bestX = -nx;
+				bestY = -ny;
+			}
+		}
+
+		float reach = (s.posX[a] - s.posX[b]) * bestX + (s.posY[a] - s.posY[b]) * bestY + depth;
+		c.add(a, b, bestX, bestY, depth, reach, f);
+		return true;
+	}
+
+	private static int type(BodyStore s, int h) {
+		Shape shape = s.shapes[h];
+		return shape == null ? Shape.BOX : shape.getType();
+	}
+
+	//How far the body reaches along a direction in world space
+	private static float support(BodyStore s, int h, float dx, float dy) {
+		float p = s.posX[h] * dx + s.posY[h] * dy;
+
+		Shape shape = s.shapes[h];
+		if(shape == null)
+			return p + s.halfW[h] * Math.abs(dx) + s.halfH[h] * Math.abs(dy);
+		if(!shape.rotates())
+			return p + shape.support(dx, dy);
+
+		float cos = s.cos[h], sin = s.sin[h];
+		return p + shape.support(dx * cos + dy * sin, dy * cos - dx * sin);
+	}
+
+	private static int axisCount(BodyStore s, int h) {
+		Shape shape = s.shapes[h];
+		return shape == null ? 2 : shape.getAxisCount();
+	}
+
+	private static float axisX(BodyStore s, int h, int i) {
+		Shape shape = s.shapes[h];
+		if(shape == null)
+			return i == 0 ? 1 : 0;
+		if(!shape.rotates())
+			return shape.getAxisX(i);
+		return shape.getAxisX(i) * s.cos[h] - shape.getAxisY(i) * s.sin[h];
+	}
+
+	private static float axisY(BodyStore s, int h, int i) {
+		Shape shape = s.shapes[h];
+		if(shape == null)
+			return i == 0 ? 0 : 1;
+		if(!shape.rotates())
+			return shape.getAxisY(i);
+		return shape.getAxisX(i) * s.sin[h] + shape.getAxisY(i) * s.cos[h];
+	}
+
+	private static int vertexCount(BodyStore s, int h) {
+		Shape shape = s.shapes[h];
+		return shape == null ? 4 : shape.getVertexCount();
+	}
+
+	private static float vertexX(BodyStore s, int h, int i) {
+		Shape shape = s.shapes[h];
+		if(shape == null)
+			return s.posX[h] + (i == 0 || i == 3 ? -s.halfW[h] : s.halfW[h]);
+		if(!shape.rotates())
+			return s.posX[h] + shape.getVertexX(i);
+		return s.posX[h] + shape.getVertexX(i) * s.cos[h] - shape.getVertexY(i) * s.sin[h];
+	}
+
+	private static float vertexY(BodyStore s, int h, int i) {
+		Shape shape = s.shapes[h];
+		if(shape == null)
+			return s.posY[h] + (i < 2 ? -s.halfH[h] : s.halfH[h]);
+		if(!shape.rotates())
+			return s.posY[h] + shape.getVertexY(i);
+		return s.posY[h] + shape.getVertexX(i) * s.sin[h] + shape.getVertexY(i) * s.cos[h];
+	}
+
+	private static int nearestVertex(BodyStore s, int h, float x, float y) {
+		int nearest = 0;
+		float best = Float.MAX_VALUE;
+		for(int i = 0; i < vertexCount(s, h); i++) {
+			float dx = vertexX(s, h, i) - x;
+			float dy = vertexY(s, h, i) - y;
+			float d2 = dx * dx + dy * dy;
+			if(d2 < best) {
+				best = d2;
+				nearest = i;
+			}
+		}
+		return nearest;
+	}
+
+	//Tests the pair with the bodies swapped, for the routines that expect the types the other way around
+	private static Collider flip(final Collider collider) {
+		return new Collider() {
+			@Override
+			public boolean collide(BodyStore s, int a, int b, int f, ContactBuffer c) {
+				return collider.collide(s, b, a, f, c);
+			}
+		};
+	}
+}
@@ -0,0 +1,174 @@
+package time.api.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 
+ * Keeps the snapshots of the last few frames of a {@link PhysicsEngine} for rollback.
+ * <p>
+ * Every slot is a preallocated buffer that is written over once the ring wraps around, so saving a frame does not create any
+ * objects unless the state has outgrown the slot. Restoring a frame throws away the snapshots taken after it, since those
+ * belong to a timeline that is about to be simulated again.
+ * 
+ */
+
+public class SnapshotRing {
+
+	private final ByteBuffer[] buffers;
+	private final long[] frames;
+	private final boolean direct;
+
+	//The slot the next snapshot is written to and the amount of snapshots held
+	private int next;
+	private int size;
+
+	/**
+	 * 
+	 * Constructs a new ring of snapshots.
+	 * 
+	 * @param capacity - the amount of frames to keep
+	 * @param bytes - the initial size of each snapshot, see {@link PhysicsEngine#getSnapshotSize()}
+	 * @param direct - true to keep the snapshots in direct buffers
+	 */
+	public SnapshotRing(int capacity, int bytes, boolean direct) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		if(bytes < 0)
+			throw new IllegalArgumentException("Snapshot size cannot be negative: " + bytes);
+
+		this.buffers = new ByteBuffer[capacity];
+		this.frames = new long[capacity];
+		this.direct = direct;
+
+		for(int i = 0; i < capacity; i++)
+			buffers[i] = allocate(bytes);
+	}
+
+	/**
+	 * 
+	 * Takes a snapshot of a physics engine, replacing the oldest one if the ring is full.
+	 * 
+	 * @param engine - the physics engine to save
+	 * @param frame - the frame the snapshot belongs to
+	 * @return this SnapshotRing instance
+	 */
+	public SnapshotRing save(PhysicsEngine engine, long frame) {
+		int bytes = engine.getSnapshotSize();
+		if(buffers[next].capacity() < bytes)
+			buffers[next] = allocate(bytes + bytes / 4);
+
+		ByteBuffer buffer = buffers[next];
+		buffer.clear();
+		engine.snapshot(buffer);
+		buffer.flip();
+
+		frames[next] = frame;
+		next = (next + 1) % buffers.length;
+		size = Math.min(size + 1, buffers.length);
+
+		return this;
+	}
+
+	/**
+	 * 
+	 * Restores a physics engine to the snapshot of the specified frame. Snapshots of later frames are discarded.
+	 * 
+	 * @param engine - the physics engine to restore
+	 * @param frame - the frame to go back to
+	 * @return true if the frame was found and restored
+	 */
+	public boolean restore(PhysicsEngine engine, long frame) {
+		int slot = find(frame);
+		if(slot < 0)
+			return false;
+
+		ByteBuffer buffer = buffers[slot];
+		buffer.rewind();
+		engine.restore(buffer);
+
+		//Forget the snapshots after the restored one
+		int newer = (next - slot - 1 + buffers.length) % buffers.length;
+		size -= newer;
+		next = (slot + 1) % buffers.length;
+
+		return true;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not a snapshot of the specified frame is held.
+	 * 
+	 * @param frame - the frame to look for
+	 * @return true if the frame can be restored
+	 */
+	public boolean contains(long frame) {
+		return find(frame) >= 0;
+	}
+
+	/**
+	 * 
+	 * Returns the snapshot of the specified frame, ready to be read from its start.
+	 * 
+	 * @param frame - the frame to look for
+	 * @return the snapshot of the frame, or null if it is not held
+	 */
+	public ByteBuffer get(long frame) {
+		int slot = find(frame);
+		if(slot < 0)
+			return null;
+
+		ByteBuffer buffer = buffers[slot];
+		buffer.rewind();
+		return buffer;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of snapshots held.
+	 * 
+	 * @return the amount of snapshots
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * Returns the most snapshots this ring holds at once.
+	 * 
+	 * @return the capacity of this ring
+	 */
+	public int capacity() {
+		return buffers.length;
+	}
+
+	/**
+	 * 
+	 * Forgets every snapshot, keeping the buffers for reuse.
+	 * 
+	 * @return this SnapshotRing instance
+	 */
+	public SnapshotRing clear() {
+		next = 0;
+		size = 0;
+		return this;
+	}
+
+	//Searches from the newest snapshot backwards, so a frame saved twice resolves to its latest snapshot
+	private int find(long frame) {
+		for(int i = 1; i <= size; i++) {
+			int slot = (next - i + buffers.length) % buffers.length;
+			if(frames[slot] == frame)
+				return slot;
+		}
+		return -1;
+	}
+
+	private ByteBuffer allocate(int bytes) {
+		ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+
+		//Snapshots never leave the machine, so they skip the byte swapping
+		return buffer.order(ByteOrder.nativeOrder());
+	}
+}
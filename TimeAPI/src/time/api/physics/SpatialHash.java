@@ -0,0 +1,727 @@
+package time.api.physics;
+
+/**
+ * 
+ * A uniform grid broadphase that buckets bodies by the cells their bounding boxes overlap.
+ * Only bodies sharing a cell are ever paired, so the cost of finding pairs scales with the amount of neighbours rather than the amount of bodies.
+ * <p>
+ * Cells are stored in an open addressed hash table keyed by their packed coordinates, meaning the grid is unbounded and empty space costs nothing.
+ * Emptied cells stay in the table, so bodies moving back and forth cost nothing, but only the cells holding bodies are ever walked,
+ * so the cost of a step depends on where the bodies are now rather than on everywhere they have been. Once the table fills up with
+ * mostly empty cells, those are dropped instead of the table being grown, so the memory used follows the bodies as well.
+ * <p>
+ * Bodies with NaN bounds are kept out of the grid and never paired or found. Bodies overlapping more than {@link #MAX_CELLS} cells,
+ * such as huge static ground, are kept aside and tested against every other body instead of being bucketed.
+ * 
+ */
+
+public class SpatialHash implements Broadphase {
+
+	/**
+	 * 
+	 * The amount of cells a body may overlap before it is kept aside rather than bucketed.
+	 * 
+	 */
+	public static final int MAX_CELLS = 4096;
+
+	//Cell coordinates are clamped to this, so stepping past the last cell or subtracting two coordinates never overflows
+	private static final int LIMIT = 1 << 29;
+
+	private float cellSize;
+	private float invCellSize;
+
+	//Cell table, holding the cells in use as well as emptied ones until it fills up
+	private long[] keys;
+	private Cell[] cells;
+	private int tableCount;
+
+	//The cells holding bodies, each knowing its index in here
+	private Cell[] live;
+	private int cellCount;
+
+	//Cells dropped from the table, kept to be reused
+	private Cell[] pool;
+	private int poolSize;
+
+	//Spare proxy lists, one stack per power of two length, each large enough for every list of that length that was made.
+	//A cell hands back a grown list once it empties, so the long lists move to wherever bodies crowd together instead of
+	//every cell growing its own
+	private final int[][][] spares = new int[31][][];
+	private final int[] spareCount = new int[31];
+	private final int[] listCount = new int[31];
+
+	//Proxies overlapping too many cells to bucket
+	private int[] large;
+	private int largeCount;
+
+	//Proxy data, indexed by Body.proxy
+	private Body[] proxies;
+	private int[] minCX, minCY, maxCX, maxCY;
+	private int[] freeProxies;
+	private int freeCount;
+	private int proxyCount;
+
+	/**
+	 * 
+	 * Constructs a new spatial hash with the specified cell size.
+	 * 
+	 * @param cellSize - the width and height of each cell
+	 */
+	public SpatialHash(float cellSize) {
+		keys = new long[256];
+		cells = new Cell[256];
+		live = new Cell[128];
+		pool = new Cell[128];
+		large = new int[4];
+
+		proxies = new Body[64];
+		minCX = new int[64];
+		minCY = new int[64];
+		maxCX = new int[64];
+		maxCY = new int[64];
+		freeProxies = new int[64];
+
+		setCellSize(cellSize);
+	}
+
+	/**
+	 * 
+	 * Sets the cell size of this spatial hash and re-buckets all bodies.
+	 * A good cell size is around the size of the most common body.
+	 * 
+	 * @param cellSize - the width and height of each cell
+	 * @return this spatial hash instance
+	 */
+	public SpatialHash setCellSize(float cellSize) {
+		if(cellSize <= 0)
+			throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+
+		this.cellSize = cellSize;
+		this.invCellSize = 1f / cellSize;
+
+		clearCells();
+
+		for(int p = 0; p < proxyCount; p++) {
+			if(proxies[p] == null)
+				continue;
+			computeRange(proxies[p], p);
+			insert(p);
+		}
+
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns the cell size of this spatial hash.
+	 * 
+	 * @return the cell size of this spatial hash
+	 */
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * 
+	 * Adds a body to this spatial hash.
+	 * 
+	 * @param body - the body to add
+	 */
+	@Override
+	public void add(Body body) {
+		if(body.proxy != -1)
+			return;
+
+		int p;
+		if(freeCount > 0) {
+			p = freeProxies[--freeCount];
+		} else {
+			if(proxyCount == proxies.length)
+				growProxies();
+			p = proxyCount++;
+		}
+
+		proxies[p] = body;
+		body.proxy = p;
+
+		computeRange(body, p);
+		insert(p);
+	}
+
+	/**
+	 * 
+	 * Removes a body from this spatial hash.
+	 * 
+	 * @param body - the body to remove
+	 */
+	@Override
+	public void remove(Body body) {
+		int p = body.proxy;
+		if(p == -1 || proxies[p] != body)
+			return;
+
+		erase(p);
+
+		proxies[p] = null;
+		body.proxy = -1;
+
+		if(freeCount == freeProxies.length) {
+			int[] f = new int[freeCount * 2];
+			System.arraycopy(freeProxies, 0, f, 0, freeCount);
+			freeProxies = f;
+		}
+		freeProxies[freeCount++] = p;
+	}
+
+	/**
+	 * 
+	 * Moves a body to the cells it currently overlaps. Nothing is done if it still overlaps the same cells.
+	 * 
+	 * @param body - the body that may have moved
+	 */
+	@Override
+	public void update(Body body) {
+		int p = body.proxy;
+		if(p == -1)
+			return;
+
+		float minX = body.getMinX(), minY = body.getMinY(), maxX = body.getMaxX(), maxY = body.getMaxY();
+		int x0 = 1, y0 = 1, x1 = 0, y1 = 0;
+		if(!isNaN(minX, minY, maxX, maxY)) {
+			x0 = cell(minX);
+			y0 = cell(minY);
+			x1 = cell(maxX);
+			y1 = cell(maxY);
+		}
+
+		if(x0 == minCX[p] && y0 == minCY[p] && x1 == maxCX[p] && y1 == maxCY[p])
+			return;
+
+		erase(p);
+
+		minCX[p] = x0;
+		minCY[p] = y0;
+		maxCX[p] = x1;
+		maxCY[p] = y1;
+
+		insert(p);
+	}
+
+	/**
+	 * 
+	 * Updates every body in this spatial hash.
+	 * 
+	 */
+	public void updateAll() {
+		for(int p = 0; p < proxyCount; p++) {
+			if(proxies[p] != null)
+				update(proxies[p]);
+		}
+	}
+
+	/**
+	 * 
+	 * Finds every pair of bodies whose bounding boxes overlap and appends them to the specified buffer.
+	 * Each pair is reported exactly once, even if the bodies share several cells.
+	 * 
+	 * @param pairs - the buffer to append the pairs to
+	 */
+	@Override
+	public void findPairs(PairBuffer pairs) {
+		for(int c = 0; c < cellCount; c++) {
+			Cell cell = live[c];
+			if(cell.size < 2)
+				continue;
+
+			int[] list = cell.proxies;
+			for(int i = 0; i < cell.size; i++) {
+				int a = list[i];
+				Body ba = proxies[a];
+
+				for(int j = i + 1; j < cell.size; j++) {
+					int b = list[j];
+
+					//Only report the pair in the first cell both bodies share
+					if(Math.max(minCX[a], minCX[b]) != cell.x || Math.max(minCY[a], minCY[b]) != cell.y)
+						continue;
+
+					Body bb = proxies[b];
+
+					if(ba.getMaxX() < bb.getMinX() || bb.getMaxX() < ba.getMinX()
+							|| ba.getMaxY() < bb.getMinY() || bb.getMaxY() < ba.getMinY())
+						continue;
+
+					pairs.add(ba, bb);
+				}
+			}
+		}
+
+		//Bodies kept aside are tested against every other body, and against each other once
+		for(int l = 0; l < largeCount; l++) {
+			int a = large[l];
+			Body ba = proxies[a];
+			for(int b = 0; b < proxyCount; b++) {
+				Body bb = proxies[b];
+				if(bb == null || b == a || isEmpty(b) || (isLarge(b) && b < a))
+					continue;
+
+				if(ba.getMaxX() < bb.getMinX() || bb.getMaxX() < ba.getMinX()
+						|| ba.getMaxY() < bb.getMinY() || bb.getMaxY() < ba.getMinY())
+					continue;
+
+				pairs.add(ba, bb);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Finds every body whose bounding box overlaps the specified region.
+	 * 
+	 * @param minX - the left edge of the region
+	 * @param minY - the bottom edge of the region
+	 * @param maxX - the right edge of the region
+	 * @param maxY - the top edge of the region
+	 * @param results - the array to write the bodies to
+	 * @return the amount of bodies written to results, at most its length
+	 */
+	@Override
+	public int query(float minX, float minY, float maxX, float maxY, Body[] results) {
+		int x0 = cell(minX);
+		int y0 = cell(minY);
+		int x1 = cell(maxX);
+		int y1 = cell(maxY);
+
+		int count = 0;
+		for(int l = 0; l < largeCount && count < results.length; l++) {
+			Body b = proxies[large[l]];
+			if(!(b.getMaxX() < minX || maxX < b.getMinX() || b.getMaxY() < minY || maxY < b.getMinY()))
+				results[count++] = b;
+		}
+
+		//Large regions are cheaper to answer by walking the cells that exist
+		if(((long)x1 - x0 + 1) * ((long)y1 - y0 + 1) > cellCount) {
+			for(int c = 0; c < cellCount && count < results.length; c++) {
+				Cell cell = live[c];
+				if(cell.x >= x0 && cell.x <= x1 && cell.y >= y0 && cell.y <= y1)
+					count = collect(cell, x0, y0, minX, minY, maxX, maxY, results, count);
+			}
+			return count;
+		}
+
+		for(int y = y0; y <= y1; y++) {
+			for(int x = x0; x <= x1; x++) {
+				Cell cell = findCell(x, y);
+				if(cell != null)
+					count = collect(cell, x0, y0, minX, minY, maxX, maxY, results, count);
+				if(count == results.length)
+					return count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 
+	 * Casts a ray and finds the closest body whose bounding box it hits. The cells are walked in the order the ray passes
+	 * through them, so the walk ends at the first cell that contains a hit.
+	 * 
+	 * @param ox - the x coordinate of the ray origin
+	 * @param oy - the y coordinate of the ray origin
+	 * @param dx - the x component of the ray direction
+	 * @param dy - the y component of the ray direction
+	 * @param maxFraction - how far along the direction the ray reaches
+	 * @param mask - the layers to look for, bodies on none of them are ignored
+	 * @param hit - the hit to write the result to
+	 * @return true if a body was hit
+	 */
+	@Override
+	public boolean raycast(float ox, float oy, float dx, float dy, float maxFraction, long mask, RaycastHit hit) {
+		hit.reset();
+		hit.fraction = maxFraction;
+
+		int x = cell(ox);
+		int y = cell(oy);
+		int endX = cell(ox + dx * maxFraction);
+		int endY = cell(oy + dy * maxFraction);
+
+		for(int l = 0; l < largeCount; l++)
+			cast(proxies[large[l]], ox, oy, dx, dy, mask, hit);
+
+		//Long rays are cheaper to answer by testing the cells that exist
+		if(Math.abs((long)endX - x) + Math.abs((long)endY - y) + 1 > cellCount) {
+			for(int c = 0; c < cellCount; c++)
+				cast(live[c], ox, oy, dx, dy, mask, hit);
+		} else {
+			int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+			int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+
+			//The fraction along the ray where it crosses into the next column and row
+			float nextX = stepX == 0 ? Float.POSITIVE_INFINITY : ((x + (stepX > 0 ? 1 : 0)) * cellSize - ox) / dx;
+			float nextY = stepY == 0 ? Float.POSITIVE_INFINITY : ((y + (stepY > 0 ? 1 : 0)) * cellSize - oy) / dy;
+			float deltaX = stepX == 0 ? 0 : cellSize / Math.abs(dx);
+			float deltaY = stepY == 0 ? 0 : cellSize / Math.abs(dy);
+
+			while(true) {
+				Cell cell = findCell(x, y);
+				if(cell != null)
+					cast(cell, ox, oy, dx, dy, mask, hit);
+
+				//Stop once the ray leaves the cell beyond the closest hit or the end of the ray
+				if(Math.min(nextX, nextY) >= hit.fraction)
+					break;
+
+				if(nextX < nextY) {
+					x += stepX;
+					nextX += deltaX;
+				} else {
+					y += stepY;
+					nextY += deltaY;
+				}
+			}
+		}
+
+		if(!hit.hasHit())
+			hit.fraction = 0;
+
+		return hit.hasHit();
+	}
+
+	/**
+	 * 
+	 * Removes all bodies from this spatial hash.
+	 * 
+	 */
+	@Override
+	public void clear() {
+		for(int p = 0; p < proxyCount; p++) {
+			if(proxies[p] != null)
+				proxies[p].proxy = -1;
+			proxies[p] = null;
+		}
+		proxyCount = 0;
+		freeCount = 0;
+
+		clearCells();
+	}
+
+	//Returns the cell a coordinate falls in, clamped to the limit of the grid
+	private int cell(float v) {
+		double c = Math.floor(v * invCellSize);
+		return c < -LIMIT ? -LIMIT : c > LIMIT ? LIMIT : (int)c;
+	}
+
+	private static boolean isNaN(float minX, float minY, float maxX, float maxY) {
+		return minX != minX || minY != minY || maxX != maxX || maxY != maxY;
+	}
+
+	//Bodies with NaN bounds get a range without cells
+	private void computeRange(Body body, int p) {
+		float minX = body.getMinX(), minY = body.getMinY(), maxX = body.getMaxX(), maxY = body.getMaxY();
+		if(isNaN(minX, minY, maxX, maxY)) {
+			minCX[p] = minCY[p] = 1;
+			maxCX[p] = maxCY[p] = 0;
+			return;
+		}
+
+		minCX[p] = cell(minX);
+		minCY[p] = cell(minY);
+		maxCX[p] = cell(maxX);
+		maxCY[p] = cell(maxY);
+	}
+
+	private boolean isEmpty(int p) {
+		return maxCX[p] < minCX[p] || maxCY[p] < minCY[p];
+	}
+
+	private boolean isLarge(int p) {
+		return !isEmpty(p) && ((long)maxCX[p] - minCX[p] + 1) * ((long)maxCY[p] - minCY[p] + 1) > MAX_CELLS;
+	}
+
+	private void insert(int p) {
+		if(isLarge(p)) {
+			if(largeCount == large.length)
+				large = grow(large, largeCount * 2);
+			large[largeCount++] = p;
+			return;
+		}
+
+		for(int y = minCY[p]; y <= maxCY[p]; y++) {
+			for(int x = minCX[p]; x <= maxCX[p]; x++) {
+				add(getCell(x, y), p);
+			}
+		}
+	}
+
+	private void erase(int p) {
+		if(isLarge(p)) {
+			for(int l = 0; l < largeCount; l++) {
+				if(large[l] == p) {
+					large[l] = large[--largeCount];
+					return;
+				}
+			}
+			return;
+		}
+
+		for(int y = minCY[p]; y <= maxCY[p]; y++) {
+			for(int x = minCX[p]; x <= maxCX[p]; x++) {
+				Cell cell = findCell(x, y);
+				cell.remove(p);
+				if(cell.size == 0)
+					unlink(cell);
+			}
+		}
+	}
+
+	private int collect(Cell cell, int x0, int y0, float minX, float minY, float maxX, float maxY, Body[] results, int count) {
+		int[] list = cell.proxies;
+		for(int i = 0; i < cell.size && count < results.length; i++) {
+			int p = list[i];
+
+			//Only report the body in the first cell it shares with the region
+			if(Math.max(minCX[p], x0) != cell.x || Math.max(minCY[p], y0) != cell.y)
+				continue;
+
+			Body b = proxies[p];
+			if(b.getMaxX() < minX || maxX < b.getMinX() || b.getMaxY() < minY || maxY < b.getMinY())
+				continue;
+
+			results[count++] = b;
+		}
+		return count;
+	}
+
+	private void cast(Cell cell, float ox, float oy, float dx, float dy, long mask, RaycastHit hit) {
+		int[] list = cell.proxies;
+		for(int i = 0; i < cell.size; i++)
+			cast(proxies[list[i]], ox, oy, dx, dy, mask, hit);
+	}
+
+	private void cast(Body b, float ox, float oy, float dx, float dy, long mask, RaycastHit hit) {
+		if((b.getLayers() & mask) == 0)
+			return;
+
+		float minX = b.getMinX(), minY = b.getMinY(), maxX = b.getMaxX(), maxY = b.getMaxY();
+		float f = RaycastHit.castBox(ox, oy, dx, dy, hit.fraction, minX, minY, maxX, maxY);
+		if(f >= 0 && (!hit.hasHit() || f < hit.fraction))
+			hit.set(b, ox, oy, dx, dy, f, minX, minY, maxX, maxY);
+	}
+
+	private Cell findCell(int x, int y) {
+		long key = ((long)x << 32) | (y & 0xFFFFFFFFL);
+		int mask = cells.length - 1;
+		int i = hash(key) & mask;
+
+		while(cells[i] != null) {
+			if(keys[i] == key)
+				return cells[i];
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	private Cell getCell(int x, int y) {
+		long key = ((long)x << 32) | (y & 0xFFFFFFFFL);
+		int mask = cells.length - 1;
+		int i = hash(key) & mask;
+
+		while(cells[i] != null) {
+			if(keys[i] == key)
+				return cells[i];
+			i = (i + 1) & mask;
+		}
+
+		//Keep the load factor at or below one half, by dropping the empty cells if they are at least half of the table
+		if((tableCount + 1) * 2 > cells.length) {
+			if((tableCount - cellCount) * 2 >= tableCount)
+				dropEmpty();
+			else
+				growCells();
+			return getCell(x, y);
+		}
+
+		Cell cell;
+		if(poolSize > 0) {
+			cell = pool[--poolSize];
+		} else {
+			cell = new Cell();
+			cell.proxies = takeList(4);
+		}
+		cell.x = x;
+		cell.y = y;
+		keys[i] = key;
+		cells[i] = cell;
+		tableCount++;
+		return cell;
+	}
+
+	private void add(Cell cell, int p) {
+		if(cell.size == 0)
+			link(cell);
+		if(cell.size == cell.proxies.length) {
+			int[] list = takeList(cell.size * 2);
+			System.arraycopy(cell.proxies, 0, list, 0, cell.size);
+			giveList(cell.proxies);
+			cell.proxies = list;
+		}
+		cell.proxies[cell.size++] = p;
+	}
+
+	//Adds a cell to the list of cells holding bodies
+	private void link(Cell cell) {
+		if(cellCount == live.length) {
+			Cell[] l = new Cell[cellCount * 2];
+			System.arraycopy(live, 0, l, 0, cellCount);
+			live = l;
+		}
+		cell.index = cellCount;
+		live[cellCount++] = cell;
+	}
+
+	//Takes an emptied cell out of the list of cells holding bodies, it stays in the table
+	private void unlink(Cell cell) {
+		Cell last = live[--cellCount];
+		live[cell.index] = last;
+		last.index = cell.index;
+		live[cellCount] = null;
+
+		if(cell.proxies.length > 4) {
+			giveList(cell.proxies);
+			cell.proxies = takeList(4);
+		}
+	}
+
+	//Returns a spare proxy list of a power of two length
+	private int[] takeList(int length) {
+		int c = Integer.numberOfTrailingZeros(length);
+
+		//Out of spares, so make as many lists as there are, meaning it takes twice the crowding to run out again
+		if(spareCount[c] == 0) {
+			int n = Math.max(listCount[c], 16);
+			listCount[c] += n;
+			spares[c] = new int[listCount[c]][];
+			for(int i = 0; i < n; i++)
+				spares[c][spareCount[c]++] = new int[length];
+		}
+
+		int[] list = spares[c][--spareCount[c]];
+		spares[c][spareCount[c]] = null;
+		return list;
+	}
+
+	private void giveList(int[] list) {
+		int c = Integer.numberOfTrailingZeros(list.length);
+		spares[c][spareCount[c]++] = list;
+	}
+
+	//Drops every empty cell from the table and puts back the rest
+	private void dropEmpty() {
+		for(int i = 0; i < cells.length; i++) {
+			if(cells[i] != null && cells[i].size == 0)
+				release(cells[i]);
+			cells[i] = null;
+		}
+
+		tableCount = 0;
+		for(int c = 0; c < cellCount; c++)
+			place(live[c]);
+	}
+
+	//Keeps a cell dropped from the table for reuse
+	private void release(Cell cell) {
+		cell.size = 0;
+		if(poolSize == pool.length) {
+			Cell[] n = new Cell[poolSize * 2];
+			System.arraycopy(pool, 0, n, 0, poolSize);
+			pool = n;
+		}
+		pool[poolSize++] = cell;
+	}
+
+	//Puts a cell known not to be in the table into it
+	private void place(Cell cell) {
+		long key = ((long)cell.x << 32) | (cell.y & 0xFFFFFFFFL);
+		int mask = cells.length - 1;
+		int i = hash(key) & mask;
+		while(cells[i] != null)
+			i = (i + 1) & mask;
+		keys[i] = key;
+		cells[i] = cell;
+		tableCount++;
+	}
+
+	//Removes every cell and every body kept aside, leaving the proxies as they are
+	private void clearCells() {
+		for(int i = 0; i < cells.length; i++) {
+			if(cells[i] != null)
+				release(cells[i]);
+			cells[i] = null;
+		}
+		for(int c = 0; c < cellCount; c++)
+			live[c] = null;
+		tableCount = 0;
+		cellCount = 0;
+		largeCount = 0;
+	}
+
+	private void growCells() {
+		Cell[] oldCells = cells;
+
+		keys = new long[keys.length * 2];
+		cells = new Cell[oldCells.length * 2];
+		tableCount = 0;
+
+		for(Cell cell : oldCells) {
+			if(cell != null)
+				place(cell);
+		}
+	}
+
+	private void growProxies() {
+		int n = proxies.length * 2;
+		Body[] b = new Body[n];
+		System.arraycopy(proxies, 0, b, 0, proxyCount);
+		proxies = b;
+		minCX = grow(minCX, n);
+		minCY = grow(minCY, n);
+		maxCX = grow(maxCX, n);
+		maxCY = grow(maxCY, n);
+	}
+
+	private static int[] grow(int[] a, int n) {
+		int[] r = new int[n];
+		System.arraycopy(a, 0, r, 0, a.length);
+		return r;
+	}
+
+	private static int hash(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key ^ (key >>> 32));
+	}
+
+	/**
+	 * 
+	 * A single grid cell holding the proxies of the bodies overlapping it.
+	 * 
+	 */
+	private static class Cell {
+
+		int x, y;
+
+		//The index of this cell in the list of cells holding bodies, while it holds any
+		int index;
+
+		int[] proxies;
+		int size;
+
+		void remove(int p) {
+			for(int i = 0; i < size; i++) {
+				if(proxies[i] == p) {
+					proxies[i] = proxies[--size];
+					return;
+				}
+			}
+		}
+	}
+}
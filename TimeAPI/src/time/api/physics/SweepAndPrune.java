@@ -0,0 +1,262 @@
+package time.api.physics;
+
+/**
+ * 
+ * A broadphase that keeps all bodies sorted by the left edge of their bounding boxes and sweeps along the x-axis to find overlaps.
+ * <p>
+ * Bodies rarely move far between two steps, so the order is restored with an insertion sort which runs in close to linear time
+ * when little has changed. This suits wide, sparse scenes better than a grid does.
+ * <p>
+ * Updating a body that moved along the x-axis leaves the order unsorted until the next step or {@link #prepareQueries()}.
+ * Queries and raycasts made in between still find everything, but have to look at every body instead of stopping at the
+ * first one beyond the region.
+ * 
+ */
+
+public class SweepAndPrune implements Broadphase {
+
+	//Proxy data, indexed by Body.proxy
+	private Body[] bodies;
+	private float[] minX, minY, maxX, maxY;
+
+	//Proxies sorted by minX
+	private int[] order;
+	private int count;
+
+	private int[] freeProxies;
+	private int freeCount;
+	private int proxyCount;
+
+	//Removed proxies still present in the order
+	private int removed;
+
+	//Whether the order is known to be sorted
+	private boolean sorted;
+
+	/**
+	 * 
+	 * Constructs a new, empty sweep and prune broadphase.
+	 * 
+	 */
+	public SweepAndPrune() {
+		bodies = new Body[64];
+		minX = new float[64];
+		minY = new float[64];
+		maxX = new float[64];
+		maxY = new float[64];
+		order = new int[64];
+		freeProxies = new int[64];
+	}
+
+	@Override
+	public void add(Body body) {
+		if(body.proxy != -1)
+			return;
+
+		int p;
+		if(freeCount > 0) {
+			p = freeProxies[--freeCount];
+		} else {
+			if(proxyCount == bodies.length)
+				grow();
+			p = proxyCount++;
+		}
+
+		bodies[p] = body;
+		body.proxy = p;
+		update(body);
+
+		order[count++] = p;
+		sorted = false;
+	}
+
+	@Override
+	public void remove(Body body) {
+		int p = body.proxy;
+		if(p == -1 || bodies[p] != body)
+			return;
+
+		//The proxy is released once it has been pruned from the order
+		bodies[p] = null;
+		body.proxy = -1;
+		removed++;
+	}
+
+	@Override
+	public void update(Body body) {
+		int p = body.proxy;
+		if(p == -1)
+			return;
+
+		float x = body.getMinX();
+		if(x != minX[p])
+			sorted = false;
+
+		minX[p] = x;
+		minY[p] = body.getMinY();
+		maxX[p] = body.getMaxX();
+		maxY[p] = body.getMaxY();
+	}
+
+	@Override
+	public void findPairs(PairBuffer pairs) {
+		if(removed > 0)
+			prune();
+
+		sort();
+
+		for(int i = 0; i < count; i++) {
+			int a = order[i];
+			float right = maxX[a];
+
+			for(int j = i + 1; j < count; j++) {
+				int b = order[j];
+
+				//Every following body starts further right
+				if(minX[b] > right)
+					break;
+
+				if(maxY[a] < minY[b] || maxY[b] < minY[a])
+					continue;
+
+				pairs.add(bodies[a], bodies[b]);
+			}
+		}
+	}
+
+	@Override
+	public int query(float minX, float minY, float maxX, float maxY, Body[] results) {
+		int n = 0;
+		for(int i = 0; i < count && n < results.length; i++) {
+			int p = order[i];
+
+			//Once sorted, every following body starts further right
+			if(sorted && this.minX[p] > maxX)
+				break;
+
+			Body b = bodies[p];
+			if(b == null)
+				continue;
+
+			if(b.getMaxX() < minX || maxX < b.getMinX() || b.getMaxY() < minY || maxY < b.getMinY())
+				continue;
+
+			results[n++] = b;
+		}
+		return n;
+	}
+
+	@Override
+	public boolean raycast(float ox, float oy, float dx, float dy, float maxFraction, long mask, RaycastHit hit) {
+		hit.reset();
+		hit.fraction = maxFraction;
+
+		float right = Math.max(ox, ox + dx * maxFraction);
+		for(int i = 0; i < count; i++) {
+			int p = order[i];
+
+			//Once sorted, every following body starts beyond the end of the ray
+			if(sorted && minX[p] > right)
+				break;
+
+			Body b = bodies[p];
+			if(b == null || (b.getLayers() & mask) == 0)
+				continue;
+
+			float x0 = b.getMinX(), y0 = b.getMinY(), x1 = b.getMaxX(), y1 = b.getMaxY();
+			float f = RaycastHit.castBox(ox, oy, dx, dy, hit.fraction, x0, y0, x1, y1);
+			if(f >= 0 && (!hit.hasHit() || f < hit.fraction))
+				hit.set(b, ox, oy, dx, dy, f, x0, y0, x1, y1);
+		}
+
+		if(!hit.hasHit())
+			hit.fraction = 0;
+
+		return hit.hasHit();
+	}
+
+	@Override
+	public void prepareQueries() {
+		if(!sorted)
+			sort();
+	}
+
+	@Override
+	public void clear() {
+		for(int p = 0; p < proxyCount; p++) {
+			if(bodies[p] != null)
+				bodies[p].proxy = -1;
+			bodies[p] = null;
+		}
+		count = 0;
+		proxyCount = 0;
+		freeCount = 0;
+		removed = 0;
+		sorted = true;
+	}
+
+	/**
+	 * 
+	 * Restores the order with an insertion sort, which is close to linear for nearly sorted input.
+	 * 
+	 */
+	private void sort() {
+		for(int i = 1; i < count; i++) {
+			int p = order[i];
+			float key = minX[p];
+
+			int j = i - 1;
+			while(j >= 0 && minX[order[j]] > key) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = p;
+		}
+		sorted = true;
+	}
+
+	/**
+	 * 
+	 * Drops removed proxies from the order, keeping the remaining ones sorted, and releases them for reuse.
+	 * 
+	 */
+	private void prune() {
+		int n = 0;
+		for(int i = 0; i < count; i++) {
+			int p = order[i];
+			if(bodies[p] != null) {
+				order[n++] = p;
+			} else {
+				if(freeCount == freeProxies.length) {
+					int[] f = new int[freeCount * 2];
+					System.arraycopy(freeProxies, 0, f, 0, freeCount);
+					freeProxies = f;
+				}
+				freeProxies[freeCount++] = p;
+			}
+		}
+		count = n;
+		removed = 0;
+	}
+
+	private void grow() {
+		int n = bodies.length * 2;
+		Body[] b = new Body[n];
+		System.arraycopy(bodies, 0, b, 0, proxyCount);
+		bodies = b;
+		minX = grow(minX, n);
+		minY = grow(minY, n);
+		maxX = grow(maxX, n);
+		maxY = grow(maxY, n);
+
+		int[] o = new int[n];
+		System.arraycopy(order, 0, o, 0, count);
+		order = o;
+	}
+
+	private static float[] grow(float[] a, int n) {
+		float[] r = new float[n];
+		System.arraycopy(a, 0, r, 0, a.length);
+		return r;
+	}
+}
@@ -0,0 +1,352 @@
+package time.api.physics;
+
+/**
+ * 
+ * A grid of solid cells that bodies collide with, meant for level terrain.
+ * <p>
+ * The cells are kept as a bitset and never take part in pair generation. Instead, every moving body looks up the cells its
+ * bounding box overlaps, so the cost depends on the bodies rather than on the size of the map. Neighbouring solid cells act as one
+ * merged surface: a face shared by two solid cells is never used as a contact normal, so a body sliding along a floor made of many
+ * cells does not catch on the seams between them.
+ * <p>
+ * Cells only ever push straight out through one of their faces, and a body is tested against them as the axis-aligned box
+ * around its {@link Shape}, whatever the shape is. A circle or polygon therefore collides with the map as that box: it rests on
+ * its box rather than its outline, and it catches on the corner of a step where its outline would have rolled or slid over. Use
+ * bodies without a shape, or separate bodies with shapes, for terrain that round bodies have to move over smoothly.
+ * <p>
+ * The amount of cells, width times height, must fit in an int.
+ * 
+ */
+
+public class TileMap {
+
+	//The collision layer of every tile map, unless changed
+	public static final String TILE = "tile";
+
+	private final int width, height;
+	private final float tileSize;
+	private final float originX, originY;
+
+	//One bit per cell, row by row from the bottom
+	private final long[] cells;
+
+	private long layers;
+	private float friction;
+	private float epsilon;
+
+	//Counts changes to the cells, so the physics engine knows to wake the bodies resting on them
+	private int version;
+
+	//The deepest surface found so far for the body being tested, one per direction: right, up, left and down
+	private final float[] planes;
+
+	/**
+	 * 
+	 * Constructs a new tile map with no solid cells.
+	 * 
+	 * @param width - the amount of cells along the x-axis
+	 * @param height - the amount of cells along the y-axis
+	 * @param tileSize - the width and height of a cell
+	 * @param originX - the x coordinate of the left edge of the map
+	 * @param originY - the y coordinate of the bottom edge of the map
+	 */
+	public TileMap(int width, int height, float tileSize, float originX, float originY) {
+		if(width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Tile map must have at least one cell: " + width + "x" + height);
+		if((long)width * height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Tile map has too many cells to index: " + width + "x" + height);
+		if(tileSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+
+		this.width = width;
+		this.height = height;
+		this.tileSize = tileSize;
+		this.originX = originX;
+		this.originY = originY;
+
+		cells = new long[(int)(((long)width * height + 63) >>> 6)];
+		layers = CollisionLayers.getMask(TILE);
+		friction = 1;
+		epsilon = 0;
+		planes = new float[4];
+	}
+
+	/**
+	 * 
+	 * Sets whether or not a cell is solid.
+	 * 
+	 * @param x - the column of the cell
+	 * @param y - the row of the cell, counted from the bottom
+	 * @param solid - true to make the cell solid
+	 * @return this TileMap instance
+	 */
+	public TileMap setSolid(int x, int y, boolean solid) {
+		if(x < 0 || y < 0 || x >= width || y >= height)
+			throw new IllegalArgumentException("Cell " + x + ", " + y + " is outside the " + width + "x" + height + " tile map");
+
+		int i = y * width + x;
+		if(solid)
+			cells[i >>> 6] |= 1L << i;
+		else
+			cells[i >>> 6] &= ~(1L << i);
+
+		version++;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets whether or not every cell in a rectangle is solid.
+	 * 
+	 * @param x0 - the first column
+	 * @param y0 - the first row
+	 * @param x1 - the last column, inclusive
+	 * @param y1 - the last row, inclusive
+	 * @param solid - true to make the cells solid
+	 * @return this TileMap instance
+	 */
+	public TileMap fill(int x0, int y0, int x1, int y1, boolean solid) {
+		for(int y = y0; y <= y1; y++) {
+			for(int x = x0; x <= x1; x++)
+				setSolid(x, y, solid);
+		}
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets the cells of a row from a string, where '#' is a solid cell and any other character an empty one.
+	 * Cells beyond the end of the string are left as they are.
+	 * 
+	 * @param y - the row to set, counted from the bottom
+	 * @param row - the cells of the row, starting at the left
+	 * @return this TileMap instance
+	 */
+	public TileMap setRow(int y, String row) {
+		int n = Math.min(row.length(), width);
+		for(int x = 0; x < n; x++)
+			setSolid(x, y, row.charAt(x) == '#');
+		return this;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not a cell is solid. Cells outside of the map are empty.
+	 * 
+	 * @param x - the column of the cell
+	 * @param y - the row of the cell, counted from the bottom
+	 * @return true if the cell is solid
+	 */
+	public boolean isSolid(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height)
+			return false;
+
+		int i = y * width + x;
+		return (cells[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * 
+	 * Checks whether or not a point lies within a solid cell.
+	 * 
+	 * @param x - the x coordinate of the point
+	 * @param y - the y coordinate of the point
+	 * @return true if the point is inside a solid cell
+	 */
+	public boolean isSolidAt(float x, float y) {
+		return isSolid(column(x), row(y));
+	}
+
+	/**
+	 * 
+	 * Sets the collision layers of the cells. Bodies only collide with the map if their layers may collide with one of these.
+	 * 
+	 * @param layers - the layers of the cells, see {@link CollisionLayers#getMask(String)}
+	 * @return this TileMap instance
+	 */
+	public TileMap setLayers(long layers) {
+		this.layers = layers;
+		version++;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns the collision layers of the cells.
+	 * 
+	 * @return the layers of the cells
+	 */
+	public long getLayers() {
+		return layers;
+	}
+
+	/**
+	 * 
+	 * Sets the friction of the cells. The friction of a contact is the lower of that of the body and the cells.
+	 * 
+	 * @param friction - the friction of the cells
+	 * @return this TileMap instance
+	 */
+	public TileMap setFriction(float friction) {
+		this.friction = friction;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Sets the bounciness of the cells. The bounciness of a contact is the lower of that of the body and the cells.
+	 * 
+	 * @param epsilon - the bounciness of the cells
+	 * @return this TileMap instance
+	 */
+	public TileMap setEpsilon(float epsilon) {
+		this.epsilon = epsilon;
+		return this;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of cells along the x-axis.
+	 * 
+	 * @return the width of the map in cells
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * 
+	 * Returns the amount of cells along the y-axis.
+	 * 
+	 * @return the height of the map in cells
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * 
+	 * Returns the width and height of a cell.
+	 * 
+	 * @return the size of a cell
+	 */
+	public float getTileSize() {
+		return tileSize;
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * 
+	 * Finds the cells every moving body overlaps and hands the contacts to the solver. Trigger bodies only register the touch.
+	 * 
+	 * @param s - the bodies of the step
+	 * @param solver - the solver to add the contacts to
+	 */
+	void collide(BodyStore s, ContactSolver solver) {
+		for(int h = 0; h < s.size; h++) {
+			if(s.bodies[h] == null || s.motion[h] == 0 || (s.filter[h] & layers) == 0)
+				continue;
+
+			if(collide(s, h)) {
+				s.bodies[h].touchingLayers |= layers;
+				if((s.flags[h] & BodyStore.FLAG_TRIGGER) != 0)
+					continue;
+
+				if(planes[0] != -Float.MAX_VALUE)
+					solver.addStaticContact(s, h, 1, 0, planes[0], friction, epsilon);
+				if(planes[1] != -Float.MAX_VALUE)
+					solver.addStaticContact(s, h, 0, 1, planes[1], friction, epsilon);
+				if(planes[2] != -Float.MAX_VALUE)
+					solver.addStaticContact(s, h, -1, 0, planes[2], friction, epsilon);
+				if(planes[3] != -Float.MAX_VALUE)
+					solver.addStaticContact(s, h, 0, -1, planes[3], friction, epsilon);
+			}
+		}
+	}
+
+	//Finds the deepest surface in each direction among the cells the body overlaps, returning true if it overlaps any
+	private boolean collide(BodyStore s, int h) {
+		float minX = s.posX[h] - s.halfW[h], maxX = s.posX[h] + s.halfW[h];
+		float minY = s.posY[h] - s.halfH[h], maxY = s.posY[h] + s.halfH[h];
+
+		int x0 = Math.max(column(minX), 0), x1 = Math.min(column(maxX), width - 1);
+		int y0 = Math.max(row(minY), 0), y1 = Math.min(row(maxY), height - 1);
+		if(x0 > x1 || y0 > y1)
+			return false;
+
+		for(int i = 0; i < planes.length; i++)
+			planes[i] = -Float.MAX_VALUE;
+
+		boolean touching = false;
+		for(int y = y0; y <= y1; y++) {
+			float cellMinY = originY + y * tileSize, cellMaxY = cellMinY + tileSize;
+			if(cellMaxY <= minY || cellMinY >= maxY)
+				continue;
+
+			for(int x = x0; x <= x1; x++) {
+				if(!isSolid(x, y))
+					continue;
+
+				//Touching an edge is not an overlap
+				float cellMinX = originX + x * tileSize, cellMaxX = cellMinX + tileSize;
+				if(cellMaxX <= minX || cellMinX >= maxX)
+					continue;
+
+				touching = true;
+
+				//Push out through the shallowest face that is not shared with another solid cell
+				int best = -1;
+				float depth = Float.MAX_VALUE;
+				if(!isSolid(x + 1, y) && cellMaxX - minX < depth) {
+					best = 0;
+					depth = cellMaxX - minX;
+				}
+				if(!isSolid(x, y + 1) && cellMaxY - minY < depth) {
+					best = 1;
+					depth = cellMaxY - minY;
+				}
+				if(!isSolid(x - 1, y) && maxX - cellMinX < depth) {
+					best = 2;
+					depth = maxX - cellMinX;
+				}
+				if(!isSolid(x, y - 1) && maxY - cellMinY < depth) {
+					best = 3;
+					depth = maxY - cellMinY;
+				}
+
+				//A cell buried on all sides is left to the cells around it
+				if(best == -1)
+					continue;
+
+				float plane;
+				switch(best) {
+				case 0:
+					plane = cellMaxX;
+					break;
+				case 1:
+					plane = cellMaxY;
+					break;
+				case 2:
+					plane = -cellMinX;
+					break;
+				default:
+					plane = -cellMinY;
+					break;
+				}
+				planes[best] = Math.max(planes[best], plane);
+			}
+		}
+		return touching;
+	}
+
+	private int column(float x) {
+		return (int)Math.floor((x - originX) / tileSize);
+	}
+
+	private int row(float y) {
+		return (int)Math.floor((y - originY) / tileSize);
+	}
+}